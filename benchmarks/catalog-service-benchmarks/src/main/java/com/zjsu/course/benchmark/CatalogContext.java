@@ -0,0 +1,73 @@
+package com.zjsu.course.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjsu.course.CourseApplication;
+import com.zjsu.course.model.Course;
+import com.zjsu.course.model.Instructor;
+import com.zjsu.course.model.ScheduleSlot;
+import com.zjsu.course.service.CourseService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.DayOfWeek;
+
+/**
+ * catalog-service 上下文（dev profile + H2 内存库），启动后预先写入 courseCount 门课程
+ */
+@State(Scope.Benchmark)
+public class CatalogContext {
+
+    @Param({"1000"})
+    public int courseCount;
+
+    ConfigurableApplicationContext context;
+    CourseService courseService;
+    ObjectMapper objectMapper;
+    String[] ids;
+    String[] codes;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = SpringBenchmarkSupport.start(CourseApplication.class);
+        courseService = context.getBean(CourseService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        ids = new String[courseCount];
+        codes = new String[courseCount];
+        for (int i = 0; i < courseCount; i++) {
+            Course course = courseService.createCourse(newCourse(i));
+            ids[i] = course.getId();
+            codes[i] = course.getCode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    static Course newCourse(int i) {
+        Instructor instructor = new Instructor();
+        instructor.setId("T" + (i % 100));
+        instructor.setName("Instructor " + (i % 100));
+        instructor.setEmail("t" + (i % 100) + "@zjsu.edu.cn");
+
+        ScheduleSlot schedule = new ScheduleSlot();
+        schedule.setDayOfWeek(DayOfWeek.of(i % 5 + 1));
+        schedule.setStartTime(String.format("%02d:00", 8 + i % 10));
+        schedule.setEndTime(String.format("%02d:40", 8 + i % 10));
+
+        Course course = new Course();
+        course.setCode("BENCH" + i);
+        course.setTitle("Benchmark course " + i);
+        course.setCapacity(100);
+        course.setEnrolled(0);
+        course.setInstructor(instructor);
+        course.setSchedule(schedule);
+        return course;
+    }
+}
@@ -0,0 +1,81 @@
+package com.zjsu.course.benchmark;
+
+import com.zjsu.course.model.Course;
+import com.zjsu.course.search.CourseSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程搜索索引的单次查询延迟（不启动服务上下文，直接向 CourseSearchIndex 写入 courseCount 门中文标题课程）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CourseSearchBenchmark {
+
+    private static final String[] SUBJECTS = {"数据结构", "操作系统", "计算机网络", "数据库系统", "编译原理", "高等数学",
+            "线性代数", "概率论", "大学英语", "软件工程", "人工智能", "机器学习", "离散数学", "大学物理", "程序设计"};
+    private static final String[] SUFFIXES = {"", "导论", "实验", "基础", "与应用", "专题"};
+
+    @State(Scope.Benchmark)
+    public static class Index {
+
+        @Param({"50000"})
+        public int courseCount;
+
+        CourseSearchIndex index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            index = new CourseSearchIndex(null);
+            for (int i = 0; i < courseCount; i++) {
+                Course course = CatalogContext.newCourse(i);
+                course.setId(UUID.randomUUID().toString());
+                course.setTitle(SUBJECTS[i % SUBJECTS.length] + SUFFIXES[i / SUBJECTS.length % SUFFIXES.length] + " " + i);
+                course.setEnrolled(i % 7 == 0 ? 100 : i % 100);
+                index.put(course);
+            }
+            // 首次查询按课程代码排序
+            index.search(null, null, null, null, null, null, null, null, null);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> titleBigrams(Index state) {
+        return state.index.search("数据结构", null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> titleWithFacets(Index state) {
+        return state.index.search("数学", null, Arrays.asList("MONDAY", "WEDNESDAY"), null, "08:00", "12:00", true, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> instructorAndDay(Index state) {
+        return state.index.search(null, Collections.singletonList("T42"), Collections.singletonList("FRIDAY"),
+                null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public Map<String, Object> facetsOnly(Index state) {
+        return state.index.search(null, null, null, null, null, null, true, null, 20);
+    }
+}
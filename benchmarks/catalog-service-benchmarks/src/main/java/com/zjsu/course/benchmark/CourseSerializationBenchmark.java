@@ -0,0 +1,61 @@
+package com.zjsu.course.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.model.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 课程列表 ApiResponse 的 JSON 序列化（使用服务上下文中由 Spring Boot 配置的 ObjectMapper）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CourseSerializationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"100", "1000", "10000"})
+        public int size;
+
+        ObjectMapper objectMapper;
+        ApiResponse<List<Course>> response;
+
+        @Setup(Level.Trial)
+        public void setUp(CatalogContext catalog) {
+            objectMapper = catalog.objectMapper;
+            List<Course> courses = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                Course course = CatalogContext.newCourse(i);
+                course.setId(UUID.randomUUID().toString());
+                courses.add(course);
+            }
+            response = ApiResponse.success(courses);
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeCourseList(Payload payload) throws JsonProcessingException {
+        return payload.objectMapper.writeValueAsBytes(payload.response);
+    }
+}
@@ -0,0 +1,68 @@
+package com.zjsu.course.benchmark;
+
+import com.zjsu.course.model.Course;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CourseService 热点路径：按 id 查询、按 code 查询（先按 id 查不到再按 code 查），以及部分更新
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CourseServiceBenchmark {
+
+    /**
+     * 每个线程各自轮询课程，避免线程之间在同一行上竞争
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            int index = next;
+            next = index + 1 == bound ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public Course getCourseById(CatalogContext catalog, Cursor cursor) {
+        return catalog.courseService.getCourseById(catalog.ids[cursor.next(catalog.courseCount)]);
+    }
+
+    @Benchmark
+    public Course getCourseByCodeFallback(CatalogContext catalog, Cursor cursor) {
+        return catalog.courseService.getCourseById(catalog.codes[cursor.next(catalog.courseCount)]);
+    }
+
+    @Benchmark
+    public Course updateEnrolled(CatalogContext catalog, Cursor cursor) {
+        int index = cursor.next(catalog.courseCount);
+        Map<String, Object> updates = Collections.singletonMap("enrolled", index % 100);
+        return catalog.courseService.updateCourseFromMap(catalog.ids[index], updates);
+    }
+
+    @Benchmark
+    public Course updateTitleAndCapacity(CatalogContext catalog, Cursor cursor) {
+        int index = cursor.next(catalog.courseCount);
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("title", "Benchmark course " + index);
+        updates.put("capacity", 100 + index % 2);
+        return catalog.courseService.updateCourseFromMap(catalog.ids[index], updates);
+    }
+}
@@ -0,0 +1,45 @@
+package com.zjsu.course.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以 dev profile（H2 内存库）启动服务的 Spring 上下文：不启动 Web 容器、不注册 Nacos，
+ * 并关闭 SQL 与 DEBUG 日志，避免日志输出影响测量结果。
+ * 属性以命令行参数传入，优先级高于 application-dev.yml
+ */
+final class SpringBenchmarkSupport {
+
+    private static final String[] DEFAULT_PROPERTIES = {
+            "spring.cloud.nacos.discovery.enabled=false",
+            "spring.cloud.service-registry.auto-registration.enabled=false",
+            "spring.jpa.show-sql=false",
+            "spring.h2.console.enabled=false",
+            "spring.main.banner-mode=off",
+            "logging.level.root=WARN",
+            "logging.level.com.zjsu=WARN",
+            "logging.level.org.hibernate.SQL=WARN",
+            "logging.level.org.springframework.web=WARN"
+    };
+
+    private SpringBenchmarkSupport() {
+    }
+
+    static ConfigurableApplicationContext start(Class<?> application, String... properties) {
+        List<String> args = new ArrayList<>();
+        for (String property : DEFAULT_PROPERTIES) {
+            args.add("--" + property);
+        }
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(application)
+                .profiles("dev")
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,74 @@
+package com.zjsu.course.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjsu.course.CourseApplication;
+import com.zjsu.course.repository.EnrollmentJpaRepository;
+import com.zjsu.course.service.EnrollmentService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * enrollment-service 上下文（dev profile + H2 内存库），下游服务通过 simple discovery 指向本地替身
+ */
+@State(Scope.Benchmark)
+public class EnrollmentContext {
+
+    /** 选课集中在少数热门课程上 */
+    @Param({"8"})
+    public int hotCourses;
+
+    ConfigurableApplicationContext context;
+    EnrollmentService enrollmentService;
+    EnrollmentJpaRepository enrollmentRepository;
+    ObjectMapper objectMapper;
+    String[] courseIds;
+
+    private StubDownstreams downstreams;
+    private final AtomicLong studentSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        downstreams = StubDownstreams.start();
+        context = SpringBenchmarkSupport.start(CourseApplication.class,
+                "spring.cloud.discovery.client.simple.instances.user-service[0].uri=" + downstreams.url(),
+                "spring.cloud.discovery.client.simple.instances.catalog-service[0].uri=" + downstreams.url(),
+                "services.user-service.url=user-service",
+                "services.catalog-service.url=catalog-service");
+        enrollmentService = context.getBean(EnrollmentService.class);
+        enrollmentRepository = context.getBean(EnrollmentJpaRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        courseIds = new String[hotCourses];
+        for (int i = 0; i < hotCourses; i++) {
+            courseIds[i] = "C-" + i;
+        }
+    }
+
+    /**
+     * 每轮迭代后清空选课表，避免表越来越大影响后续迭代
+     */
+    @TearDown(Level.Iteration)
+    public void clear() {
+        enrollmentRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+        downstreams.close();
+    }
+
+    /**
+     * 每次选课使用新的学生 ID：学生缓存总是未命中，保证每次都走一次完整的校验与占座
+     */
+    String nextStudentId() {
+        return "S-" + studentSequence.incrementAndGet();
+    }
+}
@@ -0,0 +1,97 @@
+package com.zjsu.course.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.model.EnrollmentDetail;
+import com.zjsu.course.model.EnrollmentRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 选课列表与选课详情列表 ApiResponse 的 JSON 序列化（使用服务上下文中由 Spring Boot 配置的 ObjectMapper）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EnrollmentSerializationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Payload {
+
+        @Param({"100", "1000", "10000"})
+        public int size;
+
+        ObjectMapper objectMapper;
+        ApiResponse<List<EnrollmentRecord>> enrollments;
+        ApiResponse<List<EnrollmentDetail>> details;
+
+        @Setup(Level.Trial)
+        public void setUp(EnrollmentContext enrollment) {
+            objectMapper = enrollment.objectMapper;
+            List<EnrollmentRecord> records = new ArrayList<>(size);
+            List<EnrollmentDetail> detailList = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                EnrollmentRecord record = new EnrollmentRecord();
+                record.setId(UUID.randomUUID().toString());
+                record.setCourseId("C-" + (i % 50));
+                record.setStudentId("S-" + i);
+                record.setEnrolledAt(LocalDateTime.now());
+                records.add(record);
+                detailList.add(new EnrollmentDetail(record, course(i % 50), student(i)));
+            }
+            enrollments = ApiResponse.success(records);
+            details = ApiResponse.success(detailList);
+        }
+
+        private static Map<String, Object> course(int i) {
+            Map<String, Object> course = new LinkedHashMap<>();
+            course.put("id", "C-" + i);
+            course.put("code", "BENCH" + i);
+            course.put("title", "Benchmark course " + i);
+            course.put("capacity", 100);
+            course.put("enrolled", 42);
+            return course;
+        }
+
+        private static Map<String, Object> student(int i) {
+            Map<String, Object> student = new LinkedHashMap<>();
+            student.put("id", "S-" + i);
+            student.put("studentId", "2024" + i);
+            student.put("name", "Student " + i);
+            student.put("major", "Computer Science");
+            student.put("grade", 2024);
+            return student;
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeEnrollmentList(Payload payload) throws JsonProcessingException {
+        return payload.objectMapper.writeValueAsBytes(payload.enrollments);
+    }
+
+    @Benchmark
+    public byte[] serializeEnrollmentDetails(Payload payload) throws JsonProcessingException {
+        return payload.objectMapper.writeValueAsBytes(payload.details);
+    }
+}
@@ -0,0 +1,44 @@
+package com.zjsu.course.benchmark;
+
+import com.zjsu.course.model.EnrollmentRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EnrollmentService.createEnrollment：并发查询学生与占座（HTTP 打到本地替身）+ 本地事务插入选课记录
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EnrollmentServiceBenchmark {
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            int index = next;
+            next = index + 1 == bound ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    @Benchmark
+    public EnrollmentRecord createEnrollment(EnrollmentContext enrollment, Cursor cursor) {
+        EnrollmentRecord record = new EnrollmentRecord();
+        record.setCourseId(enrollment.courseIds[cursor.next(enrollment.hotCourses)]);
+        record.setStudentId(enrollment.nextStudentId());
+        return enrollment.enrollmentService.createEnrollment(record);
+    }
+}
@@ -0,0 +1,107 @@
+package com.zjsu.course.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * user-service / catalog-service 的本地替身：学生总是存在，占座总是成功，课程均未排课（课表冲突检测总是通过），
+ * 响应为固定的 ApiResponse JSON，使基准测试只测量 enrollment-service 自身（客户端、缓存、事务）的开销
+ */
+final class StubDownstreams implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StubDownstreams(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    static StubDownstreams start() throws IOException {
+        // 关闭 Nagle，否则响应头与响应体分两次写出时会被客户端的延迟 ACK 拖慢约 40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        StubDownstreams stub = new StubDownstreams(server, executor);
+        server.createContext("/api/students/", stub::student);
+        server.createContext("/api/courses/", stub::course);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void student(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String studentId = path.substring(path.lastIndexOf('/') + 1);
+        Map<String, Object> student = new LinkedHashMap<>();
+        student.put("id", studentId);
+        student.put("studentId", studentId);
+        student.put("name", "Student " + studentId);
+        respond(exchange, student);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void course(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/seat-deltas")) {
+            // outbox 投递：所有幂等键都视为已应用
+            Map<String, String> applied = new LinkedHashMap<>();
+            for (Map<String, Object> delta : (List<Map<String, Object>>) objectMapper.readValue(exchange.getRequestBody(), List.class)) {
+                applied.put((String) delta.get("key"), "APPLIED");
+            }
+            respond(exchange, applied);
+        } else if (path.endsWith("/reserve")) {
+            respond(exchange, Collections.singletonMap("reserved", queryInt(exchange, "count", 1)));
+        } else {
+            respond(exchange, Collections.emptyMap());
+        }
+    }
+
+    private void respond(HttpExchange exchange, Object data) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", 200);
+        body.put("message", "Success");
+        body.put("data", data);
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static int queryInt(HttpExchange exchange, String name, int defaultValue) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return Integer.parseInt(pair.substring(name.length() + 1));
+            }
+        }
+        return defaultValue;
+    }
+}
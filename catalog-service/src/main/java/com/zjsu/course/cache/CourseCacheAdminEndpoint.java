@@ -0,0 +1,24 @@
+package com.zjsu.course.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * 清空本实例的课程二级缓存：只经 JMX 暴露（spring.jmx.enabled=true），不在没有鉴权的 actuator HTTP 端口上开放
+ */
+@Component
+@JmxEndpoint(id = "coursecacheadmin")
+public class CourseCacheAdminEndpoint {
+
+    private final CourseCacheInvalidator invalidator;
+
+    public CourseCacheAdminEndpoint(CourseCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    @DeleteOperation
+    public void invalidateAll() {
+        invalidator.evictAll();
+    }
+}
@@ -0,0 +1,47 @@
+package com.zjsu.course.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/coursecache：查看二级缓存命中统计；POST {"ids": "id1,id2", "structural": false, "token": "..."} 失效指定课程
+ * （catalog-service 实例之间的失效通知，令牌不符时返回 403）。清空全部课程缓存见 CourseCacheAdminEndpoint，只经 JMX 暴露
+ */
+@Component
+@Endpoint(id = "coursecache")
+public class CourseCacheEndpoint {
+
+    private final CourseCacheInvalidator invalidator;
+
+    public CourseCacheEndpoint(CourseCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return invalidator.stats();
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Void> invalidate(@Nullable String ids, @Nullable Boolean structural,
+                                                @Nullable String token) {
+        if (!invalidator.authorized(token)) {
+            return new WebEndpointResponse<>(HttpStatus.FORBIDDEN.value());
+        }
+        // actuator 的请求体按 Map<String, String> 绑定，课程 id 以逗号分隔传入
+        List<String> courseIds = ids == null || ids.isEmpty()
+                ? Collections.emptyList() : Arrays.asList(ids.split(","));
+        invalidator.evictLocal(courseIds, Boolean.TRUE.equals(structural));
+        return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+    }
+}
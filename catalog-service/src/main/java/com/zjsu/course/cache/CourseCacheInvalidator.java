@@ -0,0 +1,294 @@
+package com.zjsu.course.cache;
+
+import com.zjsu.course.model.Course;
+import com.zjsu.course.search.CourseSearchIndex;
+import com.zjsu.course.service.OpenCourseView;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.RestTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 课程二级缓存失效：本实例内的实体保存/删除由 Hibernate 维护缓存，座位数的原生 UPDATE 在事务提交后按课程 id 失效；
+ * 所有变更的课程 id 合并后定期通知同一服务的其他实例（经服务发现查找，调用其 /actuator/coursecache）。
+ * 实体保存/删除（课程名称、教师、时间等，不含座位数）的课程 id 另外通知订阅的服务（subscribers，调用其 /actuator/coursechanges），
+ * enrollment-service 据此刷新选课投影中的课程摘要。
+ * 通知是尽力而为的，失败不重试，由缓存 ttl 与订阅方的定期对账兜底。
+ * 实例间通知携带共享令牌（catalog.cache.invalidation.token），接收方校验后才失效本地缓存；未配置令牌时拒绝所有通知。
+ */
+@Component
+public class CourseCacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseCacheInvalidator.class);
+
+    /** 单条通知携带的最大课程 id 数 */
+    private static final int MAX_IDS_PER_MESSAGE = 1000;
+
+    private final SessionFactory sessionFactory;
+    private final CourseKeyIndex courseKeyIndex;
+    private final CourseSearchIndex courseSearchIndex;
+    private final OpenCourseView openCourseView;
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final RestTemplate restTemplate;
+    private final String serviceName;
+    private final boolean broadcastEnabled;
+    private final List<String> subscribers;
+    private final String token;
+
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingSubscriberIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingStructural = new AtomicBoolean();
+
+    public CourseCacheInvalidator(EntityManagerFactory entityManagerFactory,
+                                  CourseKeyIndex courseKeyIndex,
+                                  CourseSearchIndex courseSearchIndex,
+                                  OpenCourseView openCourseView,
+                                  DiscoveryClient discoveryClient,
+                                  ObjectProvider<Registration> registration,
+                                  RestTemplateBuilder restTemplateBuilder,
+                                  @Value("${spring.application.name}") String serviceName,
+                                  @Value("${catalog.cache.invalidation.enabled:true}") boolean broadcastEnabled,
+                                  @Value("${catalog.cache.invalidation.subscribers:enrollment-service}") List<String> subscribers,
+                                  @Value("${catalog.cache.invalidation.timeout:500ms}") Duration timeout,
+                                  @Value("${catalog.cache.invalidation.token:}") String token) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.courseKeyIndex = courseKeyIndex;
+        this.courseSearchIndex = courseSearchIndex;
+        this.openCourseView = openCourseView;
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.restTemplate = restTemplateBuilder.setConnectTimeout(timeout).setReadTimeout(timeout).build();
+        this.serviceName = serviceName;
+        this.broadcastEnabled = broadcastEnabled;
+        this.subscribers = subscribers;
+        this.token = token;
+        if (broadcastEnabled && token.isEmpty()) {
+            log.warn("catalog.cache.invalidation.token is not set; cache invalidations from other instances will be rejected");
+        }
+    }
+
+    /**
+     * 校验实例间失效通知携带的令牌（常量时间比较）；本实例未配置令牌时一律拒绝
+     */
+    public boolean authorized(String presented) {
+        if (token.isEmpty() || presented == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 座位数经原生 UPDATE 修改（Hibernate 不感知）：提交后失效本地缓存条目并通知其他实例
+     */
+    public void seatsChanged(String courseId) {
+        afterCommit(() -> {
+            evictLocal(Collections.singleton(courseId), false);
+            enqueue(courseId, false);
+        });
+    }
+
+    /**
+     * 课程经实体保存/删除修改（本地缓存已由 Hibernate 更新）：只通知其他实例。
+     * structural 表示新增、删除或修改了课程代码，其他实例还需清除自然键映射与查询缓存，并刷新 CourseKeyIndex
+     */
+    public void courseChanged(String courseId, boolean structural) {
+        afterCommit(() -> {
+            enqueue(courseId, structural);
+            if (broadcastEnabled && courseId != null && !subscribers.isEmpty()) {
+                pendingSubscriberIds.add(courseId);
+            }
+        });
+    }
+
+    /**
+     * 失效本地缓存（其他实例的通知也走这里），并标记搜索索引与余量视图中的这些课程待重新读取
+     */
+    public void evictLocal(Collection<String> courseIds, boolean structural) {
+        Cache cache = sessionFactory.getCache();
+        for (String courseId : courseIds) {
+            cache.evictEntityData(Course.class, courseId);
+        }
+        if (structural) {
+            cache.evictNaturalIdData(Course.class);
+            cache.evictQueryRegions();
+            courseKeyIndex.refresh(courseIds);
+        }
+        courseSearchIndex.markStale(courseIds);
+        openCourseView.markChanged(courseIds);
+    }
+
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Course.class);
+        cache.evictNaturalIdData(Course.class);
+        cache.evictQueryRegions();
+        courseKeyIndex.reload();
+        courseSearchIndex.rebuild();
+        openCourseView.reload();
+    }
+
+    /**
+     * 二级缓存命中统计（需开启 hibernate.generate_statistics）
+     */
+    public Map<String, Object> stats() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            Map<String, Object> counts = new HashMap<>();
+            counts.put("hits", regionStatistics.getHitCount());
+            counts.put("misses", regionStatistics.getMissCount());
+            counts.put("puts", regionStatistics.getPutCount());
+            result.put(region, counts);
+        }
+        Map<String, Object> queries = new HashMap<>();
+        queries.put("hits", statistics.getQueryCacheHitCount());
+        queries.put("misses", statistics.getQueryCacheMissCount());
+        queries.put("puts", statistics.getQueryCachePutCount());
+        result.put("queries", queries);
+        result.put("pendingInvalidations", pendingIds.size());
+        result.put("pendingSubscriberNotifications", pendingSubscriberIds.size());
+        result.put("keyIndexSize", courseKeyIndex.size());
+        result.put("searchIndexSize", courseSearchIndex.size());
+        return result;
+    }
+
+    /**
+     * 批量通知其他实例，间隔即跨实例失效的额外延迟
+     */
+    @Scheduled(fixedDelayString = "${catalog.cache.invalidation.interval-ms:200}")
+    public void broadcast() {
+        notifySubscribers();
+        if (pendingIds.isEmpty() && !pendingStructural.get()) {
+            return;
+        }
+        List<String> ids = drain(pendingIds);
+        boolean structural = pendingStructural.getAndSet(false);
+        List<ServiceInstance> peers = instances(serviceName);
+        if (peers.isEmpty()) {
+            return;
+        }
+        Map<String, String> message = new HashMap<>();
+        message.put("ids", String.join(",", ids));
+        message.put("structural", String.valueOf(structural));
+        message.put("token", token);
+        send(peers, "/actuator/coursecache", message);
+    }
+
+    /**
+     * 把实体变更的课程 id 通知订阅的服务（每个实例都通知，订阅方各自维护本地投影与缓存）
+     */
+    private void notifySubscribers() {
+        if (pendingSubscriberIds.isEmpty()) {
+            return;
+        }
+        Map<String, String> message = new HashMap<>();
+        message.put("ids", String.join(",", drain(pendingSubscriberIds)));
+        for (String subscriber : subscribers) {
+            send(instances(subscriber), "/actuator/coursechanges", message);
+        }
+    }
+
+    private void send(List<ServiceInstance> targets, String path, Map<String, String> message) {
+        for (ServiceInstance target : targets) {
+            try {
+                restTemplate.postForObject(target.getUri() + path, message, Void.class);
+            } catch (Exception e) {
+                log.debug("Failed to send course change notification to {}{}: {}", target.getUri(), path, e.getMessage());
+            }
+        }
+    }
+
+    private static List<String> drain(Set<String> pending) {
+        List<String> ids = new ArrayList<>();
+        Iterator<String> it = pending.iterator();
+        while (it.hasNext() && ids.size() < MAX_IDS_PER_MESSAGE) {
+            ids.add(it.next());
+            it.remove();
+        }
+        return ids;
+    }
+
+    /**
+     * 服务的实例列表（不含本实例）
+     */
+    private List<ServiceInstance> instances(String name) {
+        List<ServiceInstance> instances;
+        try {
+            instances = discoveryClient.getInstances(name);
+        } catch (Exception e) {
+            log.debug("Failed to look up {} instances: {}", name, e.getMessage());
+            return Collections.emptyList();
+        }
+        if (instances == null) {
+            return Collections.emptyList();
+        }
+        Registration self = registration.getIfAvailable();
+        List<ServiceInstance> peers = new ArrayList<>();
+        for (ServiceInstance instance : instances) {
+            if (self == null || !(self.getHost().equals(instance.getHost()) && self.getPort() == instance.getPort())) {
+                peers.add(instance);
+            }
+        }
+        return peers;
+    }
+
+    private void enqueue(String courseId, boolean structural) {
+        if (!broadcastEnabled) {
+            return;
+        }
+        if (courseId != null) {
+            pendingIds.add(courseId);
+        }
+        if (structural) {
+            pendingStructural.set(true);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,144 @@
+package com.zjsu.course.cache;
+
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.repository.CourseJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 课程 id / code 内存索引：启动时从 courses 表加载全部 [id, code]，本实例的增删改由 CourseService 同步，
+ * 其他实例的变更随 /actuator/coursecache 的 structural 通知按 id 从数据库刷新；通知是尽力而为的，
+ * 另按 catalog.cache.key-index.reload-interval-ms 定期全量重新加载兜底。
+ * 索引只用于把 key 解析为课程 id，课程内容仍按主键读取（走二级缓存）；未命中时调用方回退到数据库查询，
+ * 因此索引缺项只会多一次查询，不会导致查不到课程。索引命中的 id 可能已过期（代码已改给另一门课程），
+ * 调用方读取课程后（或在座位的条件更新中）校验 key，不匹配时移除该项并回退到数据库查询。
+ */
+@Component
+public class CourseKeyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseKeyIndex.class);
+
+    private final ConcurrentHashMap<String, String> idToCode = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> codeToId = new ConcurrentHashMap<>();
+
+    private final CourseJpaRepository courseRepository;
+
+    public CourseKeyIndex(CourseJpaRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        log.info("Course key index loaded {} courses", idToCode.size());
+    }
+
+    /**
+     * 把 id 或课程代码解析为课程 id；索引中没有时返回 null。
+     * key 既是某门课程的 id 又是另一门课程的代码时无法确定指哪门课程，直接拒绝
+     */
+    public String resolve(String key) {
+        String byCode = codeToId.get(key);
+        boolean isId = idToCode.containsKey(key);
+        if (isId && byCode != null && !byCode.equals(key)) {
+            throw ambiguous(key);
+        }
+        return isId ? key : byCode;
+    }
+
+    /**
+     * 只按课程代码查找（/api/courses/code/{code}），不做歧义判断
+     */
+    public String idForCode(String code) {
+        return codeToId.get(code);
+    }
+
+    /**
+     * 解析数据库按 id 或 code 查到的课程（id -> code，见 CourseJpaRepository.findKeysByIdOrCode），并把结果补进索引；
+     * 没有匹配时返回 null
+     */
+    public String resolve(String key, Map<String, String> matches) {
+        matches.forEach(this::put);
+        if (matches.size() > 1) {
+            throw ambiguous(key);
+        }
+        return matches.isEmpty() ? null : matches.keySet().iterator().next();
+    }
+
+    public synchronized void put(String id, String code) {
+        // code 列非空，这里仅防御 null（ConcurrentHashMap 不接受 null 值）
+        String value = code == null ? "" : code;
+        String previous = idToCode.put(id, value);
+        if (previous != null && !previous.equals(value)) {
+            codeToId.remove(previous, id);
+        }
+        if (code != null) {
+            codeToId.put(code, id);
+        }
+    }
+
+    public synchronized void remove(String id) {
+        String code = idToCode.remove(id);
+        if (code != null) {
+            codeToId.remove(code, id);
+        }
+    }
+
+    /**
+     * 其他实例新增、删除或修改了代码的课程：按 id 重新读取（已删除的课程从索引中移除）
+     */
+    public void refresh(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(ids);
+        for (Object[] row : courseRepository.findKeysByIdIn(ids)) {
+            missing.remove((String) row[0]);
+            put((String) row[0], (String) row[1]);
+        }
+        missing.forEach(this::remove);
+    }
+
+    @Scheduled(initialDelayString = "${catalog.cache.key-index.reload-interval-ms:60000}",
+            fixedDelayString = "${catalog.cache.key-index.reload-interval-ms:60000}")
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * 按 courses 表全量校正：移除已删除的课程与过期的代码映射，再覆盖其余条目（不先清空，重新加载期间查找仍可命中）
+     */
+    public synchronized void reload() {
+        Map<String, String> keys = new HashMap<>();
+        for (Object[] row : courseRepository.findAllKeys()) {
+            keys.put((String) row[0], (String) row[1]);
+        }
+        for (String id : new ArrayList<>(idToCode.keySet())) {
+            if (!keys.containsKey(id)) {
+                remove(id);
+            }
+        }
+        keys.forEach(this::put);
+        codeToId.entrySet().removeIf(entry -> !entry.getKey().equals(idToCode.get(entry.getValue())));
+    }
+
+    public int size() {
+        return idToCode.size();
+    }
+
+    private static BusinessException ambiguous(String key) {
+        return new BusinessException("Ambiguous course key, matches both a course id and another course's code: " + key);
+    }
+}
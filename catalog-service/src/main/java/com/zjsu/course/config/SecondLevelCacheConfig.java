@@ -0,0 +1,69 @@
+package com.zjsu.course.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.zjsu.course.model.Course;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate 二级缓存与查询缓存：JCache 接口，底层为进程内 Caffeine，按条数限制大小并按写入时间过期。
+ * 过期时间即跨实例的一致性窗口：其他实例的失效通知丢失时，最多在 ttl 内读到旧的课程信息
+ * （占座判定始终由数据库条件 UPDATE 完成，不读缓存）。
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /** 课程实体与自然键映射区域（Hibernate 默认以实体类名命名） */
+    static final String COURSE_REGION = Course.class.getName();
+    static final String COURSE_NATURAL_ID_REGION = COURSE_REGION + "##NaturalId";
+    static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Value("${catalog.cache.course.max-size:10000}")
+    private long courseMaxSize;
+
+    @Value("${catalog.cache.course.ttl:10s}")
+    private Duration courseTtl;
+
+    @Value("${catalog.cache.query.max-size:1000}")
+    private long queryMaxSize;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("catalog-service-l2"), getClass().getClassLoader());
+        cacheManager.createCache(COURSE_REGION, bounded(courseMaxSize, courseTtl));
+        cacheManager.createCache(COURSE_NATURAL_ID_REGION, bounded(courseMaxSize, courseTtl));
+        cacheManager.createCache(QUERY_RESULTS_REGION, bounded(queryMaxSize, courseTtl));
+        // 表更新时间戳用于判断查询缓存是否失效，每张表一条，不能过期
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStoreByValue(false);
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        // Hibernate 缓存的是拆解后的状态数组，按引用存放即可，避免每次读写序列化复制
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
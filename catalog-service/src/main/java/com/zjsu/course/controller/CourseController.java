@@ -1,15 +1,25 @@
 package com.zjsu.course.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.common.NdjsonWriter;
 import com.zjsu.course.exception.BusinessException;
 import com.zjsu.course.model.Course;
+import com.zjsu.course.model.CourseSlot;
+import com.zjsu.course.model.OpenCoursePage;
+import com.zjsu.course.model.SeatDelta;
 import com.zjsu.course.service.CourseService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 课程管理API控制器
@@ -22,13 +32,30 @@ public class CourseController {
     @Autowired
     private CourseService courseService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * 查询所有课程
+     * 查询所有课程；传入 limit 或 after 时按游标分页返回 {items, nextCursor, limit}
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Course>>> getAllCourses() {
-        List<Course> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(ApiResponse.success(courses));
+    public ResponseEntity<ApiResponse<?>> getAllCourses(@RequestParam(required = false) Integer limit,
+                                                        @RequestParam(required = false) String after) {
+        if (limit == null && after == null) {
+            List<Course> courses = courseService.getAllCourses();
+            return ResponseEntity.ok(ApiResponse.success(courses));
+        }
+        CursorPage<Course> page = courseService.getCoursePage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 以 NDJSON 流式返回所有课程（Accept: application/x-ndjson）
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCourses() {
+        StreamingResponseBody body = out -> courseService.streamCourses(new NdjsonWriter<>(objectMapper, out));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
@@ -40,6 +67,70 @@ public class CourseController {
         return ResponseEntity.ok(ApiResponse.success(course));
     }
 
+    /**
+     * 批量查询课程（请求体为课程 id 或代码列表，返回以请求 key 为键的 map，不存在的 key 省略）
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<Map<String, Course>>> lookupCourses(@RequestBody List<String> keys) {
+        Map<String, Course> courses = courseService.lookupCourses(keys);
+        return ResponseEntity.ok(ApiResponse.success(courses));
+    }
+
+    /**
+     * 导出全部已排课课程的上课时段：start / end 为一周内分钟数（周一 00:00 为 0），区间 [start, end)
+     */
+    @GetMapping("/slots")
+    public ResponseEntity<ApiResponse<List<CourseSlot>>> getCourseSlots() {
+        return ResponseEntity.ok(ApiResponse.success(courseService.getCourseSlots()));
+    }
+
+    /**
+     * 批量查询上课时段（请求体为课程 id 或代码列表，返回以请求 key 为键的 map，不存在或未排课的 key 省略）
+     */
+    @PostMapping("/slots")
+    public ResponseEntity<ApiResponse<Map<String, CourseSlot>>> lookupCourseSlots(@RequestBody List<String> keys) {
+        return ResponseEntity.ok(ApiResponse.success(courseService.lookupCourseSlots(keys)));
+    }
+
+    /**
+     * 搜索课程：q 为标题关键词（中文按二字切分）或课程代码前缀；instructor（教师 id 或姓名）、day（MONDAY…）、
+     * period（MORNING / AFTERNOON / EVENING）可重复或逗号分隔；from / to（HH:mm）限定上课时间范围；
+     * available=true 只返回有余量的课程。按课程代码排序，返回 {total, offset, limit, items, facets}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> searchCourses(@RequestParam(required = false) String q,
+                                                                          @RequestParam(required = false) List<String> instructor,
+                                                                          @RequestParam(required = false) List<String> day,
+                                                                          @RequestParam(required = false) List<String> period,
+                                                                          @RequestParam(required = false) String from,
+                                                                          @RequestParam(required = false) String to,
+                                                                          @RequestParam(required = false) Boolean available,
+                                                                          @RequestParam(required = false) Integer offset,
+                                                                          @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(
+                courseService.searchCourses(q, instructor, day, period, from, to, available, offset, limit)));
+    }
+
+    /**
+     * 有余量的课程（内存视图，不扫描课程表）：按 id 游标分页，返回 {items, nextCursor, limit, epoch, version, eventId}，
+     * items 为 {courseId, code, capacity, enrolled, available}
+     */
+    @GetMapping("/open")
+    public ResponseEntity<ApiResponse<OpenCoursePage>> getOpenCourses(@RequestParam(required = false) String after,
+                                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ApiResponse.success(courseService.getOpenCourses(after, limit)));
+    }
+
+    /**
+     * 座位变更推送（Server-Sent Events）：每条 seats 事件为 {version, updates}，事件 id 为 epoch:version；
+     * 传入 since 或 Last-Event-ID（分页返回的 eventId）时先补发其后的事件，epoch 不一致或补发范围之外则发送 reset 事件
+     */
+    @GetMapping(path = "/open/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSeatChanges(@RequestParam(required = false) String since,
+                                        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return courseService.subscribeSeatChanges(since != null ? since : lastEventId);
+    }
+
     /**
      * 创建课程
      */
@@ -60,6 +151,45 @@ public class CourseController {
         return ResponseEntity.ok(ApiResponse.success(updatedCourse));
     }
 
+    /**
+     * 查询座位余量
+     */
+    @GetMapping("/{id}/seats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSeats(@PathVariable String id) {
+        Map<String, Object> result = courseService.getSeats(id);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /**
+     * 原子占座（选课时调用，已满返回 400）；count 为占座数量，partial=true 时余量不足则尽量多占
+     */
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> reserveSeats(@PathVariable String id,
+                                                                        @RequestParam(defaultValue = "1") int count,
+                                                                        @RequestParam(defaultValue = "false") boolean partial) {
+        Map<String, Object> result = courseService.reserveSeats(id, count, partial);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /**
+     * 原子释放座位（退课时调用）
+     */
+    @PostMapping("/{id}/release")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> releaseSeats(@PathVariable String id,
+                                                                        @RequestParam(defaultValue = "1") int count) {
+        Map<String, Object> result = courseService.releaseSeats(id, count);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
+    /**
+     * 批量应用人数增量（enrollment-service outbox 投递），按幂等键返回 APPLIED / DUPLICATE / COURSE_NOT_FOUND
+     */
+    @PostMapping("/seat-deltas")
+    public ResponseEntity<ApiResponse<Map<String, String>>> applySeatDeltas(@RequestBody List<SeatDelta> deltas) {
+        Map<String, String> result = courseService.applySeatDeltas(deltas);
+        return ResponseEntity.ok(ApiResponse.success(result));
+    }
+
     /**
      * 按课程代码查询
      */
@@ -0,0 +1,10 @@
+package com.zjsu.course.exception;
+
+/**
+ * 课程已满（占座时余量不足），返回 409，与其他参数类错误（400）区分
+ */
+public class CourseFullException extends BusinessException {
+    public CourseFullException() {
+        super("Course is full");
+    }
+}
@@ -1,6 +1,7 @@
 package com.zjsu.course.exception;
 
 import com.zjsu.course.common.ApiResponse;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -29,6 +30,21 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.badRequest(ex.getMessage()));
     }
 
+    /**
+     * 课程已满返回 409：调用方（enrollment-service）据此决定是否加入候补，其他 400 原样透传
+     */
+    @ExceptionHandler(CourseFullException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCourseFull(CourseFullException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(409, ex.getMessage()));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error(503, ex.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -41,6 +57,15 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.badRequest("Validation failed: " + errors.toString()));
     }
 
+    /**
+     * 唯一键冲突（如同一幂等键的人数增量被并发投递）返回 409，调用方稍后重试即可
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<Object>> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(409, "Conflict: " + ex.getMostSpecificCause().getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Object>> handleGenericException(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,10 @@
+package com.zjsu.course.exception;
+
+/**
+ * 服务暂不可用（如内存占座计数器尚未完成启动对账），调用方稍后重试
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
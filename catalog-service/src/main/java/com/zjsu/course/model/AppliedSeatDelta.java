@@ -0,0 +1,74 @@
+package com.zjsu.course.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 已应用的人数增量幂等键，用于丢弃重复投递（定期清理过期记录）
+ */
+@Entity
+@Table(name = "applied_seat_deltas")
+public class AppliedSeatDelta {
+
+    @Id
+    @Column(name = "delivery_key", length = 64)
+    private String key;
+
+    @Column(name = "course_id")
+    private String courseId;
+
+    private Integer delta;
+
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+
+    public AppliedSeatDelta() {
+    }
+
+    public AppliedSeatDelta(String key, String courseId, int delta) {
+        this.key = key;
+        this.courseId = courseId;
+        this.delta = delta;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.appliedAt = LocalDateTime.now();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+
+    public void setAppliedAt(LocalDateTime appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+}
@@ -1,7 +1,14 @@
 package com.zjsu.course.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
+import javax.persistence.AttributeOverride;
+import javax.persistence.AttributeOverrides;
+import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -10,22 +17,38 @@ import javax.persistence.Table;
 
 /**
  * Course entity with embedded instructor and schedule information.
+ * 课程实体与 code -> id 的自然键映射都放在二级缓存中（见 SecondLevelCacheConfig）
  */
 @Entity
 @Table(name = "courses")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Course {
     @Id
     @GeneratedValue(generator = "UUID")
     @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
     private String id;
 
+    // 课程代码可修改，作为可变自然键：按 code 查询走自然键缓存
+    @NaturalId(mutable = true)
     private String code;
     private String title;
 
+    // 嵌入对象的列名与 schema.sql 保持一致（Instructor.id 不能与主键 id 同列）
     @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "id", column = @Column(name = "instructor_id")),
+            @AttributeOverride(name = "name", column = @Column(name = "instructor_name")),
+            @AttributeOverride(name = "email", column = @Column(name = "instructor_email"))
+    })
     private Instructor instructor;
 
     @Embedded
+    @AttributeOverrides({
+            @AttributeOverride(name = "dayOfWeek", column = @Column(name = "schedule_day_of_week")),
+            @AttributeOverride(name = "startTime", column = @Column(name = "schedule_start_time")),
+            @AttributeOverride(name = "endTime", column = @Column(name = "schedule_end_time"))
+    })
     private ScheduleSlot schedule;
 
     private Integer capacity;
@@ -0,0 +1,103 @@
+package com.zjsu.course.model;
+
+import java.util.Objects;
+
+/**
+ * 课程座位状态：余量视图的分页条目与 SSE 推送的变更条目（deleted 为 true 表示课程已删除）
+ */
+public class CourseSeats {
+
+    private String courseId;
+    private String code;
+    private int capacity;
+    private int enrolled;
+    private int available;
+    private boolean deleted;
+
+    public CourseSeats() {
+    }
+
+    public CourseSeats(String courseId, String code, Integer capacity, Integer enrolled) {
+        this.courseId = courseId;
+        this.code = code;
+        this.capacity = capacity == null ? 0 : capacity;
+        this.enrolled = enrolled == null ? 0 : enrolled;
+        this.available = Math.max(0, this.capacity - this.enrolled);
+    }
+
+    public static CourseSeats deleted(String courseId) {
+        CourseSeats seats = new CourseSeats(courseId, null, 0, 0);
+        seats.deleted = true;
+        return seats;
+    }
+
+    public boolean isOpen() {
+        return !deleted && available > 0;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getEnrolled() {
+        return enrolled;
+    }
+
+    public void setEnrolled(int enrolled) {
+        this.enrolled = enrolled;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(int available) {
+        this.available = available;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseSeats)) {
+            return false;
+        }
+        CourseSeats that = (CourseSeats) o;
+        return capacity == that.capacity && enrolled == that.enrolled && deleted == that.deleted
+                && Objects.equals(courseId, that.courseId) && Objects.equals(code, that.code);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(courseId, code, capacity, enrolled, deleted);
+    }
+}
@@ -0,0 +1,102 @@
+package com.zjsu.course.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 课程上课时段的紧凑表示（供 enrollment-service 做课表冲突检测）：
+ * start / end 为一周内的分钟数（周一 00:00 为 0），区间为 [start, end)
+ */
+public class CourseSlot {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private String courseId;
+    private String code;
+    private int start;
+    private int end;
+
+    public CourseSlot() {
+    }
+
+    public CourseSlot(String courseId, String code, int start, int end) {
+        this.courseId = courseId;
+        this.code = code;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 由课程的 ScheduleSlot 字段换算；没有排课、时间无法解析或结束时间不晚于开始时间时返回 null
+     */
+    public static CourseSlot of(String courseId, String code, DayOfWeek dayOfWeek, String startTime, String endTime) {
+        if (dayOfWeek == null) {
+            return null;
+        }
+        int startMinute = minuteOfDay(startTime);
+        int endMinute = minuteOfDay(endTime);
+        if (startMinute < 0 || endMinute <= startMinute) {
+            return null;
+        }
+        int dayOffset = (dayOfWeek.getValue() - 1) * MINUTES_PER_DAY;
+        return new CourseSlot(courseId, code, dayOffset + startMinute, dayOffset + endMinute);
+    }
+
+    public static CourseSlot of(Course course) {
+        ScheduleSlot schedule = course.getSchedule();
+        if (schedule == null) {
+            return null;
+        }
+        return of(course.getId(), course.getCode(), schedule.getDayOfWeek(), schedule.getStartTime(), schedule.getEndTime());
+    }
+
+    // 接受 "8:00"、"08:00"、"08:00:00"，无法解析返回 -1
+    public static int minuteOfDay(String time) {
+        if (time == null || time.trim().isEmpty()) {
+            return -1;
+        }
+        String value = time.trim();
+        if (value.indexOf(':') == 1) {
+            value = "0" + value;
+        }
+        try {
+            LocalTime parsed = LocalTime.parse(value);
+            return parsed.getHour() * 60 + parsed.getMinute();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public void setStart(int start) {
+        this.start = start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public void setEnd(int end) {
+        this.end = end;
+    }
+}
@@ -0,0 +1,45 @@
+package com.zjsu.course.model;
+
+import com.zjsu.course.common.CursorPage;
+
+import java.util.List;
+
+/**
+ * 有余量课程的一页（按课程 id 升序）。version 为生成这一页时余量视图的版本，epoch 为生成它的实例；
+ * 订阅 /api/courses/open/stream 时以 eventId（epoch:version）作为 Last-Event-ID（或 since 参数）即可接着收到之后的变更
+ */
+public class OpenCoursePage extends CursorPage<CourseSeats> {
+
+    private String epoch;
+
+    private long version;
+
+    public OpenCoursePage() {
+    }
+
+    public OpenCoursePage(CursorPage<CourseSeats> page, String epoch, long version) {
+        super(page.getItems(), page.getNextCursor(), page.getLimit());
+        this.epoch = epoch;
+        this.version = version;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getEventId() {
+        return epoch + ":" + version;
+    }
+}
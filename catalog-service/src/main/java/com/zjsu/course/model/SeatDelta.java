@@ -0,0 +1,45 @@
+package com.zjsu.course.model;
+
+/**
+ * 选课人数增量：enrollment-service 的 outbox 按课程合并后批量投递，
+ * key 为幂等键，同一个 key 只会被应用一次
+ */
+public class SeatDelta {
+
+    private String key;
+    private String courseId;
+    private int delta;
+
+    public SeatDelta() {
+    }
+
+    public SeatDelta(String key, String courseId, int delta) {
+        this.key = key;
+        this.courseId = courseId;
+        this.delta = delta;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+}
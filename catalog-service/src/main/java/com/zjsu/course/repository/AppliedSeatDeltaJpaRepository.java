@@ -0,0 +1,18 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.AppliedSeatDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface AppliedSeatDeltaJpaRepository extends JpaRepository<AppliedSeatDelta, String> {
+
+    @Modifying
+    @Query("delete from AppliedSeatDelta d where d.appliedAt < :before")
+    int deleteAppliedBefore(@Param("before") LocalDateTime before);
+}
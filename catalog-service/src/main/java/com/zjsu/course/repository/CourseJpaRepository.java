@@ -1,22 +1,102 @@
 package com.zjsu.course.repository;
 
 import com.zjsu.course.model.Course;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface CourseJpaRepository extends JpaRepository<Course, String> {
-    Optional<Course> findByCode(String code);
+public interface CourseJpaRepository extends JpaRepository<Course, String>, CourseNaturalIdRepository {
+
+    /**
+     * 座位数 UPDATE 使用的查询空间。原生 UPDATE 声明在独立的查询空间上，Hibernate 不会因此清空整个 Course 缓存区域，
+     * 由 CourseCacheInvalidator 按课程 id 精确失效
+     */
+    String SEAT_QUERY_SPACE = "course_seats";
+
+    // findByCode 由 CourseNaturalIdRepository 按自然键实现
+
+    // 按 id 或 code 解析 [id, code]，不加载实体：id = :key or code = :key 在 H2 / MySQL 上会退化为全表扫描，
+    // 这里拆成主键与 code 唯一索引各一次探测；key 同时是一门课程的 id 与另一门课程的 code 时返回两行
+    @Query(value = "select id, code from courses where id = :key "
+            + "union all select id, code from courses where code = :key and id <> :key", nativeQuery = true)
+    List<Object[]> findKeysByIdOrCode(@Param("key") String key);
+
+    // CourseKeyIndex 加载与刷新使用，每行为 [id, code]
+    @Query("select c.id, c.code from Course c")
+    List<Object[]> findAllKeys();
+
+    @Query("select c.id, c.code from Course c where c.id in :ids")
+    List<Object[]> findKeysByIdIn(@Param("ids") Collection<String> ids);
+
+    // 已排课课程的上课时段导出，每行为 [id, code, dayOfWeek, startTime, endTime]，不加载实体
+    @Query("select c.id, c.code, c.schedule.dayOfWeek, c.schedule.startTime, c.schedule.endTime "
+            + "from Course c where c.schedule.dayOfWeek is not null")
+    List<Object[]> findScheduleSlots();
+
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    List<Course> findByCodeIn(Collection<String> codes);
+
+    // 游标分页：按主键升序，after 为上一页最后一条的 id
+    List<Course> findAllByOrderByIdAsc(Pageable pageable);
+
+    List<Course> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+
+    // 流式读取全部课程（需在只读事务中消费并关闭 Stream）
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Course c order by c.id")
+    Stream<Course> streamAll();
 
     // embedded instructor.id -> findByInstructorId
     List<Course> findByInstructorId(String instructorId);
 
-    @Query("select c from Course c where c.capacity > c.enrolled")
-    List<Course> findWithAvailableSeats();
+    // 余量视图（OpenCourseView）加载与刷新，每行为 [id, code, capacity, enrolled]
+    @Query("select c.id, c.code, c.capacity, c.enrolled from Course c")
+    List<Object[]> findAllSeats();
+
+    @Query("select c.id, c.code, c.capacity, c.enrolled from Course c where c.id in :ids")
+    List<Object[]> findSeatsByIdIn(@Param("ids") Collection<String> ids);
+
+    // 座位相关的条件更新都带上请求中的 key（id 或 code）：CourseKeyIndex 过期时 id 已不对应 key，更新不会命中
+
+    // 条件更新：判断余量与占座在同一条 UPDATE 中完成，返回受影响行数（0 表示余量不足、课程不存在或 key 不匹配）
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = SEAT_QUERY_SPACE))
+    @Query(value = "update courses set enrolled = coalesce(enrolled, 0) + :count "
+            + "where id = :id and (id = :key or code = :key) and coalesce(enrolled, 0) + :count <= capacity",
+            nativeQuery = true)
+    int reserveSeats(@Param("id") String id, @Param("key") String key, @Param("count") int count);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = SEAT_QUERY_SPACE))
+    @Query(value = "update courses set enrolled = case when enrolled > :count then (enrolled - :count) else 0 end "
+            + "where id = :id and (id = :key or code = :key) and enrolled > 0", nativeQuery = true)
+    int releaseSeats(@Param("id") String id, @Param("key") String key, @Param("count") int count);
+
+    // 按增量修正人数（不校验容量，结果不小于 0），用于应用 enrollment-service 投递的合并增量
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = SEAT_QUERY_SPACE))
+    @Query(value = "update courses set enrolled = case when coalesce(enrolled, 0) + :delta > 0 "
+            + "then (coalesce(enrolled, 0) + :delta) else 0 end where id = :id and (id = :key or code = :key)",
+            nativeQuery = true)
+    int adjustEnrolled(@Param("id") String id, @Param("key") String key, @Param("delta") int delta);
+
+    // 条件更新未命中时确认 id 是否仍对应 key（1 或 0）
+    @Query("select count(c) from Course c where c.id = :id and (c.id = :key or c.code = :key)")
+    long countByIdAndKey(@Param("id") String id, @Param("key") String key);
+
+    @Query("select c.capacity from Course c where c.id = :id")
+    Integer findCapacityById(@Param("id") String id);
 
-    List<Course> findByTitleContaining(String keyword);
+    @Query("select c.enrolled from Course c where c.id = :id")
+    Integer findEnrolledById(@Param("id") String id);
 }
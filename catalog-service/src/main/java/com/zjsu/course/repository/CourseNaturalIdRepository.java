@@ -0,0 +1,13 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.Course;
+
+import java.util.Optional;
+
+/**
+ * 按自然键（课程代码）查询，经由二级缓存中的自然键映射，命中时不访问数据库
+ */
+public interface CourseNaturalIdRepository {
+
+    Optional<Course> findByCode(String code);
+}
@@ -0,0 +1,24 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.Course;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+class CourseNaturalIdRepositoryImpl implements CourseNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Course> findByCode(String code) {
+        if (code == null) {
+            return Optional.empty();
+        }
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Course.class)
+                .loadOptional(code);
+    }
+}
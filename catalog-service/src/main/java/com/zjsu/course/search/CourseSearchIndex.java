@@ -0,0 +1,893 @@
+package com.zjsu.course.search;
+
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.model.Course;
+import com.zjsu.course.model.CourseSlot;
+import com.zjsu.course.model.Instructor;
+import com.zjsu.course.model.ScheduleSlot;
+import com.zjsu.course.repository.CourseJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 课程搜索内存索引：每门课程对应一个稠密文档号，每个词项对应一个 BitSet 倒排表，多条件查询即位图求交。
+ * <ul>
+ *     <li>标题：拉丁字母 / 数字按词切分（前缀匹配），中日韩文字按单字与相邻二字（bigram）切分，
+ *     查询词同样切成 bigram 后全部命中才算匹配；关键词也可以是课程代码前缀</li>
+ *     <li>分面：教师、星期、时段（上午 / 下午 / 晚上）与是否有余量，返回结果的同时给出各分面取值的课程数，
+ *     每个分面的计数不受该分面自身筛选条件影响（便于多选）</li>
+ * </ul>
+ * 启动时分页读取全部课程、按文档号区间并行构建后合并；本实例的增删改由 CourseService 即时更新，
+ * 座位数变化与其他实例的变更经 CourseCacheInvalidator 标记后由后台任务批量按 id 重新读取，
+ * 内存计数器开启时由 SeatCounterEngine 写回时同步人数，因此“有余量”分面可能滞后一个刷新间隔。
+ */
+@Component
+public class CourseSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CourseSearchIndex.class);
+
+    private static final int LOAD_PAGE_SIZE = 5000;
+    private static final int BUILD_CHUNK_SIZE = 20000;
+    private static final int MAX_QUERY_TERMS = 20;
+    private static final int MAX_REFRESH_BATCH = 1000;
+    private static final int INSTRUCTOR_FACET_SIZE = 20;
+    private static final int SMALL_RESULT_SIZE = 256;
+
+    /** 按上课开始时间划分的时段 */
+    public enum Period {
+        MORNING, AFTERNOON, EVENING;
+
+        static Period of(int startMinute) {
+            if (startMinute < 0) {
+                return null;
+            }
+            int minuteOfDay = startMinute % CourseSlot.MINUTES_PER_DAY;
+            return minuteOfDay < 12 * 60 ? MORNING : minuteOfDay < 18 * 60 ? AFTERNOON : EVENING;
+        }
+    }
+
+    private final CourseJpaRepository courseRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> staleIds = ConcurrentHashMap.newKeySet();
+
+    // 教师序号只增不减，文档上记录序号，分面计数时用数组累加
+    private final Map<String, Integer> instructorOrdinals = new HashMap<>();
+    private final List<String[]> instructorLabels = new ArrayList<>();
+
+    private Postings postings = new Postings(new ArrayList<>());
+    // 重建加载期间写入的课程 id，切换后重新读取，避免被重建结果覆盖
+    private Set<String> writtenDuringRebuild;
+
+    public CourseSearchIndex(CourseJpaRepository courseRepository) {
+        this.courseRepository = courseRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        rebuild();
+        log.info("Course search index loaded {} courses in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 重新加载全部课程并整体替换倒排表
+     */
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Postings rebuilt;
+        try {
+            rebuilt = Postings.build(loadAll());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        Set<String> written;
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt;
+            written = writtenDuringRebuild;
+            writtenDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refresh(written);
+    }
+
+    public void put(Course course) {
+        if (course.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            postings.put(indexed(course));
+            written(course.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String courseId) {
+        lock.writeLock().lock();
+        try {
+            postings.remove(courseId);
+            written(courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 只更新人数（内存计数器写回时调用），索引中没有该课程时忽略
+     */
+    public void updateSeats(String courseId, int enrolled) {
+        lock.writeLock().lock();
+        try {
+            postings.updateSeats(courseId, enrolled);
+            written(courseId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 标记课程需要重新读取（座位数经原生 UPDATE 修改，或其他实例修改了课程），由 refreshStale 批量处理
+     */
+    public void markStale(Collection<String> courseIds) {
+        staleIds.addAll(courseIds);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.search.refresh-interval-ms:200}")
+    public void refreshStale() {
+        while (!staleIds.isEmpty()) {
+            List<String> ids = new ArrayList<>();
+            Iterator<String> it = staleIds.iterator();
+            while (it.hasNext() && ids.size() < MAX_REFRESH_BATCH) {
+                ids.add(it.next());
+                it.remove();
+            }
+            refresh(ids);
+        }
+    }
+
+    /**
+     * 按 id 从数据库重新读取，已删除的课程从索引中移除
+     */
+    public void refresh(Collection<String> courseIds) {
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(courseIds);
+        for (Course course : courseRepository.findAllById(courseIds)) {
+            missing.remove(course.getId());
+            put(course);
+        }
+        missing.forEach(this::remove);
+    }
+
+    /**
+     * 搜索课程，各条件之间为“且”，未传的条件不参与筛选：
+     * q 为标题关键词或课程代码前缀；instructors 为教师 id 或姓名，days 为星期，periods 为时段（同一条件内多个取值为“或”）；
+     * from / to 为时间范围（HH:mm），只返回上课时间落在 [from, to] 内的课程；available 为 true 时只返回还有余量的课程。
+     * 结果按课程代码排序，返回 {total, offset, limit, items, facets}
+     */
+    public Map<String, Object> search(String q, List<String> instructors, List<String> days, List<String> periods,
+                                      String from, String to, Boolean available, Integer offset, Integer limit) {
+        int skip = offset == null ? 0 : offset;
+        if (skip < 0) {
+            throw new BusinessException("offset must not be negative");
+        }
+        int size = CursorPage.normalizeLimit(limit);
+        List<QueryTerm> terms = queryTerms(q);
+        if (terms.size() > MAX_QUERY_TERMS) {
+            throw new BusinessException("Too many search terms: " + terms.size() + " (max " + MAX_QUERY_TERMS + ")");
+        }
+        Set<String> instructorKeys = new LinkedHashSet<>();
+        for (String instructor : values(instructors)) {
+            instructorKeys.add(normalize(instructor));
+        }
+        Set<DayOfWeek> dayFilter = parseEnums(days, DayOfWeek.class, "day");
+        Set<Period> periodFilter = parseEnums(periods, Period.class, "period");
+        int fromMinute = parseTime(from, "from");
+        int toMinute = parseTime(to, "to");
+
+        lock.readLock().lock();
+        try {
+            ensureOrdered();
+            Postings p = postings;
+            BitSet text = terms.isEmpty() ? null : p.text(terms);
+            BitSet byInstructor = instructorKeys.isEmpty() ? null : p.anyOf(p.instructors, instructorKeys);
+            BitSet byDay = dayFilter.isEmpty() ? null : p.anyOf(p.days, dayFilter);
+            BitSet byTime = periodFilter.isEmpty() && fromMinute < 0 && toMinute < 0
+                    ? null : p.time(periodFilter, fromMinute, toMinute);
+            BitSet bySeats = available == null ? null : p.seats(available);
+
+            BitSet hits = p.and(text, byInstructor, byDay, byTime, bySeats);
+            Map<String, Object> facets = new LinkedHashMap<>();
+            facets.put("instructor", instructorFacet(p, p.and(text, byDay, byTime, bySeats)));
+            facets.put("dayOfWeek", p.counts(p.days, DayOfWeek.values(), p.and(text, byInstructor, byTime, bySeats)));
+            facets.put("period", p.counts(p.periods, Period.values(), p.and(text, byInstructor, byDay, bySeats)));
+            BitSet seatBase = p.and(text, byInstructor, byDay, byTime);
+            Map<String, Integer> seats = new LinkedHashMap<>();
+            int withSeats = Postings.intersectionCount(seatBase, p.available);
+            seats.put("true", withSeats);
+            seats.put("false", seatBase.cardinality() - withSeats);
+            facets.put("available", seats);
+
+            int total = hits.cardinality();
+            List<Course> items = new ArrayList<>(size);
+            if (total <= SMALL_RESULT_SIZE) {
+                // 命中少时直接排序命中的文档，不必扫描整个代码顺序
+                hits.stream().boxed().sorted(p.byCode()).skip(skip).limit(size)
+                        .forEach(doc -> items.add(p.docs.get(doc).toCourse()));
+            } else {
+                int skipped = 0;
+                for (int i = 0; i < p.ordered.length && items.size() < size; i++) {
+                    int doc = p.ordered[i];
+                    if (hits.get(doc)) {
+                        if (skipped < skip) {
+                            skipped++;
+                        } else {
+                            items.add(p.docs.get(doc).toCourse());
+                        }
+                    }
+                }
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", total);
+            result.put("offset", skip);
+            result.put("limit", size);
+            result.put("items", items);
+            result.put("facets", facets);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map<String, Object>> instructorFacet(Postings p, BitSet base) {
+        int[] counts;
+        synchronized (instructorOrdinals) {
+            counts = new int[instructorLabels.size()];
+        }
+        for (int doc = base.nextSetBit(0); doc >= 0; doc = base.nextSetBit(doc + 1)) {
+            int ordinal = p.docs.get(doc).instructorOrdinal;
+            if (ordinal >= 0 && ordinal < counts.length) {
+                counts[ordinal]++;
+            }
+        }
+        List<Integer> top = IntStream.range(0, counts.length).filter(i -> counts[i] > 0).boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> counts[i]).reversed())
+                .limit(INSTRUCTOR_FACET_SIZE)
+                .collect(Collectors.toList());
+        List<Map<String, Object>> facet = new ArrayList<>(top.size());
+        synchronized (instructorOrdinals) {
+            for (int ordinal : top) {
+                String[] label = instructorLabels.get(ordinal);
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", label[0]);
+                entry.put("name", label[1]);
+                entry.put("count", counts[ordinal]);
+                facet.add(entry);
+            }
+        }
+        return facet;
+    }
+
+    /**
+     * 按课程代码排序的文档号在课程新增、删除或改代码后失效，由下一次查询在写锁下重算
+     */
+    private void ensureOrdered() {
+        if (postings.ordered != null) {
+            return;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (postings.ordered == null) {
+                postings.sortByCode();
+            }
+        } finally {
+            lock.readLock().lock();
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void written(String courseId) {
+        if (writtenDuringRebuild != null) {
+            writtenDuringRebuild.add(courseId);
+        }
+    }
+
+    private List<IndexedCourse> loadAll() {
+        List<IndexedCourse> all = new ArrayList<>();
+        PageRequest page = PageRequest.of(0, LOAD_PAGE_SIZE);
+        List<Course> rows = courseRepository.findAllByOrderByIdAsc(page);
+        while (!rows.isEmpty()) {
+            for (Course course : rows) {
+                all.add(indexed(course));
+            }
+            if (rows.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+            rows = courseRepository.findByIdGreaterThanOrderByIdAsc(rows.get(rows.size() - 1).getId(), page);
+        }
+        return all;
+    }
+
+    private IndexedCourse indexed(Course course) {
+        Instructor instructor = course.getInstructor();
+        int ordinal = -1;
+        if (instructor != null && (instructor.getId() != null || instructor.getName() != null)) {
+            String key = instructor.getId() != null ? "id:" + instructor.getId() : "name:" + normalize(instructor.getName());
+            synchronized (instructorOrdinals) {
+                Integer existing = instructorOrdinals.get(key);
+                if (existing == null) {
+                    existing = instructorLabels.size();
+                    instructorOrdinals.put(key, existing);
+                    instructorLabels.add(null);
+                }
+                instructorLabels.set(existing, new String[]{instructor.getId(), instructor.getName()});
+                ordinal = existing;
+            }
+        }
+        return new IndexedCourse(course, ordinal);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> values(List<String> params) {
+        List<String> values = new ArrayList<>();
+        if (params != null) {
+            for (String param : params) {
+                for (String value : param.split(",")) {
+                    if (!value.trim().isEmpty()) {
+                        values.add(value.trim());
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    private static <E extends Enum<E>> Set<E> parseEnums(List<String> params, Class<E> type, String name) {
+        Set<E> parsed = new LinkedHashSet<>();
+        for (String value : values(params)) {
+            try {
+                parsed.add(Enum.valueOf(type, value.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new BusinessException("Invalid " + name + ": " + value);
+            }
+        }
+        return parsed;
+    }
+
+    private static int parseTime(String value, String name) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        int minute = CourseSlot.minuteOfDay(value);
+        if (minute < 0) {
+            throw new BusinessException("Invalid " + name + " time, expected HH:mm: " + value);
+        }
+        return minute;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 标题切分：连续的字母 / 数字为一个词，连续的中日韩文字切成 bigram；index 为 true 时还加入单字，
+     * 查询时单字只在这一段只有一个字时使用（“课”命中所有含“课”的标题，“课程”只命中含“课程”的标题）
+     */
+    static void tokenize(String text, boolean index, Collection<String> words, Collection<String> grams) {
+        String normalized = normalize(text);
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            if (isCjk(codePoint)) {
+                List<String> chars = new ArrayList<>();
+                while (i < normalized.length() && isCjk(normalized.codePointAt(i))) {
+                    int c = normalized.codePointAt(i);
+                    chars.add(new String(Character.toChars(c)));
+                    i += Character.charCount(c);
+                }
+                if (index || chars.size() == 1) {
+                    grams.addAll(chars);
+                }
+                for (int k = 0; k + 1 < chars.size(); k++) {
+                    grams.add(chars.get(k) + chars.get(k + 1));
+                }
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int start = i;
+                while (i < normalized.length() && Character.isLetterOrDigit(normalized.codePointAt(i))
+                        && !isCjk(normalized.codePointAt(i))) {
+                    i += Character.charCount(normalized.codePointAt(i));
+                }
+                words.add(normalized.substring(start, i));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+    }
+
+    private static List<QueryTerm> queryTerms(String q) {
+        List<QueryTerm> terms = new ArrayList<>();
+        if (q == null || q.trim().isEmpty()) {
+            return terms;
+        }
+        Set<String> words = new LinkedHashSet<>();
+        Set<String> grams = new LinkedHashSet<>();
+        tokenize(q, false, words, grams);
+        for (String word : words) {
+            terms.add(new QueryTerm(word, false));
+        }
+        for (String gram : grams) {
+            terms.add(new QueryTerm(gram, true));
+        }
+        return terms;
+    }
+
+    private static final class QueryTerm {
+        final String value;
+        final boolean gram;
+
+        QueryTerm(String value, boolean gram) {
+            this.value = value;
+            this.gram = gram;
+        }
+    }
+
+    /**
+     * 倒排表与按代码排序的文档号；删除的文档号会被复用。本身不是线程安全的，由外层读写锁保护
+     */
+    private static final class Postings {
+
+        final List<IndexedCourse> docs;
+        final Map<String, Integer> docById = new HashMap<>();
+        final BitSet live = new BitSet();
+        final Deque<Integer> freeDocs = new ArrayDeque<>();
+        final TreeMap<String, BitSet> words = new TreeMap<>();
+        final Map<String, BitSet> grams = new HashMap<>();
+        final TreeMap<String, BitSet> codes = new TreeMap<>();
+        final Map<String, BitSet> instructors = new HashMap<>();
+        final Map<DayOfWeek, BitSet> days = new EnumMap<>(DayOfWeek.class);
+        final Map<Period, BitSet> periods = new EnumMap<>(Period.class);
+        final BitSet available = new BitSet();
+        // 时间范围筛选按文档号顺序扫描，-1 表示未排课
+        int[] starts = new int[0];
+        int[] ends = new int[0];
+        int[] ordered;
+
+        Postings(List<IndexedCourse> docs) {
+            this.docs = docs;
+        }
+
+        /**
+         * 文档号即列表下标，互不相交的区间可以独立构建倒排表后按位或合并
+         */
+        static Postings build(List<IndexedCourse> courses) {
+            Postings merged = new Postings(courses);
+            int chunks = (courses.size() + BUILD_CHUNK_SIZE - 1) / BUILD_CHUNK_SIZE;
+            List<Postings> partials = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> {
+                        Postings partial = new Postings(courses);
+                        int end = Math.min(courses.size(), (chunk + 1) * BUILD_CHUNK_SIZE);
+                        for (int doc = chunk * BUILD_CHUNK_SIZE; doc < end; doc++) {
+                            partial.index(doc, courses.get(doc));
+                        }
+                        return partial;
+                    })
+                    .collect(Collectors.toList());
+            for (Postings partial : partials) {
+                merged.docById.putAll(partial.docById);
+                merged.live.or(partial.live);
+                merged.available.or(partial.available);
+                mergeInto(merged.words, partial.words);
+                mergeInto(merged.grams, partial.grams);
+                mergeInto(merged.codes, partial.codes);
+                mergeInto(merged.instructors, partial.instructors);
+                mergeInto(merged.days, partial.days);
+                mergeInto(merged.periods, partial.periods);
+            }
+            merged.ensureSlots(courses.size());
+            for (int doc = 0; doc < courses.size(); doc++) {
+                merged.starts[doc] = courses.get(doc).start;
+                merged.ends[doc] = courses.get(doc).end;
+            }
+            merged.sortByCode();
+            return merged;
+        }
+
+        private static <K> void mergeInto(Map<K, BitSet> target, Map<K, BitSet> source) {
+            source.forEach((term, bits) -> target.merge(term, bits, (a, b) -> {
+                a.or(b);
+                return a;
+            }));
+        }
+
+        static int intersectionCount(BitSet a, BitSet b) {
+            BitSet both = (BitSet) a.clone();
+            both.and(b);
+            return both.cardinality();
+        }
+
+        int size() {
+            return docById.size();
+        }
+
+        void put(IndexedCourse course) {
+            Integer existing = docById.get(course.id);
+            if (existing != null) {
+                IndexedCourse previous = docs.get(existing);
+                unindex(existing, previous);
+                docs.set(existing, course);
+                index(existing, course);
+                if (!previous.code.equals(course.code)) {
+                    ordered = null;
+                }
+                return;
+            }
+            Integer free = freeDocs.poll();
+            int doc = free != null ? free : docs.size();
+            if (free != null) {
+                docs.set(doc, course);
+            } else {
+                docs.add(course);
+            }
+            index(doc, course);
+            ordered = null;
+        }
+
+        void remove(String courseId) {
+            Integer doc = docById.get(courseId);
+            if (doc == null) {
+                return;
+            }
+            unindex(doc, docs.get(doc));
+            docs.set(doc, null);
+            freeDocs.push(doc);
+            ordered = null;
+        }
+
+        void updateSeats(String courseId, int enrolled) {
+            Integer doc = docById.get(courseId);
+            if (doc == null) {
+                return;
+            }
+            IndexedCourse course = docs.get(doc).withEnrolled(enrolled);
+            docs.set(doc, course);
+            available.set(doc, course.hasSeats());
+        }
+
+        Comparator<Integer> byCode() {
+            return Comparator.comparing((Integer doc) -> docs.get(doc).code).thenComparing(doc -> docs.get(doc).id);
+        }
+
+        void sortByCode() {
+            ordered = live.stream().boxed().sorted(byCode()).mapToInt(Integer::intValue).toArray();
+        }
+
+        BitSet text(List<QueryTerm> terms) {
+            BitSet result = null;
+            for (QueryTerm term : terms) {
+                BitSet matches;
+                if (term.gram) {
+                    BitSet bits = grams.get(term.value);
+                    matches = bits == null ? new BitSet() : bits;
+                } else {
+                    matches = prefix(words, term.value);
+                    matches.or(prefix(codes, term.value));
+                }
+                if (result == null) {
+                    result = (BitSet) matches.clone();
+                } else {
+                    result.and(matches);
+                }
+            }
+            return result;
+        }
+
+        <K> BitSet anyOf(Map<K, BitSet> postings, Collection<K> keys) {
+            BitSet result = new BitSet();
+            for (K key : keys) {
+                BitSet bits = postings.get(key);
+                if (bits != null) {
+                    result.or(bits);
+                }
+            }
+            return result;
+        }
+
+        BitSet time(Set<Period> periodFilter, int fromMinute, int toMinute) {
+            BitSet result = periodFilter.isEmpty() ? (BitSet) live.clone() : anyOf(periods, periodFilter);
+            if (fromMinute < 0 && toMinute < 0) {
+                return result;
+            }
+            for (int doc = result.nextSetBit(0); doc >= 0; doc = result.nextSetBit(doc + 1)) {
+                int start = starts[doc];
+                boolean inRange = start >= 0
+                        && (fromMinute < 0 || start % CourseSlot.MINUTES_PER_DAY >= fromMinute)
+                        && (toMinute < 0 || ends[doc] % CourseSlot.MINUTES_PER_DAY <= toMinute);
+                if (!inRange) {
+                    result.clear(doc);
+                }
+            }
+            return result;
+        }
+
+        BitSet seats(boolean withSeats) {
+            BitSet result = (BitSet) live.clone();
+            if (withSeats) {
+                result.and(available);
+            } else {
+                result.andNot(available);
+            }
+            return result;
+        }
+
+        /**
+         * live 与所有非空筛选条件求交
+         */
+        BitSet and(BitSet... filters) {
+            BitSet result = (BitSet) live.clone();
+            for (BitSet filter : filters) {
+                if (filter != null) {
+                    result.and(filter);
+                }
+            }
+            return result;
+        }
+
+        <K> Map<K, Integer> counts(Map<K, BitSet> postings, K[] keys, BitSet base) {
+            Map<K, Integer> counts = new LinkedHashMap<>();
+            for (K key : keys) {
+                BitSet bits = postings.get(key);
+                counts.put(key, bits == null ? 0 : intersectionCount(base, bits));
+            }
+            return counts;
+        }
+
+        private BitSet prefix(TreeMap<String, BitSet> terms, String prefix) {
+            BitSet result = new BitSet();
+            for (BitSet bits : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                result.or(bits);
+            }
+            return result;
+        }
+
+        private void ensureSlots(int size) {
+            if (starts.length < size) {
+                int capacity = Math.max(size, starts.length * 2);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+            }
+        }
+
+        private void index(int doc, IndexedCourse course) {
+            docById.put(course.id, doc);
+            live.set(doc);
+            available.set(doc, course.hasSeats());
+            for (String term : course.words) {
+                add(words, term, doc);
+            }
+            for (String term : course.grams) {
+                add(grams, term, doc);
+            }
+            add(codes, normalize(course.code), doc);
+            for (String key : course.instructorKeys()) {
+                add(instructors, key, doc);
+            }
+            if (course.dayOfWeek != null) {
+                add(days, course.dayOfWeek, doc);
+            }
+            Period period = Period.of(course.start);
+            if (period != null) {
+                add(periods, period, doc);
+            }
+            ensureSlots(doc + 1);
+            starts[doc] = course.start;
+            ends[doc] = course.end;
+        }
+
+        private void unindex(int doc, IndexedCourse course) {
+            docById.remove(course.id);
+            live.clear(doc);
+            available.clear(doc);
+            for (String term : course.words) {
+                clear(words, term, doc);
+            }
+            for (String term : course.grams) {
+                clear(grams, term, doc);
+            }
+            clear(codes, normalize(course.code), doc);
+            for (String key : course.instructorKeys()) {
+                clear(instructors, key, doc);
+            }
+            if (course.dayOfWeek != null) {
+                clear(days, course.dayOfWeek, doc);
+            }
+            Period period = Period.of(course.start);
+            if (period != null) {
+                clear(periods, period, doc);
+            }
+        }
+
+        private static <K> void add(Map<K, BitSet> terms, K term, int doc) {
+            terms.computeIfAbsent(term, t -> new BitSet()).set(doc);
+        }
+
+        private static <K> void clear(Map<K, BitSet> terms, K term, int doc) {
+            BitSet bits = terms.get(term);
+            if (bits != null) {
+                bits.clear(doc);
+                if (bits.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 索引中的课程快照（不可变），查询结果由快照构造，不会被持久化上下文中的实体修改影响
+     */
+    private static final class IndexedCourse {
+
+        final String id;
+        final String code;
+        final String title;
+        final String instructorId;
+        final String instructorName;
+        final String instructorEmail;
+        final int instructorOrdinal;
+        final DayOfWeek dayOfWeek;
+        final String startTime;
+        final String endTime;
+        // 一周内的分钟数（见 CourseSlot），未排课为 -1
+        final int start;
+        final int end;
+        final Integer capacity;
+        final Integer enrolled;
+        final Set<String> words;
+        final Set<String> grams;
+
+        IndexedCourse(Course course, int instructorOrdinal) {
+            this.id = course.getId();
+            this.code = course.getCode() == null ? "" : course.getCode();
+            this.title = course.getTitle();
+            Instructor instructor = course.getInstructor();
+            this.instructorId = instructor == null ? null : instructor.getId();
+            this.instructorName = instructor == null ? null : instructor.getName();
+            this.instructorEmail = instructor == null ? null : instructor.getEmail();
+            this.instructorOrdinal = instructorOrdinal;
+            ScheduleSlot schedule = course.getSchedule();
+            this.dayOfWeek = schedule == null ? null : schedule.getDayOfWeek();
+            this.startTime = schedule == null ? null : schedule.getStartTime();
+            this.endTime = schedule == null ? null : schedule.getEndTime();
+            CourseSlot slot = CourseSlot.of(course);
+            this.start = slot == null ? -1 : slot.getStart();
+            this.end = slot == null ? -1 : slot.getEnd();
+            this.capacity = course.getCapacity();
+            this.enrolled = course.getEnrolled();
+            this.words = new LinkedHashSet<>();
+            this.grams = new LinkedHashSet<>();
+            tokenize(title, true, words, grams);
+        }
+
+        private IndexedCourse(IndexedCourse source, int enrolled) {
+            this.id = source.id;
+            this.code = source.code;
+            this.title = source.title;
+            this.instructorId = source.instructorId;
+            this.instructorName = source.instructorName;
+            this.instructorEmail = source.instructorEmail;
+            this.instructorOrdinal = source.instructorOrdinal;
+            this.dayOfWeek = source.dayOfWeek;
+            this.startTime = source.startTime;
+            this.endTime = source.endTime;
+            this.start = source.start;
+            this.end = source.end;
+            this.capacity = source.capacity;
+            this.enrolled = enrolled;
+            this.words = source.words;
+            this.grams = source.grams;
+        }
+
+        IndexedCourse withEnrolled(int enrolled) {
+            return new IndexedCourse(this, enrolled);
+        }
+
+        boolean hasSeats() {
+            return (capacity == null ? 0 : capacity) > (enrolled == null ? 0 : enrolled);
+        }
+
+        List<String> instructorKeys() {
+            List<String> keys = new ArrayList<>(2);
+            if (instructorId != null) {
+                keys.add(normalize(instructorId));
+            }
+            if (instructorName != null && !normalize(instructorName).equals(normalize(instructorId))) {
+                keys.add(normalize(instructorName));
+            }
+            return keys;
+        }
+
+        Course toCourse() {
+            Course course = new Course();
+            course.setId(id);
+            course.setCode(code);
+            course.setTitle(title);
+            if (instructorId != null || instructorName != null || instructorEmail != null) {
+                Instructor instructor = new Instructor();
+                instructor.setId(instructorId);
+                instructor.setName(instructorName);
+                instructor.setEmail(instructorEmail);
+                course.setInstructor(instructor);
+            }
+            if (dayOfWeek != null || startTime != null || endTime != null) {
+                ScheduleSlot schedule = new ScheduleSlot();
+                schedule.setDayOfWeek(dayOfWeek);
+                schedule.setStartTime(startTime);
+                schedule.setEndTime(endTime);
+                course.setSchedule(schedule);
+            }
+            course.setCapacity(capacity);
+            course.setEnrolled(enrolled);
+            return course;
+        }
+    }
+}
@@ -1,54 +1,157 @@
 package com.zjsu.course.service;
 
+import com.zjsu.course.cache.CourseCacheInvalidator;
+import com.zjsu.course.cache.CourseKeyIndex;
+import com.zjsu.course.common.CursorPage;
 import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.CourseFullException;
 import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.model.AppliedSeatDelta;
 import com.zjsu.course.model.Course;
+import com.zjsu.course.model.CourseSlot;
+import com.zjsu.course.model.OpenCoursePage;
+import com.zjsu.course.model.SeatDelta;
+import com.zjsu.course.repository.AppliedSeatDeltaJpaRepository;
 import com.zjsu.course.repository.CourseJpaRepository;
+import com.zjsu.course.search.CourseSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 课程业务逻辑层
  */
 @Service
 public class CourseService {
+
+    /** 单次批量查询允许的最大 key 数 */
+    private static final int MAX_LOOKUP_KEYS = 1000;
+
+    /** 单次投递允许的最大人数增量条数 */
+    private static final int MAX_SEAT_DELTAS = 1000;
+
+    public static final String DELTA_APPLIED = "APPLIED";
+    public static final String DELTA_DUPLICATE = "DUPLICATE";
+    public static final String DELTA_COURSE_NOT_FOUND = "COURSE_NOT_FOUND";
     
     @Autowired
     private CourseJpaRepository courseRepository;
 
+    @Autowired
+    private SeatCounterEngine seatCounterEngine;
+
+    @Autowired
+    private AppliedSeatDeltaJpaRepository appliedSeatDeltaRepository;
+
+    @Autowired
+    private CourseCacheInvalidator courseCacheInvalidator;
+
+    @Autowired
+    private CourseKeyIndex courseKeyIndex;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private OpenCourseView openCourseView;
+
+    @Value("${catalog.seat-deltas.retention:7d}")
+    private Duration seatDeltaRetention;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<Course> getAllCourses() {
-        return courseRepository.findAll();
+        List<Course> courses = courseRepository.findAll();
+        courses.forEach(seatCounterEngine::applyTo);
+        return courses;
     }
 
-    public Course getCourseById(String id) {
-    // 尝试按内部 id 查找，找不到时再尝试按 code 查找，兼容客户端传入 code 或 id 的情况
-    if (id == null) {
-        throw new ResourceNotFoundException("Course not found with id: " + id);
+    /**
+     * 游标分页查询课程（按 id 升序），after 为上一页返回的 nextCursor
+     */
+    public CursorPage<Course> getCoursePage(String after, Integer limit) {
+        int size = CursorPage.normalizeLimit(limit);
+        String afterId = CursorPage.decodeCursor(after);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Course> rows = afterId == null
+                ? courseRepository.findAllByOrderByIdAsc(page)
+                : courseRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        rows.forEach(seatCounterEngine::applyTo);
+        return CursorPage.of(rows, size, Course::getId);
     }
-    String key = id.trim();
-    return courseRepository.findById(key)
-        .orElseGet(() -> courseRepository.findByCode(key)
-            .orElseThrow(() -> new ResourceNotFoundException("Course not found with id or code: " + id)));
+
+    /**
+     * 流式遍历全部课程：逐条交给 action 处理后从持久化上下文中移除，避免一次性加载整个列表
+     */
+    @Transactional(readOnly = true)
+    public void streamCourses(Consumer<Course> action) {
+        try (Stream<Course> courses = courseRepository.streamAll()) {
+            courses.forEach(course -> {
+                seatCounterEngine.applyTo(course);
+                action.accept(course);
+                entityManager.detach(course);
+            });
+        }
+    }
+
+    public Course getCourseById(String id) {
+        // 兼容客户端传入 code 或 id 的情况
+        Course course = findCourse(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id or code: " + id));
+        seatCounterEngine.applyTo(course);
+        return course;
     }
 
     public Course createCourse(Course course) {
         // 检查课程代码是否已存在
-        if (courseRepository.findByCode(course.getCode()).isPresent()) {
+        if (codeTaken(course.getCode())) {
             throw new BusinessException("Course code already exists: " + course.getCode());
         }
+        if (course.getEnrolled() == null) {
+            course.setEnrolled(0);
+        }
         
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        seatCounterEngine.register(saved);
+        courseKeyIndex.put(saved.getId(), saved.getCode());
+        courseSearchIndex.put(saved);
+        openCourseView.update(saved.getId(), saved.getCode(), saved.getCapacity(), saved.getEnrolled());
+        courseCacheInvalidator.courseChanged(saved.getId(), true);
+        return saved;
     }
 
     public Course updateCourse(String id, Course courseDetails) {
         Course course = getCourseById(id);
         
         // 检查新的课程代码是否与其他课程冲突
-        if (!course.getCode().equals(courseDetails.getCode())) {
-            if (courseRepository.findByCode(courseDetails.getCode()).isPresent()) {
+        boolean codeChanged = !course.getCode().equals(courseDetails.getCode());
+        if (codeChanged) {
+            if (codeTaken(courseDetails.getCode())) {
                 throw new BusinessException("Course code already exists: " + courseDetails.getCode());
             }
         }
@@ -59,7 +162,13 @@ public class CourseService {
         course.setSchedule(courseDetails.getSchedule());
         course.setCapacity(courseDetails.getCapacity());
         
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        seatCounterEngine.sync(saved, false);
+        courseKeyIndex.put(saved.getId(), saved.getCode());
+        courseSearchIndex.put(saved);
+        openCourseView.update(saved.getId(), saved.getCode(), saved.getCapacity(), saved.getEnrolled());
+        courseCacheInvalidator.courseChanged(saved.getId(), codeChanged);
+        return saved;
     }
 
     /**
@@ -67,9 +176,11 @@ public class CourseService {
      */
     public Course updateCourseFromMap(String id, java.util.Map<String, Object> updates) {
         Course course = getCourseById(id);
+        boolean codeChanged = false;
         if (updates.containsKey("code")) {
             String newCode = (String) updates.get("code");
-            if (!course.getCode().equals(newCode) && courseRepository.findByCode(newCode).isPresent()) {
+            codeChanged = !course.getCode().equals(newCode);
+            if (codeChanged && codeTaken(newCode)) {
                 throw new BusinessException("Course code already exists: " + newCode);
             }
             course.setCode(newCode);
@@ -122,37 +233,457 @@ public class CourseService {
             if (en instanceof Number) course.setEnrolled(((Number) en).intValue());
         }
 
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        seatCounterEngine.sync(saved, updates.get("enrolled") instanceof Number);
+        courseKeyIndex.put(saved.getId(), saved.getCode());
+        courseSearchIndex.put(saved);
+        openCourseView.update(saved.getId(), saved.getCode(), saved.getCapacity(), saved.getEnrolled());
+        courseCacheInvalidator.courseChanged(saved.getId(), codeChanged);
+        return saved;
     }
 
     public Course getCourseByCode(String code) {
-        return courseRepository.findByCode(code)
+        String courseId = code == null ? null : courseKeyIndex.idForCode(code);
+        Optional<Course> found = courseId == null ? Optional.empty() : courseRepository.findById(courseId)
+                .filter(c -> code.equals(c.getCode()));
+        Course course = (found.isPresent() ? found : courseRepository.findByCode(code))
                 .orElseThrow(() -> new ResourceNotFoundException("Course not found with code: " + code));
+        seatCounterEngine.applyTo(course);
+        return course;
+    }
+
+    /**
+     * 批量查询：keys 可以是课程 id 或课程代码，先经 CourseKeyIndex 把 key 换成 id 后按 id 批量查询，
+     * 索引中没有的 key 再按 code 批量查询。
+     * 返回以请求 key 为键的 map（按请求顺序），不存在或有歧义的 key 不出现在结果中
+     */
+    public Map<String, Course> lookupCourses(List<String> keys) {
+        Set<String> requested = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys) {
+                if (key != null && !key.trim().isEmpty()) {
+                    requested.add(key.trim());
+                }
+            }
+        }
+        if (requested.size() > MAX_LOOKUP_KEYS) {
+            throw new BusinessException("Too many keys in lookup: " + requested.size() + " (max " + MAX_LOOKUP_KEYS + ")");
+        }
+        if (requested.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Map<String, String> keyToId = new HashMap<>();
+        Set<String> ambiguous = new HashSet<>();
+        for (String key : requested) {
+            try {
+                String courseId = courseKeyIndex.resolve(key);
+                keyToId.put(key, courseId == null ? key : courseId);
+            } catch (BusinessException e) {
+                ambiguous.add(key);
+            }
+        }
+        Map<String, Course> found = new HashMap<>();
+        for (Course course : courseRepository.findAllById(new HashSet<>(keyToId.values()))) {
+            found.put(course.getId(), course);
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        for (Map.Entry<String, String> entry : keyToId.entrySet()) {
+            if (!found.containsKey(entry.getValue())) {
+                codes.add(entry.getKey());
+            }
+        }
+        if (!codes.isEmpty()) {
+            for (Course course : courseRepository.findByCodeIn(codes)) {
+                courseKeyIndex.put(course.getId(), course.getCode());
+                found.putIfAbsent(course.getId(), course);
+                keyToId.put(course.getCode(), course.getId());
+            }
+        }
+        Map<String, Course> result = new LinkedHashMap<>();
+        for (String key : requested) {
+            Course course = ambiguous.contains(key) ? null : found.get(keyToId.get(key));
+            if (course != null) {
+                seatCounterEngine.applyTo(course);
+                result.put(key, course);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 搜索课程（见 CourseSearchIndex），结果中的人数以内存计数器为准
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> searchCourses(String q, List<String> instructors, List<String> days, List<String> periods,
+                                             String from, String to, Boolean available, Integer offset, Integer limit) {
+        Map<String, Object> result = courseSearchIndex.search(q, instructors, days, periods, from, to, available, offset, limit);
+        ((List<Course>) result.get("items")).forEach(seatCounterEngine::applyTo);
+        return result;
+    }
+
+    /**
+     * 有余量的课程（内存视图，按 id 游标分页），附带视图版本号
+     */
+    public OpenCoursePage getOpenCourses(String after, Integer limit) {
+        return openCourseView.page(after, limit);
+    }
+
+    /**
+     * 订阅座位变更推送（SSE），since 为客户端已知的事件 id（epoch:version）
+     */
+    public SseEmitter subscribeSeatChanges(String since) {
+        return openCourseView.subscribe(since);
+    }
+
+    /**
+     * 导出全部已排课课程的上课时段（一周内分钟数），时间无法解析的课程跳过
+     */
+    public List<CourseSlot> getCourseSlots() {
+        List<CourseSlot> slots = new ArrayList<>();
+        for (Object[] row : courseRepository.findScheduleSlots()) {
+            CourseSlot slot = CourseSlot.of((String) row[0], (String) row[1], (DayOfWeek) row[2],
+                    (String) row[3], (String) row[4]);
+            if (slot != null) {
+                slots.add(slot);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * 批量查询上课时段：keys 为课程 id 或代码，返回以请求 key 为键的 map，不存在或未排课的 key 省略
+     */
+    public Map<String, CourseSlot> lookupCourseSlots(List<String> keys) {
+        Map<String, CourseSlot> result = new LinkedHashMap<>();
+        lookupCourses(keys).forEach((key, course) -> {
+            CourseSlot slot = CourseSlot.of(course);
+            if (slot != null) {
+                result.put(key, slot);
+            }
+        });
+        return result;
     }
 
     public void deleteCourse(String id) {
         Course course = getCourseById(id);
-        courseRepository.deleteById(id);
+        courseRepository.deleteById(course.getId());
+        seatCounterEngine.remove(course.getId());
+        courseKeyIndex.remove(course.getId());
+        courseSearchIndex.remove(course.getId());
+        openCourseView.remove(course.getId());
+        courseCacheInvalidator.courseChanged(course.getId(), true);
     }
 
     public boolean existsById(String id) {
-        if (id == null) return false;
-        String key = id.trim();
         // 既支持按内部 id，也支持按 course code
-        return courseRepository.existsById(key) || courseRepository.findByCode(key).isPresent();
+        return findCourse(id).isPresent();
     }
 
     public void incrementEnrolled(String courseId) {
-        Course course = getCourseById(courseId);
-        course.setEnrolled(course.getEnrolled() + 1);
-        courseRepository.save(course);
+        reserveSeats(courseId, 1, false);
     }
 
     public void decrementEnrolled(String courseId) {
+        releaseSeats(courseId, 1);
+    }
+
+    /**
+     * 原子占座：一次条件 UPDATE 完成余量判断与 enrolled + count，返回最新人数与实际占到的座位数；
+     * partial 为 true 时余量不足则尽量多占（批量选课使用）。
+     * 开启内存计数器时直接在内存中判定，由 write-behind 任务写回数据库
+     */
+    @Transactional
+    public Map<String, Object> reserveSeats(String idOrCode, int count, boolean partial) {
+        if (count <= 0) {
+            throw new BusinessException("Seat count must be positive");
+        }
+        String courseId = resolveCourseId(idOrCode);
+        int granted = reserve(courseId, idOrCode.trim(), count, partial);
+        if (granted < 0) {
+            // 索引中的 id 已不对应 key（课程被删除或代码变更的通知丢失），已从索引移除，按数据库重新解析后再试一次
+            courseId = resolveCourseId(idOrCode);
+            granted = reserve(courseId, idOrCode.trim(), count, partial);
+        }
+        if (granted < 0) {
+            throw new ResourceNotFoundException("Course not found with id or code: " + idOrCode);
+        }
+        if (granted == 0) {
+            throw new CourseFullException();
+        }
+        if (!seatCounterEngine.isEnabled()) {
+            courseCacheInvalidator.seatsChanged(courseId);
+        }
+        Map<String, Object> result = seatResult(courseId);
+        result.put("reserved", granted);
+        return result;
+    }
+
+    /**
+     * 原子释放座位：enrolled 不会减到 0 以下
+     */
+    @Transactional
+    public Map<String, Object> releaseSeats(String idOrCode, int count) {
+        if (count <= 0) {
+            throw new BusinessException("Seat count must be positive");
+        }
+        String courseId = resolveCourseId(idOrCode);
+        if (!release(courseId, idOrCode.trim(), count)) {
+            courseId = resolveCourseId(idOrCode);
+            if (!release(courseId, idOrCode.trim(), count)) {
+                throw new ResourceNotFoundException("Course not found with id or code: " + idOrCode);
+            }
+        }
+        return seatResult(courseId);
+    }
+
+    /**
+     * 批量应用 enrollment-service 投递的人数增量（已按课程合并）。每条增量带幂等键，
+     * 键与人数修正在同一事务中写入，重复投递的键直接返回 DUPLICATE；课程已删除的增量同样记录键后丢弃。
+     * 开启内存计数器时在事务提交后再修正计数器，事务回滚重投时不会重复计数
+     */
+    @Transactional
+    public Map<String, String> applySeatDeltas(List<SeatDelta> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        if (deltas.size() > MAX_SEAT_DELTAS) {
+            throw new BusinessException("Too many seat deltas, at most " + MAX_SEAT_DELTAS + " per request");
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        for (SeatDelta delta : deltas) {
+            if (delta.getKey() == null || delta.getKey().trim().isEmpty() || delta.getKey().length() > 64) {
+                throw new BusinessException("Seat delta key must be 1-64 characters");
+            }
+            keys.add(delta.getKey());
+        }
+        seatCounterEngine.ensureReconciled();
+        Set<String> applied = new HashSet<>();
+        appliedSeatDeltaRepository.findAllById(keys).forEach(d -> applied.add(d.getKey()));
+
+        Map<String, String> results = new LinkedHashMap<>();
+        List<SeatDelta> counterDeltas = new ArrayList<>();
+        for (SeatDelta delta : deltas) {
+            String key = delta.getKey();
+            if (results.containsKey(key)) {
+                continue;
+            }
+            if (applied.contains(key)) {
+                results.put(key, DELTA_DUPLICATE);
+                continue;
+            }
+            String courseId;
+            try {
+                courseId = resolveCourseId(delta.getCourseId());
+            } catch (ResourceNotFoundException e) {
+                courseId = null;
+            }
+            if (courseId != null && delta.getDelta() != 0 && !adjust(courseId, delta, counterDeltas)) {
+                // 索引已过期：按数据库重新解析后再试一次
+                try {
+                    courseId = resolveCourseId(delta.getCourseId());
+                } catch (ResourceNotFoundException e) {
+                    courseId = null;
+                }
+                if (courseId != null && !adjust(courseId, delta, counterDeltas)) {
+                    courseId = null;
+                }
+            }
+            // 键是手动分配的主键，直接 persist 避免 save() 先按主键查询一次
+            entityManager.persist(new AppliedSeatDelta(key, courseId == null ? delta.getCourseId() : courseId, delta.getDelta()));
+            results.put(key, courseId == null ? DELTA_COURSE_NOT_FOUND : DELTA_APPLIED);
+        }
+        if (!counterDeltas.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counterDeltas.forEach(d -> seatCounterEngine.adjust(d.getCourseId(), d.getDelta()));
+                }
+            });
+        }
+        return results;
+    }
+
+    /**
+     * 定期清理过期的幂等键（保留时间需大于 outbox 的最长重投时间）
+     */
+    @Scheduled(cron = "${catalog.seat-deltas.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeAppliedSeatDeltas() {
+        appliedSeatDeltaRepository.deleteAppliedBefore(LocalDateTime.now().minus(seatDeltaRetention));
+    }
+
+    /**
+     * 占座并返回占到的座位数；courseId 已不对应 key（课程已删除或代码已变更）时从索引移除并返回 -1
+     */
+    private int reserve(String courseId, String key, int count, boolean partial) {
+        if (seatCounterEngine.isEnabled()) {
+            if (!seatCounterEngine.matches(courseId, key)) {
+                courseKeyIndex.remove(courseId);
+                return -1;
+            }
+            return seatCounterEngine.tryReserve(courseId, count, partial);
+        }
+        if (courseRepository.reserveSeats(courseId, key, count) == 1) {
+            return count;
+        }
+        // 条件 UPDATE 未命中时区分 key 不匹配（含课程不存在）与已满
+        if (!keyMatches(courseId, key)) {
+            return -1;
+        }
+        return partial ? reservePartially(courseId, key, count) : 0;
+    }
+
+    /**
+     * 释放座位；courseId 已不对应 key 时从索引移除并返回 false
+     */
+    private boolean release(String courseId, String key, int count) {
+        if (seatCounterEngine.isEnabled()) {
+            if (!seatCounterEngine.matches(courseId, key)) {
+                courseKeyIndex.remove(courseId);
+                return false;
+            }
+            seatCounterEngine.release(courseId, count);
+            return true;
+        }
+        if (courseRepository.releaseSeats(courseId, key, count) > 0) {
+            courseCacheInvalidator.seatsChanged(courseId);
+            return true;
+        }
+        // 人数已为 0 时同样不会命中
+        return keyMatches(courseId, key);
+    }
+
+    /**
+     * 应用一条人数增量；courseId 已不对应增量中的课程 key 时从索引移除并返回 false
+     */
+    private boolean adjust(String courseId, SeatDelta delta, List<SeatDelta> counterDeltas) {
+        String key = delta.getCourseId().trim();
+        if (seatCounterEngine.isEnabled()) {
+            if (!seatCounterEngine.matches(courseId, key)) {
+                courseKeyIndex.remove(courseId);
+                return false;
+            }
+            counterDeltas.add(new SeatDelta(delta.getKey(), courseId, delta.getDelta()));
+            return true;
+        }
+        if (courseRepository.adjustEnrolled(courseId, key, delta.getDelta()) > 0) {
+            courseCacheInvalidator.seatsChanged(courseId);
+            return true;
+        }
+        courseKeyIndex.remove(courseId);
+        return false;
+    }
+
+    private boolean keyMatches(String courseId, String key) {
+        if (courseRepository.countByIdAndKey(courseId, key) > 0) {
+            return true;
+        }
+        courseKeyIndex.remove(courseId);
+        return false;
+    }
+
+    /**
+     * 余量不足 count 时按当前余量重试条件 UPDATE，直到占到座位或课程已满
+     */
+    private int reservePartially(String courseId, String key, int count) {
+        while (true) {
+            Integer capacity = courseRepository.findCapacityById(courseId);
+            Integer enrolled = courseRepository.findEnrolledById(courseId);
+            int available = (capacity == null ? 0 : capacity) - (enrolled == null ? 0 : enrolled);
+            int attempt = Math.min(count, available);
+            if (attempt <= 0) {
+                return 0;
+            }
+            if (courseRepository.reserveSeats(courseId, key, attempt) == 1) {
+                return attempt;
+            }
+        }
+    }
+
+    /**
+     * 查询座位余量（开启内存计数器时不访问数据库）
+     */
+    public Map<String, Object> getSeats(String idOrCode) {
+        String courseId = resolveCourseId(idOrCode);
+        if (seatCounterEngine.isEnabled()) {
+            return seatCounterEngine.seats(courseId);
+        }
         Course course = getCourseById(courseId);
-        if (course.getEnrolled() > 0) {
-            course.setEnrolled(course.getEnrolled() - 1);
-            courseRepository.save(course);
+        int capacity = course.getCapacity() == null ? 0 : course.getCapacity();
+        int enrolled = course.getEnrolled() == null ? 0 : course.getEnrolled();
+        Map<String, Object> result = new HashMap<>();
+        result.put("courseId", course.getId());
+        result.put("code", course.getCode());
+        result.put("capacity", capacity);
+        result.put("enrolled", enrolled);
+        result.put("available", Math.max(0, capacity - enrolled));
+        return result;
+    }
+
+    private Map<String, Object> seatResult(String courseId) {
+        if (seatCounterEngine.isEnabled()) {
+            return seatCounterEngine.seats(courseId);
+        }
+        Integer enrolled = courseRepository.findEnrolledById(courseId);
+        Map<String, Object> result = new HashMap<>();
+        result.put("courseId", courseId);
+        result.put("enrolled", enrolled == null ? 0 : enrolled);
+        return result;
+    }
+
+    /**
+     * 按 id 或课程代码查找课程：CourseKeyIndex 命中时按主键读取（走二级缓存）并确认 key 仍是该课程的 id 或代码，
+     * 未命中（或索引已过期）时按主键与课程代码各查一次（都走二级缓存与索引）。key 有歧义时返回 400
+     */
+    private Optional<Course> findCourse(String idOrCode) {
+        if (idOrCode == null) {
+            return Optional.empty();
+        }
+        String key = idOrCode.trim();
+        String courseId = courseKeyIndex.resolve(key);
+        if (courseId != null) {
+            Optional<Course> course = courseRepository.findById(courseId);
+            if (course.isPresent() && (key.equals(course.get().getId()) || key.equals(course.get().getCode()))) {
+                return course;
+            }
+            courseKeyIndex.remove(courseId);
+        }
+        Map<String, Course> matches = new HashMap<>();
+        Map<String, String> codes = new HashMap<>();
+        for (Optional<Course> match : Arrays.asList(courseRepository.findById(key), courseRepository.findByCode(key))) {
+            match.ifPresent(course -> {
+                matches.put(course.getId(), course);
+                codes.put(course.getId(), course.getCode());
+            });
         }
+        courseId = courseKeyIndex.resolve(key, codes);
+        return courseId == null ? Optional.empty() : Optional.of(matches.get(courseId));
+    }
+
+    /**
+     * 只解析课程 id（占座、退座、人数增量使用）：索引命中时不查库（由座位的条件更新校验 key），否则只查 [id, code]
+     */
+    private String resolveCourseId(String idOrCode) {
+        if (idOrCode == null) {
+            throw new ResourceNotFoundException("Course not found with id: " + idOrCode);
+        }
+        String key = idOrCode.trim();
+        String courseId = courseKeyIndex.resolve(key);
+        if (courseId == null) {
+            Map<String, String> codes = new HashMap<>();
+            for (Object[] row : courseRepository.findKeysByIdOrCode(key)) {
+                codes.put((String) row[0], (String) row[1]);
+            }
+            courseId = courseKeyIndex.resolve(key, codes);
+        }
+        if (courseId == null) {
+            throw new ResourceNotFoundException("Course not found with id or code: " + idOrCode);
+        }
+        return courseId;
+    }
+
+    // 新代码不能与已有课程的代码或 id 相同，否则按 key 查询会有歧义
+    private boolean codeTaken(String code) {
+        return code != null && !courseRepository.findKeysByIdOrCode(code.trim()).isEmpty();
     }
 }
@@ -0,0 +1,417 @@
+package com.zjsu.course.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.model.CourseSeats;
+import com.zjsu.course.model.OpenCoursePage;
+import com.zjsu.course.repository.CourseJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 有余量课程的物化视图：内存中维护全部课程的 [capacity, enrolled]，以及 capacity > enrolled 的课程集合（按 id 排序），
+ * 分页接口直接读内存，不再扫描 courses 表。
+ * <p>
+ * 变更来源：内存计数器与 CourseService 的实体写入直接给出最新值；原生 UPDATE 修改的座位数与其他实例的变更
+ * 经 CourseCacheInvalidator 标记课程 id 后按批从数据库读取。变更先合并，由 publish 定期应用到视图，
+ * 与旧值比较后把实际变化的课程作为一条 SSE 事件推送给所有订阅者（JSON 只序列化一次）。
+ * 事件只放入每个订阅者的发送队列，由固定大小的发送线程池在视图锁之外写出，慢客户端不会阻塞 publish 与调度线程；
+ * 积压超过 subscriber-buffer 条的订阅者直接断开，由客户端带 Last-Event-ID 重连补发。
+ * 每条事件带递增的版本号，事件 id 为 epoch:version，epoch 在每个实例启动时随机生成（版本号只在本实例内有意义）；
+ * 最近的事件保留在内存中，断线重连的客户端按 Last-Event-ID 补发。epoch 不一致（重启或连到了其他实例）、
+ * 版本号超出本实例的版本或超出保留范围时发送 reset 事件，客户端应重新分页拉取。
+ */
+@Component
+public class OpenCourseView {
+
+    private static final Logger log = LoggerFactory.getLogger(OpenCourseView.class);
+
+    private static final int MAX_REFRESH_BATCH = 1000;
+
+    private final CourseJpaRepository courseRepository;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMillis;
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final ExecutorService sender;
+    private final Counter dropped;
+
+    private final Map<String, CourseSeats> seats = new HashMap<>();
+    private final ConcurrentSkipListMap<String, CourseSeats> open = new ConcurrentSkipListMap<>();
+    private final Map<String, CourseSeats> pendingValues = new ConcurrentHashMap<>();
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+    private final Deque<SeatEvent> recentEvents = new ArrayDeque<>();
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+
+    private volatile long version;
+
+    public OpenCourseView(CourseJpaRepository courseRepository,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry,
+                          @Value("${catalog.open-courses.emitter-timeout:30m}") Duration emitterTimeout,
+                          @Value("${catalog.open-courses.replay-size:1000}") int replaySize,
+                          @Value("${catalog.open-courses.subscriber-buffer:64}") int subscriberBuffer,
+                          @Value("${catalog.open-courses.sender-threads:4}") int senderThreads) {
+        this.courseRepository = courseRepository;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "open-course-sse-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dropped = Counter.builder("catalog.open_courses.dropped")
+                .description("Subscribers disconnected because their send queue overflowed")
+                .register(meterRegistry);
+        Gauge.builder("catalog.open_courses.subscribers", subscribers, Set::size)
+                .description("Clients subscribed to the open-course seat stream")
+                .register(meterRegistry);
+        Gauge.builder("catalog.open_courses.size", open, Map::size)
+                .description("Courses with available seats")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        // 启动时还没有订阅者，全量加载不生成推送事件
+        apply(loadAll(), false);
+        log.info("Open course view loaded {} courses, {} open", seats.size(), open.size());
+    }
+
+    /**
+     * 从数据库重新加载全部课程；与旧视图的差异作为一条事件推送
+     */
+    public synchronized void reload() {
+        apply(loadAll(), true);
+    }
+
+    /**
+     * 课程的最新座位数（内存计数器或实体写入后调用），在下一次 publish 时生效
+     */
+    public void update(String courseId, String code, Integer capacity, Integer enrolled) {
+        pendingValues.put(courseId, new CourseSeats(courseId, code, capacity, enrolled));
+    }
+
+    public void remove(String courseId) {
+        pendingValues.put(courseId, CourseSeats.deleted(courseId));
+    }
+
+    /**
+     * 标记课程的座位数已在数据库中变化，在下一次 publish 时按 id 重新读取
+     */
+    public void markChanged(Collection<String> courseIds) {
+        pendingIds.addAll(courseIds);
+    }
+
+    /**
+     * 应用合并后的变更并推送；间隔即推送的额外延迟
+     */
+    @Scheduled(fixedDelayString = "${catalog.open-courses.publish-interval-ms:200}")
+    public synchronized void publish() {
+        if (pendingIds.isEmpty() && pendingValues.isEmpty()) {
+            return;
+        }
+        Map<String, CourseSeats> changes = new LinkedHashMap<>();
+        while (!pendingIds.isEmpty()) {
+            List<String> ids = new ArrayList<>();
+            Iterator<String> it = pendingIds.iterator();
+            while (it.hasNext() && ids.size() < MAX_REFRESH_BATCH) {
+                ids.add(it.next());
+                it.remove();
+            }
+            Set<String> missing = new HashSet<>(ids);
+            for (Object[] row : courseRepository.findSeatsByIdIn(ids)) {
+                CourseSeats value = seatsOf(row);
+                missing.remove(value.getCourseId());
+                changes.put(value.getCourseId(), value);
+            }
+            missing.forEach(courseId -> changes.put(courseId, CourseSeats.deleted(courseId)));
+        }
+        // 直接给出的值比数据库读到的更新（内存计数器模式下数据库中的人数可能尚未写回）
+        for (String courseId : new ArrayList<>(pendingValues.keySet())) {
+            CourseSeats value = pendingValues.remove(courseId);
+            if (value != null) {
+                changes.put(courseId, value);
+            }
+        }
+        apply(changes.values(), true);
+    }
+
+    /**
+     * 按 id 升序分页读取有余量的课程。先读版本号再读集合：读取期间应用的变更版本号更大，
+     * 订阅时会再次收到（变更条目是绝对值，重复应用无害）
+     */
+    public OpenCoursePage page(String after, Integer limit) {
+        long pageVersion = version;
+        int size = CursorPage.normalizeLimit(limit);
+        String afterId = CursorPage.decodeCursor(after);
+        Map<String, CourseSeats> tail = afterId == null ? open : open.tailMap(afterId, false);
+        List<CourseSeats> rows = new ArrayList<>(size + 1);
+        for (CourseSeats value : tail.values()) {
+            rows.add(value);
+            if (rows.size() > size) {
+                break;
+            }
+        }
+        return new OpenCoursePage(CursorPage.of(rows, size, CourseSeats::getCourseId), epoch, pageVersion);
+    }
+
+    /**
+     * 订阅座位变更：since（或 Last-Event-ID）为客户端已知的事件 id（epoch:version），先补发其后的事件；
+     * 不传时从当前版本开始，只推送之后的变更。只有版本号、没有 epoch 的旧格式仍按本实例的版本处理
+     */
+    public synchronized SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        String known = lastEventId == null ? "" : lastEventId.trim();
+        Long since = known.isEmpty() ? null : sinceOf(known);
+        // 补发与之后的推送在同一把锁下按版本顺序进入发送队列（补发最多 replay-size 条，不计入积压上限）
+        if (!known.isEmpty() && (since == null || since > version)) {
+            // 其他实例或本实例重启前的事件 id，版本号不可比较
+            subscriber.enqueue(resetEvent());
+        } else if (since != null && since < version) {
+            SeatEvent oldest = recentEvents.peekFirst();
+            if (oldest == null || oldest.version > since + 1) {
+                subscriber.enqueue(resetEvent());
+            } else {
+                for (SeatEvent event : recentEvents) {
+                    if (event.version > since) {
+                        subscriber.enqueue(event);
+                    }
+                }
+            }
+        }
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    /**
+     * 定期发送注释行，防止空闲连接被代理或负载均衡器关闭，同时清理已断开的订阅；
+     * 发送队列非空的订阅者本来就有数据要写，不再追加
+     */
+    @Scheduled(fixedDelayString = "${catalog.open-courses.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.get() == 0) {
+                subscriber.enqueue(SeatEvent.KEEP_ALIVE);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * 事件 id 中属于本实例的版本号；epoch 不一致或无法解析时返回 null
+     */
+    private Long sinceOf(String lastEventId) {
+        int separator = lastEventId.indexOf(':');
+        if (separator >= 0 && !epoch.equals(lastEventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.valueOf(lastEventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private SeatEvent resetEvent() {
+        return new SeatEvent("reset", version, "{\"epoch\":\"" + epoch + "\",\"version\":" + version + "}");
+    }
+
+    private String eventId(long eventVersion) {
+        return epoch + ":" + eventVersion;
+    }
+
+    private Collection<CourseSeats> loadAll() {
+        Map<String, CourseSeats> loaded = new HashMap<>();
+        for (Object[] row : courseRepository.findAllSeats()) {
+            CourseSeats value = seatsOf(row);
+            loaded.put(value.getCourseId(), value);
+        }
+        for (String courseId : new ArrayList<>(seats.keySet())) {
+            loaded.putIfAbsent(courseId, CourseSeats.deleted(courseId));
+        }
+        return loaded.values();
+    }
+
+    private void apply(Collection<CourseSeats> changes, boolean notify) {
+        List<CourseSeats> updates = new ArrayList<>();
+        for (CourseSeats value : changes) {
+            CourseSeats previous = value.isDeleted() ? seats.remove(value.getCourseId()) : seats.put(value.getCourseId(), value);
+            if (value.isDeleted() ? previous == null : value.equals(previous)) {
+                continue;
+            }
+            if (value.isOpen()) {
+                open.put(value.getCourseId(), value);
+            } else {
+                open.remove(value.getCourseId());
+            }
+            updates.add(value);
+        }
+        if (updates.isEmpty() || !notify) {
+            return;
+        }
+        long next = version + 1;
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("version", next);
+        payload.put("updates", updates);
+        SeatEvent event;
+        try {
+            event = new SeatEvent("seats", next, objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize seat updates", e);
+        }
+        version = next;
+        recentEvents.addLast(event);
+        while (recentEvents.size() > replaySize) {
+            recentEvents.removeFirst();
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.pending.get() >= subscriberBuffer) {
+                // 跟不上推送的客户端：断开后由客户端带 Last-Event-ID 重连，从补发缓冲或 reset 恢复
+                dropped.increment();
+                subscriber.close();
+            } else {
+                subscriber.enqueue(event);
+            }
+        }
+    }
+
+    private static CourseSeats seatsOf(Object[] row) {
+        return new CourseSeats((String) row[0], (String) row[1], (Integer) row[2], (Integer) row[3]);
+    }
+
+    private static final class SeatEvent {
+        static final SeatEvent KEEP_ALIVE = new SeatEvent(null, 0, null);
+        static final SeatEvent CLOSE = new SeatEvent(null, 0, null);
+
+        final String name;
+        final long version;
+        final String json;
+
+        SeatEvent(String name, long version, String json) {
+            this.name = name;
+            this.version = version;
+            this.json = json;
+        }
+    }
+
+    /**
+     * 订阅者的发送队列：同一时刻最多一个发送任务在写出，保证事件按入队顺序到达
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Queue<SeatEvent> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void enqueue(SeatEvent event) {
+            queue.add(event);
+            pending.incrementAndGet();
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                SeatEvent event;
+                while ((event = queue.poll()) != null) {
+                    pending.decrementAndGet();
+                    if (event == SeatEvent.CLOSE) {
+                        queue.clear();
+                        emitter.complete();
+                        return;
+                    } else if (event == SeatEvent.KEEP_ALIVE) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(event.name).id(eventId(event.version))
+                                .data(event.json, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(this);
+                queue.clear();
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // 写出最后一条与清除标记之间入队的事件
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        /**
+         * 丢弃积压的事件并在发送线程上结束连接（emitter 的 send 与 complete 互斥，不能在视图锁内等待慢客户端）
+         */
+        void close() {
+            subscribers.remove(this);
+            queue.clear();
+            enqueue(SeatEvent.CLOSE);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.zjsu.course.service;
+
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.exception.ServiceUnavailableException;
+import com.zjsu.course.model.Course;
+import com.zjsu.course.repository.AppliedSeatDeltaJpaRepository;
+import com.zjsu.course.repository.CourseJpaRepository;
+import com.zjsu.course.search.CourseSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 内存占座计数器：热门课程的占座/退座在内存中以 CAS 完成，
+ * 再由后台 write-behind 任务批量把最新 enrolled 写回 courses 表。
+ * <p>
+ * 计数器按课程 id 存放在 ConcurrentHashMap 中（按桶分段，课程之间互不竞争），
+ * 单门课程使用 AtomicInteger 而不是 LongAdder，因为占座需要"比较容量后再加一"的原子操作。
+ * 写回的是绝对值而不是增量，重复写回是幂等的。
+ * <p>
+ * 计数器只在本进程内有效，多副本部署 catalog-service 时必须关闭（catalog.seat-engine.enabled=false）。
+ * <p>
+ * 写回最多滞后一个 flush 间隔，进程崩溃时尚未写回的占座会丢失，courses 表中的 enrolled 偏小。
+ * 因此启动时先按 courses 表加载，再向 enrollment-service 取选课记录数对账（/actuator/seatcounts），
+ * 对账完成前拒绝占座、退座与人数增量（返回 503，调用方重试）。对账后仍可能遗漏的只有崩溃时正在进行、
+ * 对账之后才提交的选课（每门课程最多为崩溃时的并发选课数）。
+ * 关闭对账（catalog.seat-engine.reconcile.enabled=false）时以 courses 表为准，崩溃前最后一个 flush 间隔内的占座会被重复售出。
+ */
+@Component
+public class SeatCounterEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatCounterEngine.class);
+
+    private final ConcurrentHashMap<String, SeatCounter> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    private CourseJpaRepository courseRepository;
+
+    @Autowired
+    private AppliedSeatDeltaJpaRepository appliedSeatDeltaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private CourseSearchIndex courseSearchIndex;
+
+    @Autowired
+    private OpenCourseView openCourseView;
+
+    @Value("${catalog.seat-engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${catalog.seat-engine.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${catalog.seat-engine.reconcile.enabled:true}")
+    private boolean reconcileEnabled;
+
+    @Value("${catalog.seat-engine.reconcile.service:enrollment-service}")
+    private String reconcileService;
+
+    @Value("${catalog.seat-engine.reconcile.timeout:2s}")
+    private Duration reconcileTimeout;
+
+    private RestTemplate restTemplate;
+
+    /** 计数器已从 courses 表加载 */
+    private volatile boolean loaded;
+
+    /** 已与选课记录对账，此后才接受占座与退座 */
+    private volatile boolean reconciled;
+
+    /** 正在写回（已移出 dirty、尚未写入数据库） */
+    private volatile boolean flushing;
+
+    @PostConstruct
+    public void init() {
+        restTemplate = restTemplateBuilder.setConnectTimeout(reconcileTimeout).setReadTimeout(reconcileTimeout).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 启动时先以 courses 表加载全部计数器（容量与上次写回的人数），再与选课记录对账
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        for (Course course : courseRepository.findAll()) {
+            register(course);
+        }
+        loaded = true;
+        log.info("Seat counter engine loaded {} courses", counters.size());
+        if (!reconcileEnabled) {
+            reconciled = true;
+            return;
+        }
+        reconcile();
+    }
+
+    /**
+     * 对账失败（enrollment-service 尚未启动等）时定期重试，直到成功
+     */
+    @Scheduled(fixedDelayString = "${catalog.seat-engine.reconcile.retry-interval-ms:2000}")
+    public void reconcileIfPending() {
+        if (enabled && loaded && !reconciled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * 对账完成前拒绝改变人数的请求（人数增量在事务开始前检查，未应用的增量由 outbox 重投）
+     */
+    public void ensureReconciled() {
+        if (enabled && !reconciled) {
+            throw new ServiceUnavailableException("Seat counters are being reconciled, retry later");
+        }
+    }
+
+    /**
+     * 以 enrollment-service 的选课记录为准重建已选人数：
+     * 课程人数 = 已占座的记录数 - outbox 中 catalog 尚未应用的增量（这些增量之后仍会投递过来）。
+     * 记录中的课程可能是课程代码，按已加载的计数器解析为 id
+     */
+    private synchronized void reconcile() {
+        if (reconciled) {
+            return;
+        }
+        Map<String, Object> snapshot = fetchSeatCounts();
+        if (snapshot == null) {
+            return;
+        }
+        Map<String, String> idsByKey = new HashMap<>();
+        for (SeatCounter counter : counters.values()) {
+            if (counter.code != null) {
+                idsByKey.putIfAbsent(counter.code, counter.courseId);
+            }
+            idsByKey.put(counter.courseId, counter.courseId);
+        }
+        Map<String, Integer> expected = new HashMap<>();
+        Map<?, ?> enrolled = (Map<?, ?>) snapshot.get("enrolled");
+        if (enrolled != null) {
+            for (Map.Entry<?, ?> entry : enrolled.entrySet()) {
+                String courseId = idsByKey.get(String.valueOf(entry.getKey()));
+                if (courseId != null) {
+                    expected.merge(courseId, ((Number) entry.getValue()).intValue(), Integer::sum);
+                }
+            }
+        }
+        List<?> pending = (List<?>) snapshot.get("pending");
+        if (pending != null && !pending.isEmpty()) {
+            Set<String> keys = new HashSet<>();
+            for (Object item : pending) {
+                Object key = ((Map<?, ?>) item).get("key");
+                if (key != null) {
+                    keys.add((String) key);
+                }
+            }
+            Set<String> applied = new HashSet<>();
+            appliedSeatDeltaRepository.findAllById(keys).forEach(d -> applied.add(d.getKey()));
+            for (Object item : pending) {
+                Map<?, ?> delta = (Map<?, ?>) item;
+                String courseId = idsByKey.get(String.valueOf(delta.get("courseId")));
+                if (courseId != null && !applied.contains(delta.get("key"))) {
+                    expected.merge(courseId, -((Number) delta.get("delta")).intValue(), Integer::sum);
+                }
+            }
+        }
+        int corrected = 0;
+        for (SeatCounter counter : counters.values()) {
+            int value = Math.max(0, expected.getOrDefault(counter.courseId, 0));
+            int previous = counter.enrolled.getAndSet(value);
+            if (previous != value) {
+                corrected++;
+                log.warn("Seat counter of course {} reconciled from {} to {}", counter.courseId, previous, value);
+                dirty.add(counter.courseId);
+                changed(counter);
+            }
+        }
+        reconciled = true;
+        log.info("Seat counter engine reconciled {} courses against enrollments, {} corrected", counters.size(), corrected);
+    }
+
+    /**
+     * 从任一 enrollment-service 实例读取选课记录数快照，失败返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fetchSeatCounts() {
+        List<ServiceInstance> instances;
+        try {
+            instances = discoveryClient.getInstances(reconcileService);
+        } catch (Exception e) {
+            log.warn("Seat counter reconciliation deferred, failed to look up {}: {}", reconcileService, e.getMessage());
+            return null;
+        }
+        if (instances == null || instances.isEmpty()) {
+            log.warn("Seat counter reconciliation deferred, no {} instance available", reconcileService);
+            return null;
+        }
+        for (ServiceInstance instance : instances) {
+            try {
+                return restTemplate.getForObject(instance.getUri() + "/actuator/seatcounts", Map.class);
+            } catch (Exception e) {
+                log.warn("Failed to read seat counts from {}: {}", instance.getUri(), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    public void register(Course course) {
+        if (!enabled || course.getId() == null) {
+            return;
+        }
+        SeatCounter counter = new SeatCounter(course.getId(), course.getCode(),
+                valueOrZero(course.getCapacity()), valueOrZero(course.getEnrolled()));
+        counters.put(course.getId(), counter);
+        changed(counter);
+    }
+
+    public void remove(String courseId) {
+        counters.remove(courseId);
+        dirty.remove(courseId);
+    }
+
+    /**
+     * key 是否仍是该课程的 id 或代码（CourseKeyIndex 可能已过期）；课程不存在时返回 false
+     */
+    public boolean matches(String courseId, String key) {
+        SeatCounter counter = counters.get(courseId);
+        if (counter != null) {
+            return key.equals(counter.courseId) || key.equals(counter.code);
+        }
+        return courseRepository.findById(courseId)
+                .map(course -> key.equals(course.getId()) || key.equals(course.getCode()))
+                .orElse(false);
+    }
+
+    /**
+     * O(1) 占座：一次占 count 个座位。partial 为 true 时余量不足则尽量多占，
+     * 否则余量不足直接返回 0。返回实际占到的座位数。
+     */
+    public int tryReserve(String courseId, int count, boolean partial) {
+        ensureReconciled();
+        SeatCounter counter = counter(courseId);
+        while (true) {
+            int current = counter.enrolled.get();
+            int available = counter.capacity.get() - current;
+            int granted = partial ? Math.min(count, available) : (available >= count ? count : 0);
+            if (granted <= 0) {
+                return 0;
+            }
+            if (counter.enrolled.compareAndSet(current, current + granted)) {
+                dirty.add(courseId);
+                changed(counter);
+                return granted;
+            }
+        }
+    }
+
+    public void release(String courseId, int count) {
+        ensureReconciled();
+        SeatCounter counter = counter(courseId);
+        while (true) {
+            int current = counter.enrolled.get();
+            if (current <= 0) {
+                return;
+            }
+            if (counter.enrolled.compareAndSet(current, Math.max(0, current - count))) {
+                dirty.add(courseId);
+                changed(counter);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按增量修正人数（不校验容量，结果不小于 0）
+     */
+    public void adjust(String courseId, int delta) {
+        SeatCounter counter = counter(courseId);
+        while (true) {
+            int current = counter.enrolled.get();
+            if (counter.enrolled.compareAndSet(current, Math.max(0, current + delta))) {
+                dirty.add(courseId);
+                changed(counter);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 课程被更新后同步计数器；只有显式修改了 enrolled 时才覆盖内存人数
+     */
+    public void sync(Course course, boolean enrolledChanged) {
+        if (!enabled) {
+            return;
+        }
+        SeatCounter counter = counters.get(course.getId());
+        if (counter == null) {
+            register(course);
+            return;
+        }
+        counter.capacity.set(valueOrZero(course.getCapacity()));
+        if (enrolledChanged) {
+            counter.enrolled.set(valueOrZero(course.getEnrolled()));
+        }
+        counter.code = course.getCode();
+        // 整行保存可能写入了旧的 enrolled，标记后由下一轮写回以内存值为准
+        dirty.add(course.getId());
+        changed(counter);
+    }
+
+    /**
+     * 用内存中的最新人数覆盖实体上（可能尚未写回）的 enrolled
+     */
+    public void applyTo(Course course) {
+        if (!enabled || course == null || course.getId() == null) {
+            return;
+        }
+        SeatCounter counter = counters.get(course.getId());
+        if (counter != null) {
+            course.setEnrolled(counter.enrolled.get());
+        }
+    }
+
+    /**
+     * 计数器状态；pending 为尚未写回数据库的课程数（含正在写回的一批）
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("reconciled", !enabled || reconciled);
+        result.put("counters", counters.size());
+        result.put("pending", dirty.size() + (flushing ? 1 : 0));
+        return result;
+    }
+
+    /**
+     * 直接从 courses 表读取已写回的座位数（不经过计数器与二级缓存），课程不存在时返回 null
+     */
+    public Map<String, Object> persistedSeats(String courseId) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, code, capacity, enrolled FROM courses WHERE id = ?", courseId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> row = rows.get(0);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("courseId", row.get("id"));
+        result.put("code", row.get("code"));
+        result.put("capacity", row.get("capacity"));
+        result.put("enrolled", row.get("enrolled"));
+        return result;
+    }
+
+    public Map<String, Object> seats(String courseId) {
+        SeatCounter counter = counter(courseId);
+        int capacity = counter.capacity.get();
+        int enrolled = counter.enrolled.get();
+        Map<String, Object> result = new HashMap<>();
+        result.put("courseId", counter.courseId);
+        result.put("code", counter.code);
+        result.put("capacity", capacity);
+        result.put("enrolled", enrolled);
+        result.put("available", Math.max(0, capacity - enrolled));
+        return result;
+    }
+
+    /**
+     * write-behind：定期把有变更的课程 enrolled 批量写回数据库
+     */
+    @Scheduled(fixedDelayString = "${catalog.seat-engine.flush-interval-ms:500}")
+    public void flush() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        flushing = true;
+        try {
+            flushDirty();
+        } finally {
+            flushing = false;
+        }
+    }
+
+    private void flushDirty() {
+        List<String> ids = new ArrayList<>();
+        List<Object[]> args = new ArrayList<>();
+        Iterator<String> it = dirty.iterator();
+        while (it.hasNext() && ids.size() < flushBatchSize) {
+            String courseId = it.next();
+            it.remove();
+            SeatCounter counter = counters.get(courseId);
+            if (counter == null) {
+                continue;
+            }
+            ids.add(courseId);
+            args.add(new Object[]{counter.enrolled.get(), courseId});
+        }
+        if (args.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE courses SET enrolled = ? WHERE id = ?", args);
+            // 搜索索引的“有余量”分面随写回同步
+            for (Object[] arg : args) {
+                courseSearchIndex.updateSeats((String) arg[1], (Integer) arg[0]);
+            }
+        } catch (RuntimeException e) {
+            // 写回失败则重新标记为脏数据，下一轮重试
+            dirty.addAll(ids);
+            log.warn("Failed to flush {} seat counters: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        while (enabled && !dirty.isEmpty()) {
+            int before = dirty.size();
+            flush();
+            if (dirty.size() >= before) {
+                return;
+            }
+        }
+    }
+
+    private SeatCounter counter(String courseId) {
+        SeatCounter counter = counters.get(courseId);
+        if (counter != null) {
+            return counter;
+        }
+        // 启动后新建或由其他途径写入的课程：首次访问时从数据库加载（并发加载时以先放入的为准）
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new ResourceNotFoundException("Course not found with id: " + courseId));
+        SeatCounter loaded = new SeatCounter(course.getId(), course.getCode(),
+                valueOrZero(course.getCapacity()), valueOrZero(course.getEnrolled()));
+        SeatCounter existing = counters.putIfAbsent(courseId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    // 余量视图只记录最新值，由其定期合并推送
+    private void changed(SeatCounter counter) {
+        openCourseView.update(counter.courseId, counter.code, counter.capacity.get(), counter.enrolled.get());
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private static final class SeatCounter {
+        private final String courseId;
+        private volatile String code;
+        private final AtomicInteger capacity;
+        private final AtomicInteger enrolled;
+
+        private SeatCounter(String courseId, String code, int capacity, int enrolled) {
+            this.courseId = courseId;
+            this.code = code;
+            this.capacity = new AtomicInteger(capacity);
+            this.enrolled = new AtomicInteger(enrolled);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.zjsu.course.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/seatengine：内存占座计数器状态（是否已对账、尚未写回的课程数）；
+ * /actuator/seatengine/{courseId} 返回 courses 表中已写回的座位数（课程不存在时 404），供压测核对写回结果
+ */
+@Component
+@Endpoint(id = "seatengine")
+public class SeatEngineEndpoint {
+
+    private final SeatCounterEngine seatCounterEngine;
+
+    public SeatEngineEndpoint(SeatCounterEngine seatCounterEngine) {
+        this.seatCounterEngine = seatCounterEngine;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return seatCounterEngine.stats();
+    }
+
+    @ReadOperation
+    public Map<String, Object> persisted(@Selector String courseId) {
+        return seatCounterEngine.persistedSeats(courseId);
+    }
+}
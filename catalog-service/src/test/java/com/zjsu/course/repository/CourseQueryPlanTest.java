@@ -0,0 +1,97 @@
+package com.zjsu.course.repository;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 查询计划回归：在 MySQL 兼容模式的 H2 上按 db/schema.sql 建表，执行 CourseJpaRepository 的每个派生查询与按键查询，
+ * 对 Hibernate 实际发出的 SQL 执行 EXPLAIN，计划出现全表扫描（tableScan）即失败。
+ * 二级缓存与查询缓存关闭，保证每次调用都发出 SQL。新增查询需在 queries() 中登记，否则 everyQueryIsCovered 失败；
+ * 本来就读取全表的查询（加载、导出、流式读取）登记在 FULL_SCANS 中
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:catalog_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema.sql",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.zjsu.course.repository.QueryPlanInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CourseQueryPlanTest {
+
+    private static final List<String> IDS = Arrays.asList("a", "b");
+
+    // 按设计读取全表的查询：索引加载、余量视图加载、时段导出、NDJSON 流式导出
+    private static final Set<String> FULL_SCANS = new HashSet<>(Arrays.asList(
+            "CourseJpaRepository.findAllKeys",
+            "CourseJpaRepository.findAllSeats",
+            "CourseJpaRepository.findScheduleSlots",
+            "CourseJpaRepository.streamAll"));
+
+    @Autowired
+    private CourseJpaRepository courseRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Map<String, Runnable> queries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("CourseJpaRepository.findByCodeIn", () -> courseRepository.findByCodeIn(Arrays.asList("CS101", "MATH201")));
+        queries.put("CourseJpaRepository.findAllByOrderByIdAsc",
+                () -> courseRepository.findAllByOrderByIdAsc(PageRequest.of(0, 10)));
+        queries.put("CourseJpaRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> courseRepository.findByIdGreaterThanOrderByIdAsc("a", PageRequest.of(0, 10)));
+        queries.put("CourseJpaRepository.findByInstructorId", () -> courseRepository.findByInstructorId("T001"));
+        queries.put("CourseJpaRepository.findKeysByIdOrCode", () -> courseRepository.findKeysByIdOrCode("a"));
+        queries.put("CourseJpaRepository.findKeysByIdIn", () -> courseRepository.findKeysByIdIn(IDS));
+        queries.put("CourseJpaRepository.findSeatsByIdIn", () -> courseRepository.findSeatsByIdIn(IDS));
+        queries.put("CourseJpaRepository.countByIdAndKey", () -> courseRepository.countByIdAndKey("a", "CS101"));
+        queries.put("CourseJpaRepository.findCapacityById", () -> courseRepository.findCapacityById("a"));
+        queries.put("CourseJpaRepository.findEnrolledById", () -> courseRepository.findEnrolledById("a"));
+        queries.put("CourseJpaRepository.reserveSeats", () -> courseRepository.reserveSeats("a", "CS101", 1));
+        queries.put("CourseJpaRepository.releaseSeats", () -> courseRepository.releaseSeats("a", "CS101", 1));
+        queries.put("CourseJpaRepository.adjustEnrolled", () -> courseRepository.adjustEnrolled("a", "CS101", 1));
+        return queries;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queriesUseIndexes() {
+        return queries().entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            QueryPlanInspector.clear();
+            query.getValue().run();
+            List<String> statements = QueryPlanInspector.statements();
+            assertThat(statements).as("SQL issued by %s", query.getKey()).isNotEmpty();
+            for (String sql : statements) {
+                String plan = QueryPlanInspector.explain(dataSource, sql);
+                assertThat(plan).as("plan of %s: %s", query.getKey(), sql).doesNotContain("tableScan");
+            }
+        }));
+    }
+
+    @Test
+    void everyQueryIsCovered() {
+        Map<String, Runnable> queries = queries();
+        Arrays.stream(CourseJpaRepository.class.getDeclaredMethods())
+                .map(method -> "CourseJpaRepository." + method.getName())
+                .filter(name -> !FULL_SCANS.contains(name))
+                .forEach(name -> assertThat(queries).as("query plan check for %s", name).containsKey(name));
+    }
+}
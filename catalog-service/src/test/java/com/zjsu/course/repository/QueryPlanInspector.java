@@ -0,0 +1,74 @@
+package com.zjsu.course.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 记录 Hibernate 发出的 SQL（hibernate.session_factory.statement_inspector），
+ * 供查询计划测试对同一条 SQL 执行 EXPLAIN
+ */
+public class QueryPlanInspector implements StatementInspector {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS);
+    }
+
+    /**
+     * EXPLAIN 一条带 ? 占位符的 SQL，参数按推断出的类型绑定任意值（H2 的计划不依赖参数值）
+     */
+    public static String explain(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                bind(statement, i, parameters.getParameterType(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int index, int type) throws SQLException {
+        switch (type) {
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                statement.setInt(index, 1);
+                break;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+                statement.setTimestamp(index, new java.sql.Timestamp(0));
+                break;
+            default:
+                statement.setString(index, "1");
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.zjsu.course.cache;
+
+import com.zjsu.course.service.StudentEnrollmentProjection;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * /actuator/coursechanges：catalog-service 的课程变更通知，POST {"ids": "id1,id2"} 失效课程查询缓存，
+ * 并在选课投影中重新同步这些课程的摘要；GET 查看投影缓存统计
+ */
+@Component
+@Endpoint(id = "coursechanges")
+public class CourseChangeEndpoint {
+
+    private final StudentEnrollmentProjection projection;
+
+    public CourseChangeEndpoint(StudentEnrollmentProjection projection) {
+        this.projection = projection;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return projection.stats();
+    }
+
+    @WriteOperation
+    public void courseChanged(@Nullable String ids) {
+        // actuator 的请求体按 Map<String, String> 绑定，课程 id 以逗号分隔传入
+        if (ids != null && !ids.isEmpty()) {
+            projection.courseChanged(Arrays.asList(ids.split(",")));
+        }
+    }
+}
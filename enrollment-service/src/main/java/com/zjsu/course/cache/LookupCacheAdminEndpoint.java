@@ -0,0 +1,25 @@
+package com.zjsu.course.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.jmx.annotation.JmxEndpoint;
+import org.springframework.stereotype.Component;
+
+/**
+ * 清空全部查询缓存：只经 JMX 暴露（spring.jmx.enabled=true），不在没有鉴权的 actuator HTTP 端口上开放，
+ * 避免任何能访问端口的调用方在高峰期清空学生/课程缓存
+ */
+@Component
+@JmxEndpoint(id = "lookupcacheadmin")
+public class LookupCacheAdminEndpoint {
+
+    private final RemoteLookupCache lookupCache;
+
+    public LookupCacheAdminEndpoint(RemoteLookupCache lookupCache) {
+        this.lookupCache = lookupCache;
+    }
+
+    @DeleteOperation
+    public void invalidateAll() {
+        lookupCache.invalidateAll();
+    }
+}
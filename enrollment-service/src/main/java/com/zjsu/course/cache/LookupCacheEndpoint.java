@@ -0,0 +1,26 @@
+package com.zjsu.course.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/lookupcache：查看缓存命中统计（只读；清空缓存见 LookupCacheAdminEndpoint，只经 JMX 暴露）
+ */
+@Component
+@Endpoint(id = "lookupcache")
+public class LookupCacheEndpoint {
+
+    private final RemoteLookupCache lookupCache;
+
+    public LookupCacheEndpoint(RemoteLookupCache lookupCache) {
+        this.lookupCache = lookupCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return lookupCache.stats();
+    }
+}
@@ -0,0 +1,216 @@
+package com.zjsu.course.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 远程查询结果缓存：学生/课程存在性（含 404 负缓存）与服务发现实例列表。
+ * 按容量与 TTL 淘汰，命中/未命中/淘汰计数通过 actuator metrics 暴露。
+ * 学生缓存为异步缓存：同一学生的并发查询共享同一个进行中的远程调用，失败的调用不会被缓存。
+ * 批量加载按 LOOKUP_BATCH_SIZE 分批调用远程批量接口（user-service / catalog-service 单次最多接受 1000 个 key）。
+ */
+@Component
+public class RemoteLookupCache {
+
+    static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final AsyncCache<String, Optional<Map<String, Object>>> students;
+    private final Cache<String, Optional<Map<String, Object>>> courses;
+    private final Cache<String, Map<String, Object>> courseSnapshots;
+    private final Cache<String, List<ServiceInstance>> instances;
+
+    public RemoteLookupCache(MeterRegistry meterRegistry,
+                             @Value("${enrollment.cache.student.max-size:10000}") long studentMaxSize,
+                             @Value("${enrollment.cache.student.ttl:60s}") Duration studentTtl,
+                             @Value("${enrollment.cache.student.negative-ttl:10s}") Duration studentNegativeTtl,
+                             @Value("${enrollment.cache.course.max-size:5000}") long courseMaxSize,
+                             @Value("${enrollment.cache.course.ttl:30s}") Duration courseTtl,
+                             @Value("${enrollment.cache.course.negative-ttl:10s}") Duration courseNegativeTtl,
+                             @Value("${enrollment.cache.course.snapshot-ttl:24h}") Duration courseSnapshotTtl,
+                             @Value("${enrollment.cache.discovery-ttl:5s}") Duration discoveryTtl) {
+        this.students = Caffeine.newBuilder()
+                .maximumSize(studentMaxSize)
+                .expireAfter(new LookupExpiry(studentTtl, studentNegativeTtl))
+                .recordStats()
+                .buildAsync();
+        this.courses = Caffeine.newBuilder()
+                .maximumSize(courseMaxSize)
+                .expireAfter(new LookupExpiry(courseTtl, courseNegativeTtl))
+                .recordStats()
+                .build();
+        this.courseSnapshots = Caffeine.newBuilder()
+                .maximumSize(courseMaxSize)
+                .expireAfterWrite(courseSnapshotTtl)
+                .build();
+        this.instances = Caffeine.newBuilder()
+                .maximumSize(64)
+                .expireAfterWrite(discoveryTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, students.synchronous(), "enrollment.students");
+        CaffeineCacheMetrics.monitor(meterRegistry, courses, "enrollment.courses");
+        CaffeineCacheMetrics.monitor(meterRegistry, instances, "enrollment.discovery");
+    }
+
+    /**
+     * 查询学生；loader 返回 null 表示 404，结果按负缓存 TTL 保存。loader 抛出的异常不会被缓存。
+     */
+    public Optional<Map<String, Object>> student(String studentId, Function<String, Map<String, Object>> loader) {
+        return students.synchronous().get(studentId, key -> Optional.ofNullable(loader.apply(key)));
+    }
+
+    /**
+     * 异步查询学生：命中缓存时直接返回已完成的 future，否则由 loader 发起非阻塞远程调用
+     */
+    public CompletableFuture<Optional<Map<String, Object>>> studentAsync(
+            String studentId, Function<String, CompletableFuture<Map<String, Object>>> loader) {
+        return students.get(studentId, (key, executor) -> loader.apply(key).thenApply(Optional::ofNullable));
+    }
+
+    public Optional<Map<String, Object>> course(String courseId, Function<String, Map<String, Object>> loader) {
+        return courses.get(courseId, key -> {
+            Optional<Map<String, Object>> course = Optional.ofNullable(loader.apply(key));
+            course.ifPresent(value -> courseSnapshots.put(key, value));
+            return course;
+        });
+    }
+
+    /**
+     * 批量查询学生：命中缓存的直接返回，其余 key 按 LOOKUP_BATCH_SIZE 分批交给 bulkLoader 加载；
+     * bulkLoader 返回的 map 中缺失的 key 视为 404 并做负缓存。
+     */
+    public Map<String, Optional<Map<String, Object>>> students(Collection<String> studentIds,
+                                                              Function<Set<String>, Map<String, Map<String, Object>>> bulkLoader) {
+        return students.synchronous().getAll(studentIds, keys -> loadAll(keys, bulkLoader));
+    }
+
+    public Map<String, Optional<Map<String, Object>>> courses(Collection<String> courseIds,
+                                                             Function<Set<String>, Map<String, Map<String, Object>>> bulkLoader) {
+        return courses.getAll(courseIds, keys -> {
+            Map<String, Optional<Map<String, Object>>> loaded = loadAll(keys, bulkLoader);
+            loaded.forEach((key, course) -> course.ifPresent(value -> courseSnapshots.put(key, value)));
+            return loaded;
+        });
+    }
+
+    /**
+     * 最近一次成功加载的课程快照（不受正常 TTL 限制），catalog-service 不可用时供只读路径降级使用
+     */
+    public Map<String, Map<String, Object>> courseSnapshots(Collection<String> courseIds) {
+        return courseSnapshots.getAllPresent(courseIds);
+    }
+
+    public boolean isCourseKnownMissing(String courseId) {
+        Optional<Map<String, Object>> cached = courses.getIfPresent(courseId);
+        return cached != null && !cached.isPresent();
+    }
+
+    public void markCourseMissing(String courseId) {
+        courses.put(courseId, Optional.empty());
+        courseSnapshots.invalidate(courseId);
+    }
+
+    public List<ServiceInstance> instances(String serviceName, Function<String, List<ServiceInstance>> loader) {
+        return instances.get(serviceName, loader);
+    }
+
+    public void invalidateStudent(String studentId) {
+        students.synchronous().invalidate(studentId);
+    }
+
+    public void invalidateCourse(String courseId) {
+        courses.invalidate(courseId);
+    }
+
+    public void invalidateAll() {
+        students.synchronous().invalidateAll();
+        courses.invalidateAll();
+        courseSnapshots.invalidateAll();
+        instances.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("students", describe(students.synchronous()));
+        result.put("courses", describe(courses));
+        result.put("discovery", describe(instances));
+        return result;
+    }
+
+    private static Map<String, Optional<Map<String, Object>>> loadAll(
+            Iterable<? extends String> keys, Function<Set<String>, Map<String, Map<String, Object>>> bulkLoader) {
+        List<String> missing = new ArrayList<>();
+        keys.forEach(missing::add);
+        Map<String, Optional<Map<String, Object>>> result = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += LOOKUP_BATCH_SIZE) {
+            Set<String> batch = new LinkedHashSet<>(missing.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, missing.size())));
+            Map<String, Map<String, Object>> loaded = bulkLoader.apply(batch);
+            for (String key : batch) {
+                result.put(key, Optional.ofNullable(loaded == null ? null : loaded.get(key)));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+
+    /**
+     * 正常结果与 404 负缓存使用不同 TTL
+     */
+    private static final class LookupExpiry implements Expiry<String, Optional<Map<String, Object>>> {
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private LookupExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<Map<String, Object>> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<Map<String, Object>> value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<Map<String, Object>> value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.zjsu.course.client;
+
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.exception.CourseFullException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * catalog-service 客户端：占座/退座与课程查询，同步调用走连接池 RestTemplate，异步调用走 WebClient。
+ * 所有调用经过 catalog-service 熔断器与信号量舱壁；占座/退座不是幂等操作，不做重试。
+ */
+@Component
+public class CatalogServiceClient {
+
+    static final String CATALOG_SERVICE = "catalog-service";
+    static final String CATALOG_SERVICE_READ = "catalog-service-read";
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogServiceClient.class);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<Map<String, Object>>() {};
+
+    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final ServiceEndpoint endpoint;
+
+    public CatalogServiceClient(@Qualifier("catalogServiceRestTemplate") RestTemplate restTemplate,
+                                @Qualifier("catalogServiceWebClient") WebClient webClient,
+                                DiscoveryClient discoveryClient,
+                                RemoteLookupCache lookupCache,
+                                ObjectProvider<Tracer> tracer,
+                                @Value("${services.catalog-service.url:catalog-service}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.endpoint = new ServiceEndpoint(baseUrl, CATALOG_SERVICE, discoveryClient, lookupCache,
+                tracer.getIfAvailable());
+    }
+
+    /**
+     * 计数占座，partial=true 时余量不足则尽量多占，返回实际占到的座位数。
+     * 课程不存在抛出 ResourceNotFoundException，已满（409）抛出 CourseFullException，其他 4xx 为 BusinessException
+     */
+    @SuppressWarnings("unchecked")
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public int reserveSeats(String courseId, int count, boolean partial) {
+        endpoint.ensureAvailable();
+        String url = endpoint.url("/api/courses/" + courseId + "/reserve?count=" + count + "&partial=" + partial);
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(url, null, Map.class);
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
+        } catch (HttpClientErrorException.Conflict e) {
+            throw new CourseFullException();
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        return reservedCount(response, count);
+    }
+
+    /**
+     * 直接释放座位（退课等人数变更通常经 outbox 投递，这里只用于 outbox 不可写时的兜底）；
+     * 失败时记录日志并返回 false
+     */
+    @CircuitBreaker(name = CATALOG_SERVICE, fallbackMethod = "releaseSeatsFailed")
+    @Bulkhead(name = CATALOG_SERVICE)
+    public boolean releaseSeats(String courseId, int count) {
+        String url = endpoint.url("/api/courses/" + courseId + "/release?count=" + count);
+        try {
+            restTemplate.postForObject(url, null, Map.class);
+            return true;
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+    }
+
+    /**
+     * 异步计数占座，异常与 {@link #reserveSeats} 相同（以异常完成 future）
+     */
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public CompletableFuture<Integer> reserveSeatsAsync(String courseId, int count, boolean partial) {
+        return Mono.fromRunnable(endpoint::ensureAvailable)
+                .then(webClient.post()
+                        .uri(endpoint.url("/api/courses/" + courseId + "/reserve?count=" + count + "&partial=" + partial))
+                        .retrieve()
+                        .bodyToMono(RESPONSE_TYPE))
+                .map(response -> reservedCount(response, count))
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new ResourceNotFoundException("Course not found with id: " + courseId))
+                .onErrorMap(WebClientResponseException.Conflict.class, e -> new CourseFullException())
+                .onErrorMap(endpoint::failure)
+                .toFuture();
+    }
+
+    /**
+     * 批量查询课程（id 或代码），返回以请求 key 为键的 map。只读且幂等，按读请求重试
+     */
+    @SuppressWarnings("unchecked")
+    @Retry(name = CATALOG_SERVICE_READ)
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public Map<String, Map<String, Object>> lookupCourses(Set<String> courseIds) {
+        endpoint.ensureAvailable();
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(endpoint.url("/api/courses/lookup"), new ArrayList<>(courseIds), Map.class);
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        Object data = ServiceEndpoint.data(response);
+        return data instanceof Map ? (Map<String, Map<String, Object>>) data : Collections.emptyMap();
+    }
+
+    /**
+     * 导出全部已排课课程的上课时段（原始 JSON 对象列表，含 courseId / code / start / end）。只读，按读请求重试
+     */
+    @SuppressWarnings("unchecked")
+    @Retry(name = CATALOG_SERVICE_READ)
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public List<Map<String, Object>> getCourseSlots() {
+        endpoint.ensureAvailable();
+        Map<String, Object> response;
+        try {
+            response = restTemplate.getForObject(endpoint.url("/api/courses/slots"), Map.class);
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        Object data = ServiceEndpoint.data(response);
+        return data instanceof List ? (List<Map<String, Object>>) data : Collections.emptyList();
+    }
+
+    /**
+     * 批量查询上课时段（id 或代码），返回以请求 key 为键的 map，不存在或未排课的 key 不在结果中
+     */
+    @SuppressWarnings("unchecked")
+    @Retry(name = CATALOG_SERVICE_READ)
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public Map<String, Map<String, Object>> lookupCourseSlots(Set<String> courseIds) {
+        endpoint.ensureAvailable();
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(endpoint.url("/api/courses/slots"), new ArrayList<>(courseIds), Map.class);
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        Object data = ServiceEndpoint.data(response);
+        return data instanceof Map ? (Map<String, Map<String, Object>>) data : Collections.emptyMap();
+    }
+
+    /**
+     * 批量投递人数增量（outbox 合并后的结果），返回 catalog-service 已处理的幂等键及其状态。
+     * 由 outbox 负责重投，这里不做重试
+     */
+    @SuppressWarnings("unchecked")
+    @CircuitBreaker(name = CATALOG_SERVICE)
+    @Bulkhead(name = CATALOG_SERVICE)
+    public Map<String, String> applySeatDeltas(List<Map<String, Object>> deltas) {
+        endpoint.ensureAvailable();
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(endpoint.url("/api/courses/seat-deltas"), deltas, Map.class);
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        Object data = ServiceEndpoint.data(response);
+        return data instanceof Map ? (Map<String, String>) data : Collections.emptyMap();
+    }
+
+    /**
+     * releaseSeats 的降级：熔断打开、舱壁已满或调用失败时只记录日志
+     */
+    private boolean releaseSeatsFailed(String courseId, int count, Throwable e) {
+        log.warn("Failed to release {} seat(s) of course {}: {}", count, courseId, e.getMessage());
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int reservedCount(Map<String, Object> response, int requested) {
+        Object data = ServiceEndpoint.data(response);
+        Object reserved = data instanceof Map ? ((Map<String, Object>) data).get("reserved") : null;
+        return reserved instanceof Number ? ((Number) reserved).intValue() : requested;
+    }
+}
@@ -0,0 +1,106 @@
+package com.zjsu.course.client;
+
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.exception.ServiceUnavailableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下游调用计时：UserServiceClient / CatalogServiceClient 的每个公开方法记录到 enrollment.remote.calls，
+ * 标签为 service、operation（方法名）与 outcome。位于熔断/舱壁/重试切面之外，耗时包含重试与排队，
+ * 熔断打开、舱壁已满也按各自的 outcome 记录；异步方法在 future 完成时记录。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RemoteCallMetrics {
+
+    static final String METRIC = "enrollment.remote.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    public RemoteCallMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * com.zjsu.course.client.UserServiceClient.*(..))")
+    public Object timeUserService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(UserServiceClient.USER_SERVICE, joinPoint);
+    }
+
+    @Around("execution(public * com.zjsu.course.client.CatalogServiceClient.*(..))")
+    public Object timeCatalogService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(CatalogServiceClient.CATALOG_SERVICE, joinPoint);
+    }
+
+    private Object time(String service, ProceedingJoinPoint joinPoint) throws Throwable {
+        String operation = joinPoint.getSignature().getName();
+        long start = meterRegistry.config().clock().monotonicTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(service, operation, start, outcome(e));
+            throw e;
+        }
+        if (result instanceof CompletableFuture) {
+            return ((CompletableFuture<?>) result).whenComplete((value, e) ->
+                    record(service, operation, start, e == null ? outcome(value) : outcome(e)));
+        }
+        record(service, operation, start, outcome(result));
+        return result;
+    }
+
+    private void record(String service, String operation, long start, String outcome) {
+        Timer.builder(METRIC)
+                .description("Calls from enrollment-service to downstream services")
+                .tag("service", service)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 正常返回：null 表示下游 404（如查询学生），false 表示走了降级（如退座失败）
+     */
+    private static String outcome(Object result) {
+        if (result == null) {
+            return "NOT_FOUND";
+        }
+        return Boolean.FALSE.equals(result) ? "FALLBACK" : "SUCCESS";
+    }
+
+    private static String outcome(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ResourceNotFoundException) {
+            return "NOT_FOUND";
+        }
+        if (cause instanceof BusinessException) {
+            return "CLIENT_ERROR";
+        }
+        if (cause instanceof CallNotPermittedException) {
+            return "CIRCUIT_OPEN";
+        }
+        if (cause instanceof BulkheadFullException) {
+            return "BULKHEAD_FULL";
+        }
+        if (cause instanceof ServiceUnavailableException) {
+            return "UNAVAILABLE";
+        }
+        return "ERROR";
+    }
+}
@@ -0,0 +1,131 @@
+package com.zjsu.course.client;
+
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.exception.ServiceUnavailableException;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 目标服务地址：base 可以是服务名（由负载均衡解析为实例地址）或完整 URL。
+ */
+class ServiceEndpoint {
+
+    private final String base;
+    private final String serviceName;
+    private final String label;
+    private final DiscoveryClient discoveryClient;
+    private final RemoteLookupCache lookupCache;
+    private final Tracer tracer;
+
+    ServiceEndpoint(String base, String label, DiscoveryClient discoveryClient, RemoteLookupCache lookupCache,
+                    Tracer tracer) {
+        this.base = normalize(base);
+        this.serviceName = resolveServiceName(base);
+        this.label = label;
+        this.discoveryClient = discoveryClient;
+        this.lookupCache = lookupCache;
+        this.tracer = tracer;
+    }
+
+    String url(String path) {
+        if (path == null) {
+            return base;
+        }
+        return path.startsWith("/") ? base + path : base + "/" + path;
+    }
+
+    String label() {
+        return label;
+    }
+
+    /**
+     * 服务发现中没有可用实例时快速失败（实例列表走本地缓存）
+     */
+    void ensureAvailable() {
+        if (serviceName == null || discoveryClient == null) {
+            return;
+        }
+        List<ServiceInstance> instances = lookupCache.instances(serviceName, this::discoverInstances);
+        if (instances == null || instances.isEmpty()) {
+            throw new ServiceUnavailableException("Service not available: " + label);
+        }
+    }
+
+    /**
+     * 向服务发现（Nacos）查询实例列表，只在缓存未命中时调用；采样的请求中记录为一个 discovery span
+     */
+    private List<ServiceInstance> discoverInstances(String name) {
+        if (tracer == null) {
+            return discoveryClient.getInstances(name);
+        }
+        Span span = tracer.nextSpan().name("discovery " + name).tag("peer.service", name).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            List<ServiceInstance> instances = discoveryClient.getInstances(name);
+            span.tag("instances", String.valueOf(instances == null ? 0 : instances.size()));
+            return instances;
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * 调用异常分类：下游返回的 4xx 属于业务错误（不计入熔断失败率），
+     * 连接失败、超时、5xx 等视为服务不可用（计入熔断失败率，读请求可重试）
+     */
+    RuntimeException failure(Throwable e) {
+        if (e instanceof BusinessException || e instanceof ResourceNotFoundException
+                || e instanceof ServiceUnavailableException) {
+            return (RuntimeException) e;
+        }
+        String message = "Failed to call " + label + ": " + e.getMessage();
+        if (e instanceof HttpClientErrorException
+                || (e instanceof WebClientResponseException
+                && ((WebClientResponseException) e).getStatusCode().is4xxClientError())) {
+            return new BusinessException(message);
+        }
+        return new ServiceUnavailableException(message, e);
+    }
+
+    /**
+     * 取出 ApiResponse 中的 data 字段
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T data(Map<String, Object> response) {
+        Object data = response == null ? null : response.get("data");
+        return (T) data;
+    }
+
+    private static String normalize(String base) {
+        if (!base.startsWith("http://") && !base.startsWith("https://")) {
+            base = "http://" + base;
+        }
+        return base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+    }
+
+    private static String resolveServiceName(String base) {
+        if (base == null || base.isEmpty()) {
+            return null;
+        }
+        if (!base.startsWith("http://") && !base.startsWith("https://")) {
+            return base;
+        }
+        try {
+            return URI.create(base).getHost();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.zjsu.course.client;
+
+import com.zjsu.course.cache.RemoteLookupCache;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * user-service 客户端：同步调用走连接池 RestTemplate，异步调用走 WebClient，均经过负载均衡。
+ * 所有调用经过 user-service 熔断器与信号量舱壁，只读调用按 user-service-read 策略带抖动重试。
+ */
+@Component
+public class UserServiceClient {
+
+    static final String USER_SERVICE = "user-service";
+    static final String USER_SERVICE_READ = "user-service-read";
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+            new ParameterizedTypeReference<Map<String, Object>>() {};
+
+    private final RestTemplate restTemplate;
+    private final WebClient webClient;
+    private final ServiceEndpoint endpoint;
+
+    public UserServiceClient(@Qualifier("userServiceRestTemplate") RestTemplate restTemplate,
+                             @Qualifier("userServiceWebClient") WebClient webClient,
+                             DiscoveryClient discoveryClient,
+                             RemoteLookupCache lookupCache,
+                             ObjectProvider<Tracer> tracer,
+                             @Value("${services.user-service.url:user-service}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.webClient = webClient;
+        this.endpoint = new ServiceEndpoint(baseUrl, USER_SERVICE, discoveryClient, lookupCache,
+                tracer.getIfAvailable());
+    }
+
+    /**
+     * 查询学生，404 返回 null
+     */
+    @SuppressWarnings("unchecked")
+    @Retry(name = USER_SERVICE_READ)
+    @CircuitBreaker(name = USER_SERVICE)
+    @Bulkhead(name = USER_SERVICE)
+    public Map<String, Object> getStudent(String studentId) {
+        endpoint.ensureAvailable();
+        try {
+            Map<String, Object> response = restTemplate.getForObject(endpoint.url("/api/students/" + studentId), Map.class);
+            return ServiceEndpoint.data(response);
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+    }
+
+    /**
+     * 异步查询学生，404 时以 null 完成，其他错误以异常完成
+     */
+    @Retry(name = USER_SERVICE_READ)
+    @CircuitBreaker(name = USER_SERVICE)
+    @Bulkhead(name = USER_SERVICE)
+    public CompletableFuture<Map<String, Object>> getStudentAsync(String studentId) {
+        return Mono.fromRunnable(endpoint::ensureAvailable)
+                .then(webClient.get()
+                        .uri(endpoint.url("/api/students/" + studentId))
+                        .retrieve()
+                        .bodyToMono(RESPONSE_TYPE))
+                .map(response -> ServiceEndpoint.<Map<String, Object>>data(response))
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty())
+                .onErrorMap(endpoint::failure)
+                .toFuture();
+    }
+
+    /**
+     * 批量查询学生，返回以学生 ID 为键的 map（不存在的学生不在结果中）。
+     * lookup 虽然是 POST，但只读且幂等，按读请求重试
+     */
+    @SuppressWarnings("unchecked")
+    @Retry(name = USER_SERVICE_READ)
+    @CircuitBreaker(name = USER_SERVICE)
+    @Bulkhead(name = USER_SERVICE)
+    public Map<String, Map<String, Object>> lookupStudents(Set<String> studentIds) {
+        endpoint.ensureAvailable();
+        Map<String, Object> response;
+        try {
+            response = restTemplate.postForObject(endpoint.url("/api/students/lookup"), new ArrayList<>(studentIds), Map.class);
+        } catch (Exception e) {
+            throw endpoint.failure(e);
+        }
+        Object data = ServiceEndpoint.data(response);
+        return data instanceof Map ? (Map<String, Map<String, Object>>) data : Collections.emptyMap();
+    }
+}
@@ -0,0 +1,44 @@
+package com.zjsu.course.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 以 NDJSON（每行一个 JSON 对象）格式把记录逐条写入响应流，不在内存中聚合整个列表。
+ */
+public class NdjsonWriter<T> implements Consumer<T> {
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final ObjectWriter writer;
+    private final OutputStream out;
+    private long count;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.out = out;
+    }
+
+    @Override
+    public void accept(T item) {
+        try {
+            writer.writeValue(out, item);
+            out.write('\n');
+            if (++count % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,82 @@
+package com.zjsu.course.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 请求执行模式（execution.mode）：
+ * <ul>
+ *   <li>platform（默认）：Tomcat 平台线程池，并发上限为 server.tomcat.threads.max</li>
+ *   <li>virtual：每个请求（以及 MVC 异步请求，如 NDJSON 导出）一个虚拟线程，同步的下游调用与 JDBC 只挂起虚拟线程；
+ *       需要 Java 21+ 运行时（编译目标仍是 Java 8，执行器通过反射创建，低版本运行时启动即失败）。
+ *       JDK 21 中 synchronized 内的阻塞会占住载体线程，可用 -Djdk.tracePinnedThreads=short 排查</li>
+ *   <li>async：POST /api/enrollments 返回 CompletableFuture，等待 user/catalog 调用期间不占用 Tomcat 线程，
+ *       写库阶段在 applicationTaskExecutor（spring.task.execution.pool.*）上执行</li>
+ * </ul>
+ */
+@Configuration
+public class ExecutionModeConfig {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+    public static final String ASYNC = "async";
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionModeConfig.class);
+
+    public ExecutionModeConfig(Environment environment) {
+        String mode = environment.getProperty("execution.mode", PLATFORM);
+        if (!PLATFORM.equals(mode) && !VIRTUAL.equals(mode) && !ASYNC.equals(mode)) {
+            throw new IllegalStateException("Unknown execution.mode: " + mode + " (expected platform, virtual or async)");
+        }
+        log.info("Request execution mode: {} (Java {})", mode, System.getProperty("java.version"));
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "execution.mode", havingValue = VIRTUAL)
+    static class VirtualThreads implements WebMvcConfigurer {
+
+        private final ExecutorService executor = newVirtualThreadExecutor("http-vt-");
+
+        @Bean
+        public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer() {
+            return protocolHandler -> protocolHandler.setExecutor(executor);
+        }
+
+        @Override
+        public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+            configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+        }
+    }
+
+    /**
+     * 等价于 Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 0).factory())
+     */
+    static ExecutorService newVirtualThreadExecutor(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder$OfVirtual");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            throw new IllegalStateException("execution.mode=virtual requires a Java 21+ runtime, running on Java "
+                    + System.getProperty("java.version"));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+}
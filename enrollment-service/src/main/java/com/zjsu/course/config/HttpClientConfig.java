@@ -0,0 +1,132 @@
+package com.zjsu.course.config;
+
+import io.netty.channel.ChannelOption;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务间调用的 HTTP 客户端：
+ * 同步调用使用基于连接池的 Apache HttpClient，异步调用使用 Reactor Netty WebClient；
+ * 两者都经过 @LoadBalanced（Nacos 服务发现 + Spring Cloud LoadBalancer），
+ * 并按目标服务（user-service / catalog-service）分别设置连接与读取超时。
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${enrollment.http.pool.max-total:200}")
+    private int maxTotal;
+
+    @Value("${enrollment.http.pool.max-per-route:50}")
+    private int maxPerRoute;
+
+    @Value("${enrollment.http.pool.acquire-timeout:1s}")
+    private Duration acquireTimeout;
+
+    @Value("${enrollment.http.pool.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    @Value("${enrollment.http.pool.time-to-live:5m}")
+    private Duration timeToLive;
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(timeToLive.toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        // 复用前校验空闲超过 2s 的连接，避免服务端已关闭的 keep-alive 连接导致请求失败
+        connectionManager.setValidateAfterInactivity(2000);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider reactorConnectionProvider() {
+        return ConnectionProvider.builder("enrollment-service")
+                .maxConnections(maxTotal)
+                .pendingAcquireTimeout(acquireTimeout)
+                .maxIdleTime(idleTimeout)
+                .maxLifeTime(timeToLive)
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+    }
+
+    @Bean
+    @LoadBalanced
+    public RestTemplate userServiceRestTemplate(CloseableHttpClient pooledHttpClient,
+                                                @Value("${enrollment.http.user-service.connect-timeout:1s}") Duration connectTimeout,
+                                                @Value("${enrollment.http.user-service.read-timeout:2s}") Duration readTimeout) {
+        return new RestTemplate(requestFactory(pooledHttpClient, connectTimeout, readTimeout));
+    }
+
+    @Bean
+    @LoadBalanced
+    public RestTemplate catalogServiceRestTemplate(CloseableHttpClient pooledHttpClient,
+                                                   @Value("${enrollment.http.catalog-service.connect-timeout:1s}") Duration connectTimeout,
+                                                   @Value("${enrollment.http.catalog-service.read-timeout:3s}") Duration readTimeout) {
+        return new RestTemplate(requestFactory(pooledHttpClient, connectTimeout, readTimeout));
+    }
+
+    /**
+     * 负载均衡的 WebClient.Builder，各目标服务的 WebClient 由它 clone 后设置各自的超时
+     */
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+
+    @Bean
+    public WebClient userServiceWebClient(@Qualifier("loadBalancedWebClientBuilder") WebClient.Builder builder,
+                                          ConnectionProvider reactorConnectionProvider,
+                                          @Value("${enrollment.http.user-service.connect-timeout:1s}") Duration connectTimeout,
+                                          @Value("${enrollment.http.user-service.read-timeout:2s}") Duration readTimeout) {
+        return builder.clone()
+                .clientConnector(connector(reactorConnectionProvider, connectTimeout, readTimeout))
+                .build();
+    }
+
+    @Bean
+    public WebClient catalogServiceWebClient(@Qualifier("loadBalancedWebClientBuilder") WebClient.Builder builder,
+                                             ConnectionProvider reactorConnectionProvider,
+                                             @Value("${enrollment.http.catalog-service.connect-timeout:1s}") Duration connectTimeout,
+                                             @Value("${enrollment.http.catalog-service.read-timeout:3s}") Duration readTimeout) {
+        return builder.clone()
+                .clientConnector(connector(reactorConnectionProvider, connectTimeout, readTimeout))
+                .build();
+    }
+
+    private HttpComponentsClientHttpRequestFactory requestFactory(CloseableHttpClient httpClient,
+                                                                  Duration connectTimeout, Duration readTimeout) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setConnectTimeout((int) connectTimeout.toMillis());
+        factory.setReadTimeout((int) readTimeout.toMillis());
+        factory.setConnectionRequestTimeout((int) acquireTimeout.toMillis());
+        return factory;
+    }
+
+    private ReactorClientHttpConnector connector(ConnectionProvider provider, Duration connectTimeout, Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
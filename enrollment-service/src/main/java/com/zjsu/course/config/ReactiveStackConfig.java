@@ -0,0 +1,61 @@
+package com.zjsu.course.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * reactive profile：以 WebFlux 运行（application-reactive.yml 中 spring.main.web-application-type=reactive），
+ * 选课接口由 ReactiveEnrollmentController 提供，enrollments 表经 R2DBC 访问。
+ * outbox 投递、候补递补、准入队列等后台任务仍使用 JPA，在各自的线程上运行，因此两种事务管理器并存：
+ * JPA 的为默认（@Transactional），R2DBC 的只通过 TransactionalOperator 显式使用。
+ * 存在 R2DBC ConnectionFactory 时 Spring Boot 不再自动配置 DataSource，这里按 spring.datasource.* 显式创建。
+ * R2DBC 仓库只扫描 R2dbcRepository（JPA 仓库的实体同样带有 R2DBC 映射注解）
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+@EnableR2dbcRepositories(basePackages = "com.zjsu.course.repository",
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = R2dbcRepository.class))
+public class ReactiveStackConfig {
+
+    /**
+     * classpath 上同时有 Tomcat 与 Reactor Netty，显式使用 Netty（事件循环线程数与 CPU 核数相当）
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+
+    @Bean
+    public R2dbcTransactionManager reactiveTransactionManager(ConnectionFactory connectionFactory) {
+        return new R2dbcTransactionManager(connectionFactory);
+    }
+}
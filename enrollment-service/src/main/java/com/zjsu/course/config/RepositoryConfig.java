@@ -0,0 +1,17 @@
+package com.zjsu.course.config;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+/**
+ * JPA 仓库扫描：EnrollmentRecord 同时是 JPA 与 R2DBC 实体，需排除 R2DBC 仓库（见 ReactiveStackConfig），
+ * 否则 Spring Data 按实体注解把 EnrollmentR2dbcRepository 也当作 JPA 仓库
+ */
+@Configuration
+@EnableJpaRepositories(basePackages = "com.zjsu.course.repository",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = R2dbcRepository.class))
+public class RepositoryConfig {
+}
@@ -0,0 +1,90 @@
+package com.zjsu.course.config;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.sleuth.SamplerFunction;
+import org.springframework.cloud.sleuth.http.HttpRequest;
+import org.springframework.cloud.sleuth.instrument.web.HttpClientSampler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 链路追踪的本地导出：配置 tracing.export.file 后，采样到的 span 以 Zipkin v2 JSON 逐行追加到该文件，
+ * 用于压测与联调时在没有 Zipkin/OTLP 后端的情况下查看各跳耗时。采样率见 spring.sleuth.sampler.*
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * 没有上游追踪上下文的出站 HTTP 调用（定时任务中的通知、投递、对账等）不开启新的追踪，
+     * 后台任务不占用按秒限流的采样额度；请求内发起的下游调用仍沿用请求的采样决定
+     */
+    @Bean(name = HttpClientSampler.NAME)
+    public SamplerFunction<HttpRequest> httpClientSampler() {
+        return SamplerFunction.neverSample();
+    }
+
+    @Bean
+    @ConditionalOnProperty("tracing.export.file")
+    public FileSpanHandler fileSpanHandler(Environment environment) throws IOException {
+        return new FileSpanHandler(Paths.get(environment.getRequiredProperty("tracing.export.file")));
+    }
+
+    /**
+     * 每个结束的 span 写一行 JSON（MutableSpan#toString 即 Zipkin v2 格式）
+     */
+    public static class FileSpanHandler extends SpanHandler implements DisposableBean {
+
+        private static final Logger log = LoggerFactory.getLogger(FileSpanHandler.class);
+
+        private final Writer writer;
+
+        FileSpanHandler(Path file) throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            log.info("Exporting sampled spans to {}", file.toAbsolutePath());
+        }
+
+        @Override
+        public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+            if (cause == Cause.ABANDONED) {
+                return true;
+            }
+            String json = span.toString();
+            synchronized (writer) {
+                try {
+                    writer.write(json);
+                    writer.write('\n');
+                    writer.flush();
+                } catch (IOException e) {
+                    log.warn("Failed to export span {}: {}", span.id(), e.getMessage());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void destroy() throws IOException {
+            synchronized (writer) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -1,9 +1,20 @@
 package com.zjsu.course.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.common.NdjsonWriter;
+import com.zjsu.course.config.ExecutionModeConfig;
+import com.zjsu.course.model.BatchEnrollmentResult;
+import com.zjsu.course.model.EnrollmentDetail;
 import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollmentView;
+import com.zjsu.course.model.StudentEnrollments;
+import com.zjsu.course.service.AdmissionService;
 import com.zjsu.course.service.EnrollmentService;
+import com.zjsu.course.service.WaitlistService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,41 +22,106 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * 选课管理API控制器
+ * 选课管理API控制器（Servlet；reactive profile 下由 ReactiveEnrollmentController 提供相同接口）
  */
 @RestController
 @RequestMapping("/api/enrollments")
 @CrossOrigin(origins = "*")
+@Profile("!reactive")
 public class EnrollmentController {
 
     private final EnrollmentService enrollmentService;
+    private final WaitlistService waitlistService;
+    private final AdmissionService admissionService;
+    private final ObjectMapper objectMapper;
+    private final boolean asyncEnrollment;
 
     @Value("${server.port}")
     private String serverPort;
 
-    public EnrollmentController(EnrollmentService enrollmentService) {
+    public EnrollmentController(EnrollmentService enrollmentService, WaitlistService waitlistService,
+                                AdmissionService admissionService, ObjectMapper objectMapper,
+                                @Value("${execution.mode:platform}") String executionMode) {
         this.enrollmentService = enrollmentService;
+        this.waitlistService = waitlistService;
+        this.admissionService = admissionService;
+        this.asyncEnrollment = ExecutionModeConfig.ASYNC.equals(executionMode);
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * 学生选课
+     * 学生选课；waitlist=true 时课程已满则加入候补队列，返回 202 与 WAITLISTED 记录。
+     * execution.mode=async 时等待下游调用期间释放请求线程，其他模式下同步完成
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<EnrollmentRecord>> createEnrollment(@RequestBody EnrollmentRecord enrollment) {
-        EnrollmentRecord createdEnrollment = enrollmentService.createEnrollment(enrollment);
+    public CompletableFuture<ResponseEntity<ApiResponse<EnrollmentRecord>>> createEnrollment(
+            @RequestBody EnrollmentRecord enrollment, @RequestParam(defaultValue = "false") boolean waitlist) {
+        if (asyncEnrollment) {
+            return enrollmentService.createEnrollmentAsync(enrollment, waitlist).thenApply(EnrollmentController::created);
+        }
+        return CompletableFuture.completedFuture(created(enrollmentService.createEnrollment(enrollment, waitlist)));
+    }
+
+    private static ResponseEntity<ApiResponse<EnrollmentRecord>> created(EnrollmentRecord createdEnrollment) {
+        if (createdEnrollment.isWaitlisted()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Waitlisted", createdEnrollment));
+        }
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.created(createdEnrollment));
     }
 
+    /**
+     * 排队选课：请求进入准入队列后立即返回 202 与票据，队列已满时返回 429（带 Retry-After）
+     */
+    @PostMapping("/admissions")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> submitAdmission(@RequestBody EnrollmentRecord enrollment) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Queued", admissionService.submit(enrollment)));
+    }
+
+    /**
+     * 查询准入票据状态（QUEUED / PROCESSING / ADMITTED / REJECTED）
+     */
+    @GetMapping("/admissions/{ticketId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getAdmission(@PathVariable String ticketId) {
+        return ResponseEntity.ok(ApiResponse.success(admissionService.status(ticketId)));
+    }
+
+    /**
+     * 查询选课记录状态（ENROLLED / WAITLISTED，候补中附带 position）；
+     * wait 为长轮询等待毫秒数，候补中的记录在被递补、退出候补或超时后返回
+     */
+    @GetMapping("/{id}/status")
+    public DeferredResult<ResponseEntity<ApiResponse<Map<String, Object>>>> getEnrollmentStatus(
+            @PathVariable String id, @RequestParam(defaultValue = "0") long wait) {
+        return waitlistService.awaitStatus(id, wait, status -> ResponseEntity.ok(ApiResponse.success(status)));
+    }
+
+    /**
+     * 批量选课（按请求顺序返回逐条结果）
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchEnrollmentResult>>> createEnrollments(@RequestBody List<EnrollmentRecord> enrollments) {
+        List<BatchEnrollmentResult> results = enrollmentService.createEnrollments(enrollments);
+        return ResponseEntity.ok(ApiResponse.success(results));
+    }
+
     /**
      * 学生退课
      */
@@ -56,12 +132,39 @@ public class EnrollmentController {
     }
 
     /**
-     * 查询选课记录
+     * 查询选课记录；传入 limit 或 after 时按游标分页返回 {items, nextCursor, limit}
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<EnrollmentRecord>>> getAllEnrollments() {
-        List<EnrollmentRecord> enrollments = enrollmentService.getAllEnrollments();
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<?>> getAllEnrollments(@RequestParam(required = false) Integer limit,
+                                                            @RequestParam(required = false) String after) {
+        if (limit == null && after == null) {
+            List<EnrollmentRecord> enrollments = enrollmentService.getAllEnrollments();
+            return ResponseEntity.ok(ApiResponse.success(enrollments));
+        }
+        CursorPage<EnrollmentRecord> page = enrollmentService.getEnrollmentPage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 以 NDJSON 流式返回所有选课记录（Accept: application/x-ndjson）
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEnrollments() {
+        StreamingResponseBody body = out -> enrollmentService.streamEnrollments(new NdjsonWriter<>(objectMapper, out));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 查询选课记录及课程、学生详情（可按 courseId / studentId 过滤），按游标分页返回 {items, nextCursor, limit}
+     */
+    @GetMapping("/details")
+    public ResponseEntity<ApiResponse<CursorPage<EnrollmentDetail>>> getEnrollmentDetails(
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) String studentId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        CursorPage<EnrollmentDetail> details = enrollmentService.getEnrollmentDetails(courseId, studentId, after, limit);
+        return ResponseEntity.ok(ApiResponse.success(details));
     }
 
     /**
@@ -74,12 +177,15 @@ public class EnrollmentController {
     }
 
     /**
-     * 按学生查询选课记录
+     * 按学生查询选课记录及课程摘要（选课投影）；带 ETag，If-None-Match 命中时返回 304
      */
     @GetMapping("/student/{studentId}")
-    public ResponseEntity<ApiResponse<List<EnrollmentRecord>>> getEnrollmentsByStudentId(@PathVariable String studentId) {
-        List<EnrollmentRecord> enrollments = enrollmentService.getEnrollmentsByStudentId(studentId);
-        return ResponseEntity.ok(ApiResponse.success(enrollments));
+    public ResponseEntity<ApiResponse<List<StudentEnrollmentView>>> getEnrollmentsByStudentId(@PathVariable String studentId) {
+        StudentEnrollments enrollments = enrollmentService.getStudentEnrollments(studentId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(enrollments.getEtag())
+                .body(ApiResponse.success(enrollments.getItems()));
     }
 
     /**
@@ -0,0 +1,182 @@
+package com.zjsu.course.controller;
+
+import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.model.BatchEnrollmentResult;
+import com.zjsu.course.model.EnrollmentDetail;
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollmentView;
+import com.zjsu.course.service.AdmissionService;
+import com.zjsu.course.service.ReactiveEnrollmentService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 选课管理API控制器（reactive profile，WebFlux）：接口与响应格式与 EnrollmentController 相同
+ */
+@RestController
+@RequestMapping("/api/enrollments")
+@CrossOrigin(origins = "*")
+@Profile("reactive")
+public class ReactiveEnrollmentController {
+
+    private final ReactiveEnrollmentService enrollmentService;
+    private final AdmissionService admissionService;
+
+    @Value("${server.port}")
+    private String serverPort;
+
+    public ReactiveEnrollmentController(ReactiveEnrollmentService enrollmentService, AdmissionService admissionService) {
+        this.enrollmentService = enrollmentService;
+        this.admissionService = admissionService;
+    }
+
+    /**
+     * 学生选课；waitlist=true 时课程已满则加入候补队列，返回 202 与 WAITLISTED 记录
+     */
+    @PostMapping
+    public Mono<ResponseEntity<ApiResponse<EnrollmentRecord>>> createEnrollment(
+            @RequestBody EnrollmentRecord enrollment, @RequestParam(defaultValue = "false") boolean waitlist) {
+        return enrollmentService.createEnrollment(enrollment, waitlist).map(createdEnrollment -> {
+            if (createdEnrollment.isWaitlisted()) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(ApiResponse.success("Waitlisted", createdEnrollment));
+            }
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.created(createdEnrollment));
+        });
+    }
+
+    /**
+     * 排队选课：请求进入准入队列后立即返回 202 与票据，队列已满时返回 429（带 Retry-After）
+     */
+    @PostMapping("/admissions")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> submitAdmission(@RequestBody EnrollmentRecord enrollment) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Queued", admissionService.submit(enrollment)));
+    }
+
+    /**
+     * 查询准入票据状态（QUEUED / PROCESSING / ADMITTED / REJECTED）
+     */
+    @GetMapping("/admissions/{ticketId}")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getAdmission(@PathVariable String ticketId) {
+        return ResponseEntity.ok(ApiResponse.success(admissionService.status(ticketId)));
+    }
+
+    /**
+     * 查询选课记录状态（ENROLLED / WAITLISTED，候补中附带 position）；
+     * wait 为长轮询等待毫秒数，候补中的记录在被递补、退出候补或超时后返回
+     */
+    @GetMapping("/{id}/status")
+    public Mono<ResponseEntity<ApiResponse<Map<String, Object>>>> getEnrollmentStatus(
+            @PathVariable String id, @RequestParam(defaultValue = "0") long wait) {
+        return enrollmentService.awaitStatus(id, wait).map(status -> ResponseEntity.ok(ApiResponse.success(status)));
+    }
+
+    /**
+     * 批量选课（按请求顺序返回逐条结果）
+     */
+    @PostMapping("/batch")
+    public Mono<ResponseEntity<ApiResponse<List<BatchEnrollmentResult>>>> createEnrollments(
+            @RequestBody List<EnrollmentRecord> enrollments) {
+        return enrollmentService.createEnrollments(enrollments).map(results -> ResponseEntity.ok(ApiResponse.success(results)));
+    }
+
+    /**
+     * 学生退课
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse<Object>>> deleteEnrollment(@PathVariable String id) {
+        return enrollmentService.deleteEnrollment(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(ApiResponse.success("Enrollment deleted successfully", null))));
+    }
+
+    /**
+     * 查询选课记录；传入 limit 或 after 时按游标分页返回 {items, nextCursor, limit}
+     */
+    @GetMapping
+    public Mono<ResponseEntity<ApiResponse<?>>> getAllEnrollments(@RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String after) {
+        if (limit == null && after == null) {
+            return enrollmentService.getAllEnrollments().collectList()
+                    .map(enrollments -> ResponseEntity.ok(ApiResponse.success(enrollments)));
+        }
+        return enrollmentService.getEnrollmentPage(after, limit)
+                .map(page -> ResponseEntity.ok(ApiResponse.success(page)));
+    }
+
+    /**
+     * 以 NDJSON 流式返回所有选课记录（Accept: application/x-ndjson）
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<EnrollmentRecord> streamEnrollments() {
+        return enrollmentService.streamEnrollments();
+    }
+
+    /**
+     * 查询选课记录及课程、学生详情（可按 courseId / studentId 过滤），按游标分页返回 {items, nextCursor, limit}
+     */
+    @GetMapping("/details")
+    public Mono<ResponseEntity<ApiResponse<CursorPage<EnrollmentDetail>>>> getEnrollmentDetails(
+            @RequestParam(required = false) String courseId,
+            @RequestParam(required = false) String studentId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String after) {
+        return enrollmentService.getEnrollmentDetails(courseId, studentId, after, limit)
+                .map(details -> ResponseEntity.ok(ApiResponse.success(details)));
+    }
+
+    /**
+     * 按课程查询选课记录
+     */
+    @GetMapping("/course/{courseId}")
+    public Mono<ResponseEntity<ApiResponse<List<EnrollmentRecord>>>> getEnrollmentsByCourseId(@PathVariable String courseId) {
+        return enrollmentService.getEnrollmentsByCourseId(courseId).collectList()
+                .map(enrollments -> ResponseEntity.ok(ApiResponse.success(enrollments)));
+    }
+
+    /**
+     * 按学生查询选课记录及课程摘要（选课投影）；带 ETag，If-None-Match 命中时返回 304
+     */
+    @GetMapping("/student/{studentId}")
+    public Mono<ResponseEntity<ApiResponse<List<StudentEnrollmentView>>>> getEnrollmentsByStudentId(
+            @PathVariable String studentId) {
+        return enrollmentService.getStudentEnrollments(studentId)
+                .map(enrollments -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .eTag(enrollments.getEtag())
+                        .body(ApiResponse.success(enrollments.getItems())));
+    }
+
+    /**
+     * 负载均衡/故障转移测试端点，返回当前容器端口
+     */
+    @GetMapping("/test")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> testInstance() {
+        Map<String, Object> body = new HashMap<>();
+        body.put("instance", "enrollment-service");
+        body.put("port", serverPort);
+        body.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(ApiResponse.success(body));
+    }
+}
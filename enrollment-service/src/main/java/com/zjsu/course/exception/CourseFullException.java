@@ -0,0 +1,10 @@
+package com.zjsu.course.exception;
+
+/**
+ * 课程已满（catalog-service 占座返回 409）；只有这种情况才能加入候补，对客户端仍按业务错误返回 400
+ */
+public class CourseFullException extends BusinessException {
+    public CourseFullException() {
+        super("Course is full");
+    }
+}
@@ -0,0 +1,14 @@
+package com.zjsu.course.exception;
+
+/**
+ * 下游服务不可用（连接失败、超时、5xx、熔断打开或舱壁已满）
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    public ServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package com.zjsu.course.exception;
+
+/**
+ * 请求过多（准入队列已满），客户端应在 retryAfterSeconds 秒后重试
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
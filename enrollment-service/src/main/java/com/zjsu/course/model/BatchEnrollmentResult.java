@@ -0,0 +1,76 @@
+package com.zjsu.course.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 批量选课中单条 (studentId, courseId) 的处理结果。
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchEnrollmentResult {
+
+    public static final String CREATED = "CREATED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String ALREADY_ENROLLED = "ALREADY_ENROLLED";
+    public static final String ALREADY_WAITLISTED = "ALREADY_WAITLISTED";
+    public static final String SCHEDULE_CONFLICT = "SCHEDULE_CONFLICT";
+    public static final String FAILED = "FAILED";
+
+    private String studentId;
+    private String courseId;
+    private String status;
+    private String message;
+    private String enrollmentId;
+
+    public BatchEnrollmentResult() {}
+
+    public BatchEnrollmentResult(String studentId, String courseId) {
+        this.studentId = studentId;
+        this.courseId = courseId;
+    }
+
+    public BatchEnrollmentResult fail(String status, String message) {
+        this.status = status;
+        this.message = message;
+        return this;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getEnrollmentId() {
+        return enrollmentId;
+    }
+
+    public void setEnrollmentId(String enrollmentId) {
+        this.enrollmentId = enrollmentId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.zjsu.course.model;
+
+import java.util.Map;
+
+/**
+ * catalog-service 导出的课程上课时段：start / end 为一周内的分钟数（周一 00:00 为 0），区间为 [start, end)
+ */
+public final class CourseSlot {
+
+    private final String courseId;
+    private final int start;
+    private final int end;
+
+    public CourseSlot(String courseId, int start, int end) {
+        this.courseId = courseId;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 由 /api/courses/slots 返回的 JSON 对象转换，字段不完整时返回 null
+     */
+    public static CourseSlot fromMap(Map<String, Object> map) {
+        if (map == null) {
+            return null;
+        }
+        Object courseId = map.get("courseId");
+        Object start = map.get("start");
+        Object end = map.get("end");
+        if (!(courseId instanceof String) || !(start instanceof Number) || !(end instanceof Number)) {
+            return null;
+        }
+        return new CourseSlot((String) courseId, ((Number) start).intValue(), ((Number) end).intValue());
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+}
@@ -0,0 +1,155 @@
+package com.zjsu.course.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.util.DigestUtils;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 选课投影中的课程摘要快照：课程代码、名称、教师与上课时间（不含容量与已选人数，座位变化不会改变快照）
+ */
+@Embeddable
+public class CourseSummary {
+
+    @Column(name = "course_code")
+    private String code;
+
+    @Column(name = "course_title")
+    private String title;
+
+    @Column(name = "instructor_id")
+    private String instructorId;
+
+    @Column(name = "instructor_name")
+    private String instructorName;
+
+    @Column(name = "schedule_day_of_week")
+    private String dayOfWeek;
+
+    @Column(name = "schedule_start_time")
+    private String startTime;
+
+    @Column(name = "schedule_end_time")
+    private String endTime;
+
+    public CourseSummary() {}
+
+    /**
+     * 由 catalog-service 返回的课程 JSON 对象转换，course 为 null 时返回 null
+     */
+    @SuppressWarnings("unchecked")
+    public static CourseSummary fromMap(Map<String, Object> course) {
+        if (course == null) {
+            return null;
+        }
+        CourseSummary summary = new CourseSummary();
+        summary.code = string(course.get("code"));
+        summary.title = string(course.get("title"));
+        if (course.get("instructor") instanceof Map) {
+            Map<String, Object> instructor = (Map<String, Object>) course.get("instructor");
+            summary.instructorId = string(instructor.get("id"));
+            summary.instructorName = string(instructor.get("name"));
+        }
+        if (course.get("schedule") instanceof Map) {
+            Map<String, Object> schedule = (Map<String, Object>) course.get("schedule");
+            summary.dayOfWeek = string(schedule.get("dayOfWeek"));
+            summary.startTime = string(schedule.get("startTime"));
+            summary.endTime = string(schedule.get("endTime"));
+        }
+        return summary;
+    }
+
+    /**
+     * 快照内容的摘要，投影行据此判断是否需要更新
+     */
+    @JsonIgnore
+    public String getDigest() {
+        String joined = String.join("\u0000", String.valueOf(code), String.valueOf(title), String.valueOf(instructorId),
+                String.valueOf(instructorName), String.valueOf(dayOfWeek), String.valueOf(startTime), String.valueOf(endTime));
+        return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getInstructorId() {
+        return instructorId;
+    }
+
+    public void setInstructorId(String instructorId) {
+        this.instructorId = instructorId;
+    }
+
+    public String getInstructorName() {
+        return instructorName;
+    }
+
+    public void setInstructorName(String instructorName) {
+        this.instructorName = instructorName;
+    }
+
+    public String getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(String dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CourseSummary)) {
+            return false;
+        }
+        CourseSummary that = (CourseSummary) o;
+        return Objects.equals(code, that.code) && Objects.equals(title, that.title)
+                && Objects.equals(instructorId, that.instructorId) && Objects.equals(instructorName, that.instructorName)
+                && Objects.equals(dayOfWeek, that.dayOfWeek) && Objects.equals(startTime, that.startTime)
+                && Objects.equals(endTime, that.endTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(code, title, instructorId, instructorName, dayOfWeek, startTime, endTime);
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : value.toString();
+    }
+}
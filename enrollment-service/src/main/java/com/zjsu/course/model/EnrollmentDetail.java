@@ -0,0 +1,90 @@
+package com.zjsu.course.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 选课记录及其课程、学生详情（详情为 catalog-service / user-service 返回的原始对象，不存在时为 null）。
+ */
+public class EnrollmentDetail {
+
+    private String id;
+    private String courseId;
+    private String studentId;
+    private LocalDateTime enrolledAt;
+    private Map<String, Object> course;
+    private Map<String, Object> student;
+
+    /** catalog-service 不可用时 course 为最近一次缓存的快照，此时为 true */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean courseStale;
+
+    public EnrollmentDetail() {}
+
+    public EnrollmentDetail(EnrollmentRecord record, Map<String, Object> course, Map<String, Object> student) {
+        this.id = record.getId();
+        this.courseId = record.getCourseId();
+        this.studentId = record.getStudentId();
+        this.enrolledAt = record.getEnrolledAt();
+        this.course = course;
+        this.student = student;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public LocalDateTime getEnrolledAt() {
+        return enrolledAt;
+    }
+
+    public void setEnrolledAt(LocalDateTime enrolledAt) {
+        this.enrolledAt = enrolledAt;
+    }
+
+    public Map<String, Object> getCourse() {
+        return course;
+    }
+
+    public void setCourse(Map<String, Object> course) {
+        this.course = course;
+    }
+
+    public Map<String, Object> getStudent() {
+        return student;
+    }
+
+    public void setStudent(Map<String, Object> student) {
+        this.student = student;
+    }
+
+    public Boolean getCourseStale() {
+        return courseStale;
+    }
+
+    public void setCourseStale(Boolean courseStale) {
+        this.courseStale = courseStale;
+    }
+}
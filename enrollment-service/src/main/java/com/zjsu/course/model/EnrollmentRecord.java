@@ -1,5 +1,6 @@
 package com.zjsu.course.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.Column;
@@ -14,8 +15,11 @@ import java.time.LocalDateTime;
 
 /**
  * Enrollment record storing course and student IDs only.
+ * status 为 ENROLLED（已占座）或 WAITLISTED（课程已满时排队，按加入时间先后递补）；历史数据为 null，视同 ENROLLED。
+ * 同一实体也映射为 Spring Data R2DBC 实体（reactive profile，列名按默认的下划线命名），R2DBC 写入时不触发 @PrePersist
  */
 @Entity
+@org.springframework.data.relational.core.mapping.Table("enrollments")
 @Table(
         name = "enrollments",
         uniqueConstraints = {
@@ -27,7 +31,11 @@ import java.time.LocalDateTime;
 )
 public class EnrollmentRecord {
 
+    public static final String ENROLLED = "ENROLLED";
+    public static final String WAITLISTED = "WAITLISTED";
+
     @Id
+    @org.springframework.data.annotation.Id
     @GeneratedValue(generator = "UUID")
     @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
     private String id;
@@ -41,12 +49,19 @@ public class EnrollmentRecord {
     @Column(name = "student_id")
     private String studentId;
 
+    // 排队记录为加入候补的时间，递补时改为递补时间
     @Column(name = "enrolled_at")
     private LocalDateTime enrolledAt;
 
+    @Column(name = "status")
+    private String status;
+
     @PrePersist
     protected void onCreate() {
         this.enrolledAt = LocalDateTime.now();
+        if (this.status == null) {
+            this.status = ENROLLED;
+        }
     }
 
     public String getId() {
@@ -80,4 +95,17 @@ public class EnrollmentRecord {
     public void setEnrolledAt(LocalDateTime enrolledAt) {
         this.enrolledAt = enrolledAt;
     }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @JsonIgnore
+    public boolean isWaitlisted() {
+        return WAITLISTED.equals(status);
+    }
 }
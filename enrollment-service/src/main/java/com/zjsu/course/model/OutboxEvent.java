@@ -0,0 +1,100 @@
+package com.zjsu.course.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Outbox 事件：课程已选人数的增量，与选课记录在同一事务中写入，
+ * 由后台任务按课程合并后投递给 catalog-service。
+ * deliveryKey 在首次投递前分配，重投时沿用同一个键，保证 catalog-service 只应用一次
+ */
+@Entity
+@Table(name = "enrollment_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "course_id", nullable = false)
+    private String courseId;
+
+    @Column(nullable = false)
+    private int delta;
+
+    @Column(name = "delivery_key", length = 64)
+    private String deliveryKey;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public OutboxEvent(String courseId, int delta) {
+        this.courseId = courseId;
+        this.delta = delta;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+
+    public String getDeliveryKey() {
+        return deliveryKey;
+    }
+
+    public void setDeliveryKey(String deliveryKey) {
+        this.deliveryKey = deliveryKey;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,114 @@
+package com.zjsu.course.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.Column;
+import javax.persistence.Embedded;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 按学生组织的选课投影（student_enrollment_view）：每条选课记录一行，附带课程摘要快照，
+ * “我的课程”一次按 student_id 查询即可返回，不再逐门调用 catalog-service。
+ * 随选课写入在同一事务中维护，课程摘要由 StudentEnrollmentProjection 按 catalog-service 的变更通知刷新；
+ * 快照尚未同步时 course 为 null
+ */
+@Entity
+@Table(name = "student_enrollment_view")
+public class StudentEnrollmentView {
+
+    /** 选课记录 id */
+    @Id
+    @Column(name = "enrollment_id")
+    private String id;
+
+    @Column(name = "student_id", nullable = false)
+    private String studentId;
+
+    @Column(name = "course_id", nullable = false)
+    private String courseId;
+
+    @Column(name = "status")
+    private String status;
+
+    @Column(name = "enrolled_at")
+    private LocalDateTime enrolledAt;
+
+    @Embedded
+    private CourseSummary course;
+
+    /** 课程快照的摘要（CourseSummary#getDigest），快照未同步时为 null */
+    @JsonIgnore
+    @Column(name = "course_digest", length = 32)
+    private String courseDigest;
+
+    public StudentEnrollmentView() {}
+
+    public StudentEnrollmentView(EnrollmentRecord record, CourseSummary course) {
+        this.id = record.getId();
+        this.studentId = record.getStudentId();
+        this.courseId = record.getCourseId();
+        // 历史数据 status 为 null，视同 ENROLLED
+        this.status = record.isWaitlisted() ? EnrollmentRecord.WAITLISTED : EnrollmentRecord.ENROLLED;
+        this.enrolledAt = record.getEnrolledAt();
+        setCourse(course);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(String studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(String courseId) {
+        this.courseId = courseId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getEnrolledAt() {
+        return enrolledAt;
+    }
+
+    public void setEnrolledAt(LocalDateTime enrolledAt) {
+        this.enrolledAt = enrolledAt;
+    }
+
+    public CourseSummary getCourse() {
+        return course;
+    }
+
+    /**
+     * 更新课程快照，同时更新摘要
+     */
+    public void setCourse(CourseSummary course) {
+        this.course = course;
+        this.courseDigest = course == null ? null : course.getDigest();
+    }
+
+    public String getCourseDigest() {
+        return courseDigest;
+    }
+}
@@ -0,0 +1,25 @@
+package com.zjsu.course.model;
+
+import java.util.List;
+
+/**
+ * 一个学生的选课投影（按选课时间排序）及其 ETag；缓存中的实例不可变，可被并发请求共享
+ */
+public final class StudentEnrollments {
+
+    private final List<StudentEnrollmentView> items;
+    private final String etag;
+
+    public StudentEnrollments(List<StudentEnrollmentView> items, String etag) {
+        this.items = items;
+        this.etag = etag;
+    }
+
+    public List<StudentEnrollmentView> getItems() {
+        return items;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+}
@@ -1,16 +1,67 @@
 package com.zjsu.course.repository;
 
 import com.zjsu.course.model.EnrollmentRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EnrollmentJpaRepository extends JpaRepository<EnrollmentRecord, String> {
     List<EnrollmentRecord> findByCourseId(String courseId);
     List<EnrollmentRecord> findByStudentId(String studentId);
+    List<EnrollmentRecord> findByStudentIdIn(Collection<String> studentIds);
     boolean existsByCourseIdAndStudentId(String courseId, String studentId);
+    Optional<EnrollmentRecord> findByCourseIdAndStudentId(String courseId, String studentId);
+    List<EnrollmentRecord> findByCourseIdAndStudentIdIn(String courseId, Collection<String> studentIds);
     long countByCourseId(String courseId);
     long countByStudentId(String studentId);
+
+    // 游标分页：按主键升序，after 为上一页最后一条的 id
+    List<EnrollmentRecord> findAllByOrderByIdAsc(Pageable pageable);
+    List<EnrollmentRecord> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+    List<EnrollmentRecord> findByCourseIdOrderByIdAsc(String courseId, Pageable pageable);
+    List<EnrollmentRecord> findByCourseIdAndIdGreaterThanOrderByIdAsc(String courseId, String after, Pageable pageable);
+    List<EnrollmentRecord> findByStudentIdOrderByIdAsc(String studentId, Pageable pageable);
+    List<EnrollmentRecord> findByStudentIdAndIdGreaterThanOrderByIdAsc(String studentId, String after, Pageable pageable);
+
+    // 候补队列：按加入时间先后（同一时刻按 id）取队首
+    @Query("select e from EnrollmentRecord e where e.courseId = :courseId and e.status = 'WAITLISTED' "
+            + "order by e.enrolledAt, e.id")
+    List<EnrollmentRecord> findWaitlistHead(@Param("courseId") String courseId, Pageable pageable);
+
+    // 排在该记录之前的候补人数
+    @Query("select count(e) from EnrollmentRecord e where e.courseId = :courseId and e.status = 'WAITLISTED' "
+            + "and (e.enrolledAt < :joinedAt or (e.enrolledAt = :joinedAt and e.id < :id))")
+    long countWaitlistAhead(@Param("courseId") String courseId, @Param("joinedAt") LocalDateTime joinedAt,
+                            @Param("id") String id);
+
+    // 各课程已占座的人数（历史数据 status 为 null，视同 ENROLLED）：每行为 [courseId, count]
+    @Query("select e.courseId, count(e) from EnrollmentRecord e "
+            + "where e.status is null or e.status <> 'WAITLISTED' group by e.courseId")
+    List<Object[]> countEnrolledByCourse();
+
+    @Query("select distinct e.courseId from EnrollmentRecord e where e.status = 'WAITLISTED'")
+    List<String> findWaitlistedCourseIds();
+
+    // 条件更新：只递补仍在候补中的记录（多个实例同时递补时不会重复），返回实际递补的条数
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update EnrollmentRecord e set e.status = 'ENROLLED', e.enrolledAt = :now "
+            + "where e.id in :ids and e.status = 'WAITLISTED'")
+    int promoteWaitlisted(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    // 流式读取全部选课记录（需在只读事务中消费并关闭 Stream）
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select e from EnrollmentRecord e order by e.id")
+    Stream<EnrollmentRecord> streamAll();
 }
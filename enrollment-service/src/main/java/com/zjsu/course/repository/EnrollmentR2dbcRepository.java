@@ -0,0 +1,26 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.EnrollmentRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * enrollments 表的非阻塞访问（reactive profile）；主键由调用方生成，插入使用 R2dbcEntityTemplate#insert
+ */
+@Repository
+public interface EnrollmentR2dbcRepository extends R2dbcRepository<EnrollmentRecord, String> {
+    Flux<EnrollmentRecord> findByCourseId(String courseId);
+    Flux<EnrollmentRecord> findByStudentId(String studentId);
+    Mono<EnrollmentRecord> findByCourseIdAndStudentId(String courseId, String studentId);
+
+    // 游标分页：按主键升序，after 为上一页最后一条的 id
+    Flux<EnrollmentRecord> findAllByOrderByIdAsc(Pageable pageable);
+    Flux<EnrollmentRecord> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+    Flux<EnrollmentRecord> findByCourseIdOrderByIdAsc(String courseId, Pageable pageable);
+    Flux<EnrollmentRecord> findByCourseIdAndIdGreaterThanOrderByIdAsc(String courseId, String after, Pageable pageable);
+    Flux<EnrollmentRecord> findByStudentIdOrderByIdAsc(String studentId, Pageable pageable);
+    Flux<EnrollmentRecord> findByStudentIdAndIdGreaterThanOrderByIdAsc(String studentId, String after, Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventJpaRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // 尚未分配投递键的事件，按写入顺序
+    List<OutboxEvent> findByDeliveryKeyIsNullOrderByIdAsc(Pageable pageable);
+
+    // 条件分配投递键：已被其他实例分配的事件不会被覆盖
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.deliveryKey = :key where e.id in :ids and e.deliveryKey is null")
+    int assignDeliveryKey(@Param("key") String key, @Param("ids") Collection<Long> ids);
+
+    // 按投递键合并待投递的增量：每行为 [deliveryKey, courseId, sum(delta)]，最早写入的优先
+    @Query("select e.deliveryKey, e.courseId, sum(e.delta) from OutboxEvent e where e.deliveryKey is not null "
+            + "group by e.deliveryKey, e.courseId order by min(e.id)")
+    List<Object[]> sumPendingByDeliveryKey(Pageable pageable);
+
+    // 全部未投递完成的增量（含尚未分配投递键的）：每行为 [deliveryKey, courseId, sum(delta)]
+    @Query("select e.deliveryKey, e.courseId, sum(e.delta) from OutboxEvent e group by e.deliveryKey, e.courseId")
+    List<Object[]> sumAllPending();
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = e.attempts + 1 where e.deliveryKey in :keys")
+    int incrementAttempts(@Param("keys") Collection<String> keys);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxEvent e where e.deliveryKey in :keys")
+    int deleteByDeliveryKeys(@Param("keys") Collection<String> keys);
+}
@@ -0,0 +1,47 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollmentView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StudentEnrollmentViewJpaRepository extends JpaRepository<StudentEnrollmentView, String> {
+
+    // “我的课程”：一次按 student_id 读取，按选课时间排序
+    List<StudentEnrollmentView> findByStudentIdOrderByEnrolledAtAscIdAsc(String studentId);
+
+    // 课程快照与最新摘要不一致（或尚未同步）的投影行
+    @Query("select v from StudentEnrollmentView v where v.courseId = :courseId "
+            + "and (v.courseDigest is null or v.courseDigest <> :digest)")
+    List<StudentEnrollmentView> findStaleByCourseId(@Param("courseId") String courseId, @Param("digest") String digest);
+
+    @Query("select distinct v.courseId from StudentEnrollmentView v")
+    List<String> findCourseIds();
+
+    // 与候补递补的条件更新对应：只更新仍在候补中的投影行
+    @Modifying(flushAutomatically = true)
+    @Query("update StudentEnrollmentView v set v.status = 'ENROLLED', v.enrolledAt = :now "
+            + "where v.id in :ids and v.status = 'WAITLISTED'")
+    int promoteWaitlisted(@Param("ids") Collection<String> ids, @Param("now") LocalDateTime now);
+
+    // 对账：没有投影行或状态、时间与投影不一致的选课记录（按 id 分页）
+    @Query("select e from EnrollmentRecord e where e.id > :after and not exists (select v.id from StudentEnrollmentView v "
+            + "where v.id = e.id and v.status = coalesce(e.status, 'ENROLLED') "
+            + "and (v.enrolledAt = e.enrolledAt or (v.enrolledAt is null and e.enrolledAt is null))) "
+            + "order by e.id")
+    List<EnrollmentRecord> findUnprojected(@Param("after") String after, Pageable pageable);
+
+    // 对账：选课记录已不存在的投影行
+    @Query("select v from StudentEnrollmentView v where not exists "
+            + "(select e.id from EnrollmentRecord e where e.id = v.id)")
+    List<StudentEnrollmentView> findOrphaned(Pageable pageable);
+}
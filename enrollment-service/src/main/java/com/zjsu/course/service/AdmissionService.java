@@ -0,0 +1,352 @@
+package com.zjsu.course.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.exception.TooManyRequestsException;
+import com.zjsu.course.model.BatchEnrollmentResult;
+import com.zjsu.course.model.EnrollmentRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 选课准入队列（开放选课瞬间的排队入口）：POST /api/enrollments/admissions 只把请求放入内存队列并立即返回票据，
+ * 不在请求线程上做远程校验与数据库写入。
+ * <p>
+ * 请求中的课程 id 或代码先经课程查询缓存解析为课程 id（不存在的课程直接 404），
+ * 再按 id 哈希到固定数量的分片，每个分片一个工作线程，同一课程的请求总在同一线程上按到达顺序处理，
+ * 课程之间互不争用，也不需要数据库锁；工作线程每次取出队列中最多 batch-size 张票据，
+ * 以一次批量选课（每门课程一次计数占座、一次批量插入）处理。
+ * 每门课程排队数与每个分片的总排队数都有上限，超出时返回 429 与 Retry-After；课程的排队计数在队列清空时移除。
+ * 票据状态在本实例内存中保留 ticket-ttl，实例重启时未处理的票据丢失（客户端按 404 重新提交）。
+ */
+@Service
+public class AdmissionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionService.class);
+
+    public static final String QUEUED = "QUEUED";
+    public static final String PROCESSING = "PROCESSING";
+    public static final String ADMITTED = "ADMITTED";
+    public static final String REJECTED = "REJECTED";
+
+    private final EnrollmentService enrollmentService;
+    private final CatalogServiceClient catalogServiceClient;
+    private final RemoteLookupCache lookupCache;
+    private final MeterRegistry meterRegistry;
+    private final Shard[] shards;
+    private final int courseQueueCapacity;
+    private final int batchSize;
+    private final long retryAfterSeconds;
+
+    private final Map<String, CourseLane> lanes = new ConcurrentHashMap<>();
+    private final Cache<String, Ticket> tickets;
+    private final Timer waitTimer;
+    private final Timer processTimer;
+    private final Counter throttled;
+
+    public AdmissionService(EnrollmentService enrollmentService,
+                            CatalogServiceClient catalogServiceClient,
+                            RemoteLookupCache lookupCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${enrollment.admission.shards:4}") int shardCount,
+                            @Value("${enrollment.admission.shard-queue-capacity:10000}") int shardQueueCapacity,
+                            @Value("${enrollment.admission.course-queue-capacity:2000}") int courseQueueCapacity,
+                            @Value("${enrollment.admission.batch-size:100}") int batchSize,
+                            @Value("${enrollment.admission.retry-after:2s}") Duration retryAfter,
+                            @Value("${enrollment.admission.ticket-ttl:10m}") Duration ticketTtl,
+                            @Value("${enrollment.admission.ticket-max-size:200000}") long ticketMaxSize) {
+        this.enrollmentService = enrollmentService;
+        this.catalogServiceClient = catalogServiceClient;
+        this.lookupCache = lookupCache;
+        this.meterRegistry = meterRegistry;
+        this.courseQueueCapacity = courseQueueCapacity;
+        this.batchSize = batchSize;
+        this.retryAfterSeconds = Math.max(1, retryAfter.getSeconds());
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(ticketMaxSize)
+                .expireAfterWrite(ticketTtl)
+                .build();
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(i, shardQueueCapacity);
+            shards[i] = shard;
+            Gauge.builder("enrollment.admission.queue.depth", shard.queue, BlockingQueue::size)
+                    .description("Admission tickets waiting in a shard queue")
+                    .tag("shard", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder("enrollment.admission.wait")
+                .description("Time an admission ticket spends queued before processing")
+                .register(meterRegistry);
+        this.processTimer = Timer.builder("enrollment.admission.process")
+                .description("Time to process one batch of admission tickets")
+                .register(meterRegistry);
+        this.throttled = meterRegistry.counter("enrollment.admission.tickets", "outcome", "THROTTLED");
+        Gauge.builder("enrollment.admission.lanes", lanes, Map::size)
+                .description("Courses with admission tickets not yet processed")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Shard shard : shards) {
+            if (shard.worker.getState() == Thread.State.NEW) {
+                shard.worker.start();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.worker.interrupt();
+        }
+    }
+
+    /**
+     * 排队：返回 QUEUED 票据（含排位）；该课程或所在分片的队列已满时抛出 TooManyRequestsException
+     */
+    public Map<String, Object> submit(EnrollmentRecord request) {
+        if (request.getCourseId() == null || request.getCourseId().trim().isEmpty()) {
+            throw new BusinessException("课程ID不能为空");
+        }
+        if (request.getStudentId() == null || request.getStudentId().trim().isEmpty()) {
+            throw new BusinessException("学生ID不能为空");
+        }
+        String courseId = resolveCourseId(request.getCourseId().trim());
+        String studentId = request.getStudentId().trim();
+
+        CourseLane lane = enter(courseId);
+        if (lane == null) {
+            throttled.increment();
+            throw new TooManyRequestsException("Admission queue is full for course: " + courseId, retryAfterSeconds);
+        }
+        Ticket ticket = new Ticket(UUID.randomUUID().toString(), courseId, studentId, lane,
+                lane.submitted.incrementAndGet(), meterRegistry.config().clock().monotonicTime());
+        tickets.put(ticket.id, ticket);
+        if (!shardOf(courseId).queue.offer(ticket)) {
+            leave(courseId, lane);
+            tickets.invalidate(ticket.id);
+            throttled.increment();
+            throw new TooManyRequestsException("Admission queue is full", retryAfterSeconds);
+        }
+        return describe(ticket);
+    }
+
+    /**
+     * 票据状态：QUEUED（附带 position）、PROCESSING、ADMITTED（附带 enrollmentId）或 REJECTED（附带 reason / message）
+     */
+    public Map<String, Object> status(String ticketId) {
+        Ticket ticket = tickets.getIfPresent(ticketId);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("Admission ticket not found with id: " + ticketId);
+        }
+        return describe(ticket);
+    }
+
+    /**
+     * 课程 id 或代码解析为课程 id（同一课程不论以哪种 key 提交都进入同一 lane 与分片）；
+     * 课程查询走本地缓存，catalog-service 不可用时按原样使用
+     */
+    private String resolveCourseId(String key) {
+        if (lookupCache.isCourseKnownMissing(key)) {
+            throw new ResourceNotFoundException("Course not found with id: " + key);
+        }
+        Optional<Map<String, Object>> course;
+        try {
+            course = lookupCache.courses(Collections.singleton(key), catalogServiceClient::lookupCourses).get(key);
+        } catch (RuntimeException e) {
+            log.debug("Admission could not resolve course {}, queueing by key: {}", key, e.getMessage());
+            return key;
+        }
+        if (course == null || !course.isPresent()) {
+            throw new ResourceNotFoundException("Course not found with id: " + key);
+        }
+        Object id = course.get().get("id");
+        return id instanceof String ? (String) id : key;
+    }
+
+    /**
+     * 占用课程 lane 的一个排队名额，该课程排队已满时返回 null。与 leave 都在 lanes 的同一 key 上原子执行，
+     * lane 在排队数降为 0 时移除，不会被并发的 enter 复用到已移除的 lane
+     */
+    private CourseLane enter(String courseId) {
+        CourseLane[] entered = new CourseLane[1];
+        lanes.compute(courseId, (k, lane) -> {
+            CourseLane current = lane == null ? new CourseLane() : lane;
+            if (current.depth.get() < courseQueueCapacity) {
+                current.depth.incrementAndGet();
+                entered[0] = current;
+            }
+            return current.depth.get() == 0 ? null : current;
+        });
+        return entered[0];
+    }
+
+    private void leave(String courseId, CourseLane lane) {
+        lanes.computeIfPresent(courseId, (k, current) ->
+                lane.depth.decrementAndGet() == 0 && current == lane ? null : current);
+    }
+
+    private Shard shardOf(String courseId) {
+        return shards[Math.floorMod(courseId.hashCode(), shards.length)];
+    }
+
+    private void drain(Shard shard) {
+        List<Ticket> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(shard.queue.take());
+                shard.queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                log.error("Admission shard {} failed to process {} tickets", shard.index, batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Ticket> batch) {
+        long start = meterRegistry.config().clock().monotonicTime();
+        List<EnrollmentRecord> requests = new ArrayList<>(batch.size());
+        for (Ticket ticket : batch) {
+            waitTimer.record(start - ticket.submittedAt, TimeUnit.NANOSECONDS);
+            ticket.status = PROCESSING;
+            EnrollmentRecord request = new EnrollmentRecord();
+            request.setCourseId(ticket.courseId);
+            request.setStudentId(ticket.studentId);
+            requests.add(request);
+        }
+        try {
+            List<BatchEnrollmentResult> results = enrollmentService.createEnrollments(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                BatchEnrollmentResult result = results.get(i);
+                if (BatchEnrollmentResult.CREATED.equals(result.getStatus())) {
+                    batch.get(i).admit(result.getEnrollmentId());
+                } else {
+                    batch.get(i).reject(result.getStatus(), result.getMessage());
+                }
+            }
+        } catch (RuntimeException e) {
+            // 整批失败（如数据库异常）：逐张拒绝，客户端可重新排队
+            log.warn("Admission batch of {} tickets failed: {}", batch.size(), e.getMessage());
+            for (Ticket ticket : batch) {
+                ticket.reject(BatchEnrollmentResult.FAILED, e.getMessage());
+            }
+        } finally {
+            for (Ticket ticket : batch) {
+                if (PROCESSING.equals(ticket.status)) {
+                    ticket.reject(BatchEnrollmentResult.FAILED, "Admission was not processed");
+                }
+                ticket.lane.processed.accumulateAndGet(ticket.sequence, Math::max);
+                leave(ticket.courseId, ticket.lane);
+                meterRegistry.counter("enrollment.admission.tickets", "outcome", ticket.status).increment();
+            }
+            processTimer.record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Map<String, Object> describe(Ticket ticket) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ticketId", ticket.id);
+        result.put("courseId", ticket.courseId);
+        result.put("studentId", ticket.studentId);
+        String status = ticket.status;
+        result.put("status", status);
+        if (QUEUED.equals(status)) {
+            result.put("position", Math.max(1, ticket.sequence - ticket.lane.processed.get()));
+        } else if (ADMITTED.equals(status)) {
+            result.put("enrollmentId", ticket.enrollmentId);
+        } else if (REJECTED.equals(status)) {
+            result.put("reason", ticket.reason);
+            result.put("message", ticket.message);
+        }
+        return result;
+    }
+
+    /**
+     * 单门课程的排队计数：depth 为未处理票据数（用于限流），submitted / processed 为序号（用于计算排位）
+     */
+    private static final class CourseLane {
+        final AtomicInteger depth = new AtomicInteger();
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong processed = new AtomicLong();
+    }
+
+    private static final class Ticket {
+        final String id;
+        final String courseId;
+        final String studentId;
+        final CourseLane lane;
+        final long sequence;
+        final long submittedAt;
+        volatile String status = QUEUED;
+        volatile String enrollmentId;
+        volatile String reason;
+        volatile String message;
+
+        Ticket(String id, String courseId, String studentId, CourseLane lane, long sequence, long submittedAt) {
+            this.id = id;
+            this.courseId = courseId;
+            this.studentId = studentId;
+            this.lane = lane;
+            this.sequence = sequence;
+            this.submittedAt = submittedAt;
+        }
+
+        void admit(String enrollmentId) {
+            this.enrollmentId = enrollmentId;
+            this.status = ADMITTED;
+        }
+
+        void reject(String reason, String message) {
+            this.reason = reason;
+            this.message = message;
+            this.status = REJECTED;
+        }
+    }
+
+    private final class Shard {
+        final int index;
+        final BlockingQueue<Ticket> queue;
+        final Thread worker;
+
+        Shard(int index, int capacity) {
+            this.index = index;
+            this.queue = new LinkedBlockingQueue<>(capacity);
+            this.worker = new Thread(() -> drain(this), "admission-" + index);
+            this.worker.setDaemon(true);
+        }
+    }
+}
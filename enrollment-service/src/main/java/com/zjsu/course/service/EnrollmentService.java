@@ -1,20 +1,46 @@
 package com.zjsu.course.service;
 
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.client.UserServiceClient;
+import com.zjsu.course.common.CursorPage;
 import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.CourseFullException;
 import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.exception.ServiceUnavailableException;
+import com.zjsu.course.model.BatchEnrollmentResult;
+import com.zjsu.course.model.EnrollmentDetail;
 import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollments;
 import com.zjsu.course.repository.EnrollmentJpaRepository;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.HashMap;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 选课业务逻辑层（通过 HTTP 调用 catalog-service、user-service）
@@ -22,28 +48,77 @@ import java.util.Map;
 @Service
 public class EnrollmentService {
 
-    private final EnrollmentJpaRepository enrollmentRepository;
-    private final RestTemplate restTemplate;
-    private final DiscoveryClient discoveryClient;
-
-    @Value("${services.user-service.url:user-service}")
-    private String userServiceBase;
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentService.class);
 
-    @Value("${services.catalog-service.url:catalog-service}")
-    private String catalogServiceBase;
+    private final EnrollmentJpaRepository enrollmentRepository;
+    private final UserServiceClient userServiceClient;
+    private final CatalogServiceClient catalogServiceClient;
+    private final RemoteLookupCache lookupCache;
+    private final SeatDeltaOutbox seatDeltaOutbox;
+    private final TimetableService timetableService;
+    private final WaitlistService waitlistService;
+    private final StudentEnrollmentProjection projection;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor asyncExecutor;
+    private final int maxBatchItems;
 
     public EnrollmentService(EnrollmentJpaRepository enrollmentRepository,
-                             RestTemplate restTemplate,
-                             DiscoveryClient discoveryClient) {
+                             UserServiceClient userServiceClient,
+                             CatalogServiceClient catalogServiceClient,
+                             RemoteLookupCache lookupCache,
+                             SeatDeltaOutbox seatDeltaOutbox,
+                             TimetableService timetableService,
+                             WaitlistService waitlistService,
+                             StudentEnrollmentProjection projection,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier("applicationTaskExecutor") Executor asyncExecutor,
+                             @Value("${enrollment.batch.max-items:1000}") int maxBatchItems) {
         this.enrollmentRepository = enrollmentRepository;
-        this.restTemplate = restTemplate;
-        this.discoveryClient = discoveryClient;
+        this.userServiceClient = userServiceClient;
+        this.catalogServiceClient = catalogServiceClient;
+        this.lookupCache = lookupCache;
+        this.seatDeltaOutbox = seatDeltaOutbox;
+        this.timetableService = timetableService;
+        this.waitlistService = waitlistService;
+        this.projection = projection;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.asyncExecutor = asyncExecutor;
+        this.maxBatchItems = maxBatchItems;
     }
 
     public List<EnrollmentRecord> getAllEnrollments() {
         return enrollmentRepository.findAll();
     }
 
+    /**
+     * 游标分页查询选课记录（按 id 升序），after 为上一页返回的 nextCursor
+     */
+    public CursorPage<EnrollmentRecord> getEnrollmentPage(String after, Integer limit) {
+        int size = CursorPage.normalizeLimit(limit);
+        String afterId = CursorPage.decodeCursor(after);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<EnrollmentRecord> rows = afterId == null
+                ? enrollmentRepository.findAllByOrderByIdAsc(page)
+                : enrollmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        return CursorPage.of(rows, size, EnrollmentRecord::getId);
+    }
+
+    /**
+     * 流式遍历全部选课记录：逐条交给 action 处理后从持久化上下文中移除，避免一次性加载整个列表
+     */
+    @Transactional(readOnly = true)
+    public void streamEnrollments(Consumer<EnrollmentRecord> action) {
+        try (Stream<EnrollmentRecord> enrollments = enrollmentRepository.streamAll()) {
+            enrollments.forEach(enrollment -> {
+                action.accept(enrollment);
+                entityManager.detach(enrollment);
+            });
+        }
+    }
+
     public EnrollmentRecord getEnrollmentById(String id) {
         return enrollmentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Enrollment not found with id: " + id));
@@ -51,6 +126,48 @@ public class EnrollmentService {
 
     @Transactional
     public EnrollmentRecord createEnrollment(EnrollmentRecord enrollment) {
+        return createEnrollment(enrollment, false);
+    }
+
+    /**
+     * 选课；joinWaitlist 为 true 时课程已满则加入候补队列（返回 WAITLISTED 记录），有空位时由 WaitlistService 递补
+     */
+    @Transactional
+    public EnrollmentRecord createEnrollment(EnrollmentRecord enrollment, boolean joinWaitlist) {
+        PendingEnrollment pending = begin(enrollment);
+        pending.completion().join();
+        if (pending.seatReserved()) {
+            // 本地事务回滚（学生不存在、唯一键冲突等）时归还已占的座位
+            releaseSeatsOnRollback(pending.courseId, 1);
+        }
+        return finish(enrollment, pending, joinWaitlist);
+    }
+
+    /**
+     * 异步选课（execution.mode=async）：校验并发出学生查询与占座后立即返回，不在请求线程上等待下游；
+     * 两个调用都返回后在 applicationTaskExecutor 上以独立事务写库。
+     * 失败时撤销课表登记，已占的座位经 outbox 归还
+     */
+    public CompletableFuture<EnrollmentRecord> createEnrollmentAsync(EnrollmentRecord enrollment, boolean joinWaitlist) {
+        PendingEnrollment pending = begin(enrollment);
+        return pending.completion()
+                .thenApplyAsync(ignored -> transactionTemplate.execute(status -> finish(enrollment, pending, joinWaitlist)),
+                        asyncExecutor)
+                .whenComplete((record, e) -> {
+                    if (e == null) {
+                        return;
+                    }
+                    pending.reservation.release();
+                    if (pending.seatReserved()) {
+                        seatDeltaOutbox.appendAfterRollback(pending.courseId, -1);
+                    }
+                });
+    }
+
+    /**
+     * 选课的前半段：参数与重复校验、课表冲突登记，发出学生校验（优先命中本地缓存）与 catalog-service 原子占座
+     */
+    private PendingEnrollment begin(EnrollmentRecord enrollment) {
         if (enrollment.getCourseId() == null || enrollment.getCourseId().trim().isEmpty()) {
             throw new BusinessException("课程ID不能为空");
         }
@@ -61,50 +178,73 @@ public class EnrollmentService {
         String courseId = enrollment.getCourseId().trim();
         String studentId = enrollment.getStudentId().trim();
 
-        // 校验学生是否存在（服务发现 + 负载均衡调用 user-service）
-        ensureServiceAvailable(resolveServiceName(userServiceBase), "user-service");
-        String userUrl = buildServiceUrl(userServiceBase, "/api/students/" + studentId);
-        try {
-            restTemplate.getForObject(userUrl, Map.class);
-        } catch (HttpClientErrorException.NotFound e) {
-            throw new ResourceNotFoundException("Student not found with id: " + studentId);
-        } catch (Exception e) {
-            throw new BusinessException("Failed to call user service: " + e.getMessage());
+        if (lookupCache.isCourseKnownMissing(courseId)) {
+            throw new ResourceNotFoundException("Course not found with id: " + courseId);
         }
+        Optional<EnrollmentRecord> existing = enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId);
+        if (existing.isPresent()) {
+            throw new BusinessException(existing.get().isWaitlisted()
+                    ? "Already waitlisted for this course" : "Already enrolled in this course");
+        }
+        // 课表冲突检测，在事务中登记时事务未提交即自动撤销
+        TimetableService.Reservation reservation = timetableService.reserve(studentId, courseId);
 
-        // 调用 catalog-service 校验课程并获取容量
-        ensureServiceAvailable(resolveServiceName(catalogServiceBase), "catalog-service");
-        String url = buildServiceUrl(catalogServiceBase, "/api/courses/" + courseId);
-        Map<String, Object> response;
         try {
-            response = restTemplate.getForObject(url, Map.class);
-        } catch (HttpClientErrorException.NotFound e) {
-            throw new ResourceNotFoundException("Course not found with id: " + courseId);
-        } catch (Exception e) {
-            throw new BusinessException("Failed to call catalog service: " + e.getMessage());
+            CompletableFuture<Optional<Map<String, Object>>> student =
+                    lookupCache.studentAsync(studentId, userServiceClient::getStudentAsync);
+            CompletableFuture<Integer> reserved = reserveForStudent(student, courseId);
+            return new PendingEnrollment(courseId, studentId, reservation, student, reserved);
+        } catch (RuntimeException e) {
+            // 熔断打开、舱壁已满等同步抛出的异常
+            reservation.release();
+            throw e;
         }
+    }
 
-        Map<String, Object> courseData = extractDataOrSelf(response, "catalog service");
-        Number capacityNum = (Number) courseData.get("capacity");
-        Number enrolledNum = (Number) courseData.get("enrolled");
-        int capacity = capacityNum == null ? 0 : capacityNum.intValue();
-        int enrolledCount = enrolledNum == null ? 0 : enrolledNum.intValue();
+    /**
+     * 学生确认存在后再占座：学生命中本地缓存时立即占座，未命中时等学生查询返回后再发出。
+     * 不存在的学生（或学生查询失败）不占座，否则座位要等 outbox 投递才能归还，高峰期会挤掉真实学生
+     */
+    CompletableFuture<Integer> reserveForStudent(CompletableFuture<Optional<Map<String, Object>>> student,
+                                                 String courseId) {
+        return student.thenCompose(found -> {
+            if (found.isPresent()) {
+                return catalogServiceClient.reserveSeatsAsync(courseId, 1, false);
+            }
+            // 结果不会被读取：finish / resolveStatus 先检查学生并返回 404
+            CompletableFuture<Integer> skipped = new CompletableFuture<>();
+            skipped.completeExceptionally(new ResourceNotFoundException("Student not found"));
+            return skipped;
+        });
+    }
 
-        if (enrolledCount >= capacity) {
-            throw new BusinessException("Course is full");
+    /**
+     * 选课的后半段（在事务中、两个下游调用都已返回）：判断结果并写入选课记录
+     */
+    private EnrollmentRecord finish(EnrollmentRecord enrollment, PendingEnrollment pending, boolean joinWaitlist) {
+        if (!await(pending.student).isPresent()) {
+            throw new ResourceNotFoundException("Student not found with id: " + pending.studentId);
         }
-
-        if (enrollmentRepository.existsByCourseIdAndStudentId(courseId, studentId)) {
-            throw new BusinessException("Already enrolled in this course");
+        String status = EnrollmentRecord.ENROLLED;
+        try {
+            await(pending.reserved);
+        } catch (ResourceNotFoundException e) {
+            lookupCache.markCourseMissing(pending.courseId);
+            throw e;
+        } catch (CourseFullException e) {
+            // 已满：加入候补（不占座）；其他业务错误（key 有歧义等）直接返回
+            if (!joinWaitlist) {
+                throw e;
+            }
+            status = EnrollmentRecord.WAITLISTED;
         }
 
-        enrollment.setCourseId(courseId);
-        enrollment.setStudentId(studentId);
-
-        EnrollmentRecord saved = enrollmentRepository.save(enrollment);
-
-        updateCourseEnrolledCount(courseId, enrolledCount + 1);
+        enrollment.setCourseId(pending.courseId);
+        enrollment.setStudentId(pending.studentId);
+        enrollment.setStatus(status);
 
+        EnrollmentRecord saved = enrollmentRepository.saveAndFlush(enrollment);
+        projection.enrolled(Collections.singletonList(saved));
         return saved;
     }
 
@@ -113,18 +253,227 @@ public class EnrollmentService {
         EnrollmentRecord enrollment = getEnrollmentById(id);
 
         enrollmentRepository.deleteById(id);
+        projection.removed(enrollment);
+
+        if (enrollment.isWaitlisted()) {
+            // 候补记录未占座，只需通知长轮询的客户端
+            waitlistService.removedAfterCommit(id);
+        } else {
+            // 与删除在同一事务中写入 outbox，由后台任务合并后投递给 catalog-service，投递后触发候补递补
+            seatDeltaOutbox.append(enrollment.getCourseId(), -1);
+        }
+        timetableService.removeAfterCommit(enrollment.getStudentId(), enrollment.getCourseId());
+    }
 
-        String courseId = enrollment.getCourseId();
-        long remaining = enrollmentRepository.countByCourseId(courseId);
-        updateCourseEnrolledCount(courseId, (int) remaining);
+    /**
+     * 批量选课：去重后按学生、按课程批量校验，每门课程一次计数占座，
+     * 所有记录在同一事务中批量插入，返回与请求顺序一致的逐条结果。
+     * 课表冲突按请求顺序检测（同一批中后出现的冲突课程被拒绝），未成功的条目撤销课表登记。
+     * 单次最多 max-items 条（整批在一个事务中），超出时在任何校验之前整体拒绝
+     */
+    @Transactional
+    public List<BatchEnrollmentResult> createEnrollments(List<EnrollmentRecord> requests) {
+        if (requests.size() > maxBatchItems) {
+            throw new BusinessException("Too many items in batch: " + requests.size() + " (max " + maxBatchItems + ")");
+        }
+        List<BatchEnrollmentResult> results = new ArrayList<>();
+        Map<String, Map<String, BatchEnrollmentResult>> pendingByCourse = new LinkedHashMap<>();
+
+        // 一次批量查询校验所有学生（已缓存的不再远程调用）
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (EnrollmentRecord request : requests) {
+            if (request.getStudentId() != null && !request.getStudentId().trim().isEmpty()) {
+                studentIds.add(request.getStudentId().trim());
+            }
+        }
+        Map<String, Optional<Map<String, Object>>> students = studentIds.isEmpty()
+                ? Collections.emptyMap()
+                : lookupCache.students(studentIds, userServiceClient::lookupStudents);
+        Set<String> courseIds = new LinkedHashSet<>();
+        for (EnrollmentRecord request : requests) {
+            if (request.getCourseId() != null && !request.getCourseId().trim().isEmpty()) {
+                courseIds.add(request.getCourseId().trim());
+            }
+        }
+        timetableService.preload(studentIds, courseIds);
+        Map<BatchEnrollmentResult, TimetableService.Reservation> reservations = new LinkedHashMap<>();
+
+        for (EnrollmentRecord request : requests) {
+            String courseId = request.getCourseId() == null ? "" : request.getCourseId().trim();
+            String studentId = request.getStudentId() == null ? "" : request.getStudentId().trim();
+            BatchEnrollmentResult result = new BatchEnrollmentResult(studentId, courseId);
+            results.add(result);
+            if (courseId.isEmpty() || studentId.isEmpty()) {
+                result.fail(BatchEnrollmentResult.FAILED, "课程ID和学生ID不能为空");
+                continue;
+            }
+            Map<String, BatchEnrollmentResult> pending = pendingByCourse.computeIfAbsent(courseId, k -> new LinkedHashMap<>());
+            if (pending.containsKey(studentId)) {
+                result.fail(BatchEnrollmentResult.DUPLICATE, "Duplicate item in request");
+                continue;
+            }
+            Optional<Map<String, Object>> student = students.get(studentId);
+            if (student == null || !student.isPresent()) {
+                result.fail(BatchEnrollmentResult.FAILED, "Student not found with id: " + studentId);
+                continue;
+            }
+            try {
+                reservations.put(result, timetableService.reserve(studentId, courseId));
+            } catch (BusinessException e) {
+                result.fail(BatchEnrollmentResult.SCHEDULE_CONFLICT, e.getMessage());
+                continue;
+            }
+            pending.put(studentId, result);
+        }
+
+        List<EnrollmentRecord> toInsert = new ArrayList<>();
+        Map<EnrollmentRecord, BatchEnrollmentResult> resultByRecord = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, BatchEnrollmentResult>> entry : pendingByCourse.entrySet()) {
+            String courseId = entry.getKey();
+            Map<String, BatchEnrollmentResult> pending = entry.getValue();
+            if (pending.isEmpty()) {
+                continue;
+            }
+            for (EnrollmentRecord existing : enrollmentRepository.findByCourseIdAndStudentIdIn(courseId, pending.keySet())) {
+                BatchEnrollmentResult result = pending.remove(existing.getStudentId());
+                if (existing.isWaitlisted()) {
+                    result.fail(BatchEnrollmentResult.ALREADY_WAITLISTED, "Already waitlisted for this course");
+                } else {
+                    result.fail(BatchEnrollmentResult.ALREADY_ENROLLED, "Already enrolled in this course");
+                }
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+
+            int granted;
+            try {
+                if (lookupCache.isCourseKnownMissing(courseId)) {
+                    throw new ResourceNotFoundException("Course not found with id: " + courseId);
+                }
+                granted = reserveSeats(courseId, pending.size(), true);
+            } catch (RuntimeException e) {
+                pending.values().forEach(r -> r.fail(BatchEnrollmentResult.FAILED, e.getMessage()));
+                continue;
+            }
+            releaseSeatsOnRollback(courseId, granted);
+
+            int index = 0;
+            for (BatchEnrollmentResult result : pending.values()) {
+                if (index++ >= granted) {
+                    result.fail(BatchEnrollmentResult.FAILED, "Course is full");
+                    continue;
+                }
+                EnrollmentRecord record = new EnrollmentRecord();
+                record.setCourseId(courseId);
+                record.setStudentId(result.getStudentId());
+                toInsert.add(record);
+                resultByRecord.put(record, result);
+            }
+        }
+
+        // hibernate.jdbc.batch_size 开启后 saveAll 以 JDBC batch 方式插入（UUID 主键无需逐条回读）
+        enrollmentRepository.saveAll(toInsert);
+        enrollmentRepository.flush();
+        projection.enrolled(toInsert);
+        for (Map.Entry<EnrollmentRecord, BatchEnrollmentResult> entry : resultByRecord.entrySet()) {
+            entry.getValue().setStatus(BatchEnrollmentResult.CREATED);
+            entry.getValue().setEnrollmentId(entry.getKey().getId());
+        }
+        reservations.forEach((result, reservation) -> {
+            if (!BatchEnrollmentResult.CREATED.equals(result.getStatus())) {
+                reservation.release();
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 游标分页查询选课记录并附带课程、学生详情（按 id 升序）：courseId / studentId 为可选过滤条件，
+     * 每页只为本页记录解析详情
+     */
+    public CursorPage<EnrollmentDetail> getEnrollmentDetails(String courseId, String studentId, String after, Integer limit) {
+        int size = CursorPage.normalizeLimit(limit);
+        String afterId = CursorPage.decodeCursor(after);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<EnrollmentRecord> rows;
+        if (courseId != null && studentId != null) {
+            rows = new ArrayList<>(enrollmentRepository.findByCourseIdAndStudentIdIn(courseId, Collections.singleton(studentId)));
+            if (afterId != null) {
+                rows.removeIf(record -> record.getId().compareTo(afterId) <= 0);
+            }
+        } else if (courseId != null) {
+            rows = afterId == null
+                    ? enrollmentRepository.findByCourseIdOrderByIdAsc(courseId, page)
+                    : enrollmentRepository.findByCourseIdAndIdGreaterThanOrderByIdAsc(courseId, afterId, page);
+        } else if (studentId != null) {
+            rows = afterId == null
+                    ? enrollmentRepository.findByStudentIdOrderByIdAsc(studentId, page)
+                    : enrollmentRepository.findByStudentIdAndIdGreaterThanOrderByIdAsc(studentId, afterId, page);
+        } else {
+            rows = afterId == null
+                    ? enrollmentRepository.findAllByOrderByIdAsc(page)
+                    : enrollmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        }
+        return detailPage(CursorPage.of(rows, size, EnrollmentRecord::getId));
+    }
+
+    /**
+     * 把一页选课记录转换为同一游标的详情页
+     */
+    public CursorPage<EnrollmentDetail> detailPage(CursorPage<EnrollmentRecord> page) {
+        return new CursorPage<>(resolveDetails(page.getItems()), page.getNextCursor(), page.getLimit());
+    }
+
+    /**
+     * 为一页选课记录解析课程与学生详情：课程、学生各一次批量查询（命中缓存的 key 不再远程调用），
+     * 而不是每条记录各调用一次。catalog-service 不可用时课程详情降级为最近一次的缓存快照
+     */
+    public List<EnrollmentDetail> resolveDetails(List<EnrollmentRecord> records) {
+        Set<String> courseIds = new LinkedHashSet<>();
+        Set<String> studentIds = new LinkedHashSet<>();
+        for (EnrollmentRecord record : records) {
+            courseIds.add(record.getCourseId());
+            studentIds.add(record.getStudentId());
+        }
+        Map<String, Optional<Map<String, Object>>> courses = Collections.emptyMap();
+        Map<String, Map<String, Object>> snapshots = null;
+        if (!courseIds.isEmpty()) {
+            try {
+                courses = lookupCache.courses(courseIds, catalogServiceClient::lookupCourses);
+            } catch (ServiceUnavailableException | CallNotPermittedException | BulkheadFullException e) {
+                log.warn("catalog-service unavailable, serving cached course snapshots: {}", e.getMessage());
+                snapshots = lookupCache.courseSnapshots(courseIds);
+            }
+        }
+        Map<String, Optional<Map<String, Object>>> students = studentIds.isEmpty()
+                ? Collections.emptyMap()
+                : lookupCache.students(studentIds, userServiceClient::lookupStudents);
+
+        List<EnrollmentDetail> details = new ArrayList<>(records.size());
+        for (EnrollmentRecord record : records) {
+            Map<String, Object> student = students.getOrDefault(record.getStudentId(), Optional.empty()).orElse(null);
+            if (snapshots != null) {
+                EnrollmentDetail detail = new EnrollmentDetail(record, snapshots.get(record.getCourseId()), student);
+                detail.setCourseStale(true);
+                details.add(detail);
+            } else {
+                details.add(new EnrollmentDetail(record,
+                        courses.getOrDefault(record.getCourseId(), Optional.empty()).orElse(null), student));
+            }
+        }
+        return details;
     }
 
     public List<EnrollmentRecord> getEnrollmentsByCourseId(String courseId) {
         return enrollmentRepository.findByCourseId(courseId);
     }
 
-    public List<EnrollmentRecord> getEnrollmentsByStudentId(String studentId) {
-        return enrollmentRepository.findByStudentId(studentId);
+    /**
+     * 学生的选课记录及课程摘要（选课投影，命中缓存时不访问数据库），附带 ETag
+     */
+    public StudentEnrollments getStudentEnrollments(String studentId) {
+        return projection.get(studentId);
     }
 
     public boolean existsByCourseIdAndStudentId(String courseId, String studentId) {
@@ -135,65 +484,74 @@ public class EnrollmentService {
         return enrollmentRepository.countByCourseId(courseId);
     }
 
-    private void updateCourseEnrolledCount(String courseId, int newCount) {
-        String url = buildServiceUrl(catalogServiceBase, "/api/courses/" + courseId);
-        Map<String, Object> updateData = new HashMap<>();
-        updateData.put("enrolled", newCount);
+    /**
+     * 调用 catalog-service 计数占座，课程不存在时记入负缓存
+     */
+    private int reserveSeats(String courseId, int count, boolean partial) {
         try {
-            restTemplate.put(url, updateData);
-        } catch (Exception e) {
-            System.err.println("Failed to update course enrolled count: " + e.getMessage());
+            return catalogServiceClient.reserveSeats(courseId, count, partial);
+        } catch (ResourceNotFoundException e) {
+            lookupCache.markCourseMissing(courseId);
+            throw e;
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> extractDataOrSelf(Map<String, Object> response, String sourceName) {
-        if (response == null) {
-            throw new BusinessException("Invalid response from " + sourceName);
-        }
-        Object data = response.get("data");
-        if (data instanceof Map) {
-            return (Map<String, Object>) data;
-        }
-        if (data == null && !response.isEmpty()) {
-            return response;
-        }
-        throw new BusinessException("Invalid response from " + sourceName);
+    /**
+     * 本地事务回滚时通过 outbox 归还已占的座位
+     */
+    private void releaseSeatsOnRollback(String courseId, int count) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    seatDeltaOutbox.appendAfterRollback(courseId, -count);
+                }
+            }
+        });
     }
 
-    private String buildServiceUrl(String base, String path) {
-        String normalized = base;
-        if (!normalized.startsWith("http://") && !normalized.startsWith("https://")) {
-            normalized = "http://" + normalized;
+    /**
+     * 已发出下游调用、尚未写库的单条选课
+     */
+    private static final class PendingEnrollment {
+        final String courseId;
+        final String studentId;
+        final TimetableService.Reservation reservation;
+        final CompletableFuture<Optional<Map<String, Object>>> student;
+        final CompletableFuture<Integer> reserved;
+
+        PendingEnrollment(String courseId, String studentId, TimetableService.Reservation reservation,
+                          CompletableFuture<Optional<Map<String, Object>>> student, CompletableFuture<Integer> reserved) {
+            this.courseId = courseId;
+            this.studentId = studentId;
+            this.reservation = reservation;
+            this.student = student;
+            this.reserved = reserved;
         }
-        if (path != null && !path.startsWith("/")) {
-            normalized = normalized + "/";
-        }
-        return path == null ? normalized : normalized + path;
-    }
 
-    private String resolveServiceName(String base) {
-        if (base == null || base.isEmpty()) {
-            return null;
+        /**
+         * 两个调用都结束（无论成败）时完成
+         */
+        CompletableFuture<Void> completion() {
+            return CompletableFuture.allOf(student, reserved).handle((ignored, ex) -> null);
         }
-        if (!base.startsWith("http://") && !base.startsWith("https://")) {
-            return base;
-        }
-        try {
-            java.net.URI uri = java.net.URI.create(base);
-            return uri.getHost();
-        } catch (Exception e) {
-            return null;
+
+        boolean seatReserved() {
+            return reserved.isDone() && !reserved.isCompletedExceptionally();
         }
     }
 
-    private void ensureServiceAvailable(String serviceName, String fallbackLabel) {
-        if (serviceName == null || discoveryClient == null) {
-            return;
-        }
-        List<ServiceInstance> instances = discoveryClient.getInstances(serviceName);
-        if (instances == null || instances.isEmpty()) {
-            throw new BusinessException("Service not available: " + (fallbackLabel != null ? fallbackLabel : serviceName));
+    /**
+     * 等待异步调用结果，并还原其中的业务异常
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
         }
     }
 }
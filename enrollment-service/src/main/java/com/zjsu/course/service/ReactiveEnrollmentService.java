@@ -0,0 +1,340 @@
+package com.zjsu.course.service;
+
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.client.UserServiceClient;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.CourseFullException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.model.BatchEnrollmentResult;
+import com.zjsu.course.model.EnrollmentDetail;
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollments;
+import com.zjsu.course.repository.EnrollmentR2dbcRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 选课业务逻辑层的响应式实现（reactive profile）：选课记录经 R2DBC 读写，学生校验与占座是 WebClient 发出的非阻塞调用，
+ * 单条选课、退课与查询都不阻塞事件循环线程。
+ * <p>
+ * 课表冲突检测（通常命中本地缓存）、候补状态查询与 outbox 补偿写入仍是 JDBC 调用，在 boundedElastic 线程上执行；
+ * 批量选课与选课详情委托给 EnrollmentService，同样在 boundedElastic 上执行。
+ * 选课投影（StudentEnrollmentProjection）经 JPA 写入，在 R2DBC 事务提交后执行，写入失败由投影的定期对账补齐。
+ */
+@Service
+@Profile("reactive")
+public class ReactiveEnrollmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveEnrollmentService.class);
+
+    private final EnrollmentR2dbcRepository enrollmentRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final TransactionalOperator transactionalOperator;
+    private final EnrollmentService enrollmentService;
+    private final UserServiceClient userServiceClient;
+    private final RemoteLookupCache lookupCache;
+    private final SeatDeltaOutbox seatDeltaOutbox;
+    private final TimetableService timetableService;
+    private final WaitlistService waitlistService;
+    private final StudentEnrollmentProjection projection;
+
+    public ReactiveEnrollmentService(EnrollmentR2dbcRepository enrollmentRepository,
+                                     R2dbcEntityTemplate entityTemplate,
+                                     ReactiveTransactionManager reactiveTransactionManager,
+                                     EnrollmentService enrollmentService,
+                                     UserServiceClient userServiceClient,
+                                     RemoteLookupCache lookupCache,
+                                     SeatDeltaOutbox seatDeltaOutbox,
+                                     TimetableService timetableService,
+                                     WaitlistService waitlistService,
+                                     StudentEnrollmentProjection projection) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.entityTemplate = entityTemplate;
+        this.transactionalOperator = TransactionalOperator.create(reactiveTransactionManager);
+        this.enrollmentService = enrollmentService;
+        this.userServiceClient = userServiceClient;
+        this.lookupCache = lookupCache;
+        this.seatDeltaOutbox = seatDeltaOutbox;
+        this.timetableService = timetableService;
+        this.waitlistService = waitlistService;
+        this.projection = projection;
+    }
+
+    public Flux<EnrollmentRecord> getAllEnrollments() {
+        return enrollmentRepository.findAll();
+    }
+
+    /**
+     * 游标分页查询选课记录（按 id 升序），after 为上一页返回的 nextCursor
+     */
+    public Mono<CursorPage<EnrollmentRecord>> getEnrollmentPage(String after, Integer limit) {
+        return Mono.defer(() -> {
+            int size = CursorPage.normalizeLimit(limit);
+            String afterId = CursorPage.decodeCursor(after);
+            PageRequest page = PageRequest.of(0, size + 1);
+            Flux<EnrollmentRecord> rows = afterId == null
+                    ? enrollmentRepository.findAllByOrderByIdAsc(page)
+                    : enrollmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+            return rows.collectList().map(list -> CursorPage.of(list, size, EnrollmentRecord::getId));
+        });
+    }
+
+    /**
+     * 按 id 升序逐条读出全部选课记录，读取速度受下游（响应写出）背压控制，不在内存中积累整个列表
+     */
+    public Flux<EnrollmentRecord> streamEnrollments() {
+        return enrollmentRepository.findAll(Sort.by("id"));
+    }
+
+    public Mono<EnrollmentRecord> getEnrollmentById(String id) {
+        return enrollmentRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Enrollment not found with id: " + id)));
+    }
+
+    /**
+     * 选课；joinWaitlist 为 true 时课程已满则加入候补队列（返回 WAITLISTED 记录），有空位时由 WaitlistService 递补。
+     * 学生校验（优先命中本地缓存）通过后向 catalog-service 原子占座，两者都返回后插入选课记录；
+     * 失败时撤销课表登记，已占的座位经 outbox 归还。客户端中途断开不会中断已发出的占座
+     */
+    public Mono<EnrollmentRecord> createEnrollment(EnrollmentRecord enrollment, boolean joinWaitlist) {
+        return Mono.defer(() -> {
+            if (enrollment.getCourseId() == null || enrollment.getCourseId().trim().isEmpty()) {
+                return Mono.error(new BusinessException("课程ID不能为空"));
+            }
+            if (enrollment.getStudentId() == null || enrollment.getStudentId().trim().isEmpty()) {
+                return Mono.error(new BusinessException("学生ID不能为空"));
+            }
+            String courseId = enrollment.getCourseId().trim();
+            String studentId = enrollment.getStudentId().trim();
+            if (lookupCache.isCourseKnownMissing(courseId)) {
+                return Mono.error(new ResourceNotFoundException("Course not found with id: " + courseId));
+            }
+            Mono<EnrollmentRecord> created = enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId)
+                    .flatMap(existing -> Mono.<EnrollmentRecord>error(new BusinessException(existing.isWaitlisted()
+                            ? "Already waitlisted for this course" : "Already enrolled in this course")))
+                    .switchIfEmpty(Mono.defer(() -> reserveAndInsert(enrollment, courseId, studentId, joinWaitlist)));
+            // 独立订阅：响应被取消时流程照常走完（写入记录或归还座位）；依赖 future 被取消不影响源 future
+            return Mono.fromFuture(created.toFuture().thenApply(Function.identity()));
+        });
+    }
+
+    private Mono<EnrollmentRecord> reserveAndInsert(EnrollmentRecord enrollment, String courseId, String studentId,
+                                                    boolean joinWaitlist) {
+        // 课表冲突检测：未命中缓存时加载课程时段与学生课表是阻塞调用
+        return Mono.fromCallable(() -> timetableService.reserve(studentId, courseId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(reservation -> {
+                    CompletableFuture<Optional<Map<String, Object>>> student;
+                    CompletableFuture<Integer> reserved;
+                    try {
+                        student = lookupCache.studentAsync(studentId, userServiceClient::getStudentAsync);
+                        reserved = enrollmentService.reserveForStudent(student, courseId);
+                    } catch (RuntimeException e) {
+                        // 熔断打开、舱壁已满等同步抛出的异常
+                        reservation.release();
+                        return Mono.error(e);
+                    }
+                    return Mono.fromFuture(CompletableFuture.allOf(student, reserved).handle((ignored, e) -> (Void) null))
+                            .then(Mono.defer(() -> {
+                                enrollment.setId(UUID.randomUUID().toString());
+                                enrollment.setCourseId(courseId);
+                                enrollment.setStudentId(studentId);
+                                enrollment.setStatus(resolveStatus(courseId, studentId, student, reserved, joinWaitlist));
+                                enrollment.setEnrolledAt(LocalDateTime.now());
+                                return entityTemplate.insert(enrollment);
+                            }))
+                            .flatMap(inserted -> updateProjection(() -> projection.enrolled(Collections.singletonList(inserted)))
+                                    .thenReturn(inserted))
+                            .onErrorResume(e -> {
+                                reservation.release();
+                                if (reserved.isCompletedExceptionally()) {
+                                    return Mono.error(e);
+                                }
+                                // 插入失败（唯一键冲突等）时归还已占的座位
+                                return Mono.fromRunnable(() -> seatDeltaOutbox.appendAfterRollback(courseId, -1))
+                                        .subscribeOn(Schedulers.boundedElastic())
+                                        .then(Mono.error(e));
+                            });
+                });
+    }
+
+    /**
+     * 两个下游调用都已返回：学生不存在时 404；课程已满时加入候补（不占座）或 400
+     */
+    private String resolveStatus(String courseId, String studentId,
+                                 CompletableFuture<Optional<Map<String, Object>>> student,
+                                 CompletableFuture<Integer> reserved, boolean joinWaitlist) {
+        if (!await(student).isPresent()) {
+            throw new ResourceNotFoundException("Student not found with id: " + studentId);
+        }
+        try {
+            await(reserved);
+            return EnrollmentRecord.ENROLLED;
+        } catch (ResourceNotFoundException e) {
+            lookupCache.markCourseMissing(courseId);
+            throw e;
+        } catch (CourseFullException e) {
+            if (!joinWaitlist) {
+                throw e;
+            }
+            return EnrollmentRecord.WAITLISTED;
+        }
+    }
+
+    /**
+     * 退课：删除记录与写入 outbox 增量在同一个 R2DBC 事务中；候补记录未占座，只通知长轮询的客户端
+     */
+    public Mono<Void> deleteEnrollment(String id) {
+        return getEnrollmentById(id).flatMap(enrollment -> {
+            Mono<Void> delete = enrollmentRepository.deleteById(id);
+            if (!enrollment.isWaitlisted()) {
+                delete = delete.then(appendSeatDelta(enrollment.getCourseId(), -1));
+            }
+            return transactionalOperator.transactional(delete)
+                    .then(Mono.fromRunnable(() -> {
+                        if (enrollment.isWaitlisted()) {
+                            waitlistService.removedAfterCommit(id);
+                        }
+                        timetableService.removeAfterCommit(enrollment.getStudentId(), enrollment.getCourseId());
+                    }).subscribeOn(Schedulers.boundedElastic()))
+                    .then(updateProjection(() -> projection.removed(enrollment)));
+        });
+    }
+
+    /**
+     * 选课记录已提交后更新投影（JPA，在 boundedElastic 上执行）；失败只记录日志，不影响选课结果
+     */
+    private Mono<Void> updateProjection(Runnable update) {
+        return Mono.fromRunnable(update)
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.warn("Failed to update student enrollment projection: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 在当前 R2DBC 事务中追加一条人数增量，由 SeatDeltaOutbox 的后台任务投递
+     */
+    private Mono<Void> appendSeatDelta(String courseId, int delta) {
+        return entityTemplate.getDatabaseClient()
+                .sql("insert into enrollment_outbox (course_id, delta, attempts, created_at) "
+                        + "values (:courseId, :delta, 0, :createdAt)")
+                .bind("courseId", courseId)
+                .bind("delta", delta)
+                .bind("createdAt", LocalDateTime.now())
+                .then();
+    }
+
+    /**
+     * 候补状态长轮询：记录仍在候补中时最多等待 waitMillis，期间本实例递补或移除该记录则立即返回，超时返回最新状态
+     */
+    public Mono<Map<String, Object>> awaitStatus(String id, long waitMillis) {
+        long timeout = waitlistService.waitTimeout(waitMillis);
+        return Mono.fromCallable(() -> waitlistService.status(id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(current -> {
+                    if (timeout == 0 || !EnrollmentRecord.WAITLISTED.equals(current.get("status"))) {
+                        return Mono.just(current);
+                    }
+                    CompletableFuture<Map<String, Object>> change = waitlistService.awaitChange(id);
+                    return Mono.fromFuture(change)
+                            .timeout(Duration.ofMillis(timeout), Mono.fromCallable(() -> waitlistService.currentStatus(id))
+                                    .subscribeOn(Schedulers.boundedElastic()))
+                            .doFinally(signal -> change.cancel(false));
+                });
+    }
+
+    /**
+     * 批量选课（JPA 批量插入，见 EnrollmentService#createEnrollments）
+     */
+    public Mono<List<BatchEnrollmentResult>> createEnrollments(List<EnrollmentRecord> requests) {
+        return Mono.fromCallable(() -> enrollmentService.createEnrollments(requests))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 查询选课记录并附带课程、学生详情：记录经 R2DBC 读取，详情解析（批量远程查询与降级快照）在 boundedElastic 上执行
+     */
+    public Mono<CursorPage<EnrollmentDetail>> getEnrollmentDetails(String courseId, String studentId,
+                                                                   String after, Integer limit) {
+        return Mono.defer(() -> {
+            int size = CursorPage.normalizeLimit(limit);
+            String afterId = CursorPage.decodeCursor(after);
+            PageRequest page = PageRequest.of(0, size + 1);
+            Flux<EnrollmentRecord> rows;
+            if (courseId != null && studentId != null) {
+                rows = enrollmentRepository.findByCourseIdAndStudentId(courseId, studentId).flux()
+                        .filter(record -> afterId == null || record.getId().compareTo(afterId) > 0);
+            } else if (courseId != null) {
+                rows = afterId == null
+                        ? enrollmentRepository.findByCourseIdOrderByIdAsc(courseId, page)
+                        : enrollmentRepository.findByCourseIdAndIdGreaterThanOrderByIdAsc(courseId, afterId, page);
+            } else if (studentId != null) {
+                rows = afterId == null
+                        ? enrollmentRepository.findByStudentIdOrderByIdAsc(studentId, page)
+                        : enrollmentRepository.findByStudentIdAndIdGreaterThanOrderByIdAsc(studentId, afterId, page);
+            } else {
+                rows = afterId == null
+                        ? enrollmentRepository.findAllByOrderByIdAsc(page)
+                        : enrollmentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+            }
+            return rows.collectList()
+                    .publishOn(Schedulers.boundedElastic())
+                    .map(list -> enrollmentService.detailPage(CursorPage.of(list, size, EnrollmentRecord::getId)));
+        });
+    }
+
+    public Flux<EnrollmentRecord> getEnrollmentsByCourseId(String courseId) {
+        return enrollmentRepository.findByCourseId(courseId);
+    }
+
+    /**
+     * 学生的选课投影：命中缓存时直接返回，否则在 boundedElastic 上经 JPA 读取
+     */
+    public Mono<StudentEnrollments> getStudentEnrollments(String studentId) {
+        StudentEnrollments cached = projection.getIfCached(studentId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return Mono.fromCallable(() -> projection.get(studentId))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 读取已完成的 future，并还原其中的业务异常
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.zjsu.course.service;
+
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.model.OutboxEvent;
+import com.zjsu.course.repository.OutboxEventJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已选人数的 transactional outbox：
+ * 退课等人数变更以增量事件写入 enrollment_outbox（与选课记录同一事务），
+ * 后台任务把同一课程的事件合并为一条增量（500 次退课只产生一次 -500），
+ * 分配幂等键后批量投递给 catalog-service，失败时保留事件等待下一轮重投。
+ * <p>
+ * 幂等键在投递前写回事件行，重投时沿用原来的键，catalog-service 据此丢弃已应用过的增量；
+ * 多个实例同时投递同一批事件也只会被应用一次。
+ * 负增量投递成功后发布 SeatsReleasedEvent，候补队列据此递补。
+ * 积压指标 enrollment.outbox.pending 由投递任务更新（积压清空时直接置 0，有积压时最多每 pending-refresh-interval 计数一次），
+ * 抓取指标不访问数据库。
+ */
+@Component
+public class SeatDeltaOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SeatDeltaOutbox.class);
+
+    /** 单轮投递最多连续处理的批次数，避免长时间占用调度线程 */
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private final OutboxEventJpaRepository outboxRepository;
+    private final CatalogServiceClient catalogServiceClient;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Counter deliveredEvents;
+    private final Counter failedDeliveries;
+    private final int batchSize;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final long pendingRefreshNanos;
+    // 只在投递任务中读写
+    private long pendingRefreshedAt;
+    private boolean backlogEmpty;
+
+    public SeatDeltaOutbox(OutboxEventJpaRepository outboxRepository,
+                           CatalogServiceClient catalogServiceClient,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${enrollment.outbox.batch-size:500}") int batchSize,
+                           @Value("${enrollment.outbox.pending-refresh-interval:5s}") Duration pendingRefreshInterval) {
+        this.outboxRepository = outboxRepository;
+        this.catalogServiceClient = catalogServiceClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.pendingRefreshNanos = pendingRefreshInterval.toNanos();
+        this.pendingRefreshedAt = System.nanoTime() - pendingRefreshNanos;
+        this.deliveredEvents = meterRegistry.counter("enrollment.outbox.delivered");
+        this.failedDeliveries = meterRegistry.counter("enrollment.outbox.failures");
+        Gauge.builder("enrollment.outbox.pending", pendingEvents, AtomicLong::get)
+                .description("Seat delta events waiting to be relayed to catalog-service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在当前事务中追加一条人数增量（随业务事务一起提交或回滚）
+     */
+    public void append(String courseId, int delta) {
+        outboxRepository.save(new OutboxEvent(courseId, delta));
+    }
+
+    /**
+     * 业务事务回滚后的补偿：在新事务中追加增量；连 outbox 都写不进时退回直接调用 catalog-service 释放座位
+     */
+    public void appendAfterRollback(String courseId, int delta) {
+        try {
+            newTransactionTemplate.execute(status -> outboxRepository.save(new OutboxEvent(courseId, delta)));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write seat delta {} of course {} to outbox, releasing directly: {}",
+                    delta, courseId, e.getMessage());
+            if (delta < 0) {
+                catalogServiceClient.releaseSeats(courseId, -delta);
+            }
+        }
+    }
+
+    /**
+     * 定期投递：积压超过一批时在同一轮内继续处理，直到积压清空或投递失败
+     */
+    @Scheduled(fixedDelayString = "${enrollment.outbox.relay-interval-ms:500}")
+    public void relay() {
+        backlogEmpty = false;
+        try {
+            for (int i = 0; i < MAX_BATCHES_PER_RUN && relayBatch(); i++) {
+                // 继续处理下一批
+            }
+        } catch (RuntimeException e) {
+            log.warn("Seat delta relay stopped: {}", e.getMessage());
+        }
+        refreshPending();
+    }
+
+    /**
+     * 更新积压指标：本轮读到空积压时置 0，否则距上次计数超过 pending-refresh-interval 时重新计数
+     */
+    private void refreshPending() {
+        long now = System.nanoTime();
+        if (backlogEmpty) {
+            pendingEvents.set(0);
+            pendingRefreshedAt = now;
+        } else if (now - pendingRefreshedAt >= pendingRefreshNanos) {
+            try {
+                pendingEvents.set(outboxRepository.count());
+                pendingRefreshedAt = now;
+            } catch (RuntimeException e) {
+                log.debug("Failed to count pending seat delta events: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 合并并投递一批增量，返回是否可能还有积压；投递失败时抛出异常（事件保留到下一轮）
+     */
+    boolean relayBatch() {
+        int assigned = assignDeliveryKeys();
+
+        List<Object[]> rows = outboxRepository.sumPendingByDeliveryKey(PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            backlogEmpty = true;
+            return false;
+        }
+        boolean more = assigned >= batchSize || rows.size() >= batchSize;
+        List<Map<String, Object>> deltas = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<String> noop = new ArrayList<>();
+        for (Object[] row : rows) {
+            String key = (String) row[0];
+            int delta = ((Number) row[2]).intValue();
+            if (delta == 0) {
+                // 相互抵消的事件无需投递
+                noop.add(key);
+                continue;
+            }
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("key", key);
+            item.put("courseId", row[1]);
+            item.put("delta", delta);
+            deltas.add(item);
+            keys.add(key);
+        }
+        if (!noop.isEmpty()) {
+            outboxRepository.deleteByDeliveryKeys(noop);
+        }
+        if (deltas.isEmpty()) {
+            return more;
+        }
+
+        Map<String, String> results;
+        try {
+            results = catalogServiceClient.applySeatDeltas(deltas);
+        } catch (RuntimeException e) {
+            failedDeliveries.increment();
+            outboxRepository.incrementAttempts(keys);
+            throw e;
+        }
+        List<String> done = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        Set<String> released = new LinkedHashSet<>();
+        for (Map<String, Object> item : deltas) {
+            String key = (String) item.get("key");
+            if (!results.containsKey(key)) {
+                pending.add(key);
+                continue;
+            }
+            done.add(key);
+            if ((Integer) item.get("delta") < 0) {
+                released.add((String) item.get("courseId"));
+            }
+        }
+        if (!done.isEmpty()) {
+            deliveredEvents.increment(outboxRepository.deleteByDeliveryKeys(done));
+        }
+        if (!released.isEmpty()) {
+            eventPublisher.publishEvent(new SeatsReleasedEvent(released));
+        }
+        if (!pending.isEmpty()) {
+            outboxRepository.incrementAttempts(pending);
+        }
+        return more && pending.isEmpty();
+    }
+
+    /**
+     * 按课程分组，为尚未分配幂等键的事件分配新键（每门课程一个键），返回本次读取的事件数
+     */
+    private int assignDeliveryKeys() {
+        List<OutboxEvent> events = outboxRepository.findByDeliveryKeyIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<Long>> idsByCourse = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            idsByCourse.computeIfAbsent(event.getCourseId(), k -> new ArrayList<>()).add(event.getId());
+        }
+        transactionTemplate.executeWithoutResult(status -> idsByCourse.values()
+                .forEach(ids -> outboxRepository.assignDeliveryKey(UUID.randomUUID().toString(), ids)));
+        return events.size();
+    }
+}
@@ -0,0 +1,19 @@
+package com.zjsu.course.service;
+
+import java.util.Set;
+
+/**
+ * outbox 已把负的人数增量投递给 catalog-service：这些课程在 catalog-service 中有了空位
+ */
+public class SeatsReleasedEvent {
+
+    private final Set<String> courseIds;
+
+    public SeatsReleasedEvent(Set<String> courseIds) {
+        this.courseIds = courseIds;
+    }
+
+    public Set<String> getCourseIds() {
+        return courseIds;
+    }
+}
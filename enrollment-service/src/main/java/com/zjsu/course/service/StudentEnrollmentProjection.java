@@ -0,0 +1,305 @@
+package com.zjsu.course.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zjsu.course.cache.RemoteLookupCache;
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.model.CourseSummary;
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.model.StudentEnrollmentView;
+import com.zjsu.course.model.StudentEnrollments;
+import com.zjsu.course.repository.StudentEnrollmentViewJpaRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按学生组织的选课投影（student_enrollment_view）：“我的课程”一次读取，附带课程摘要快照。
+ * <p>
+ * 投影行随选课、退课与候补递补在同一事务中写入；新行的课程摘要取自课程查询缓存的快照，
+ * 没有快照的课程记入待同步集合，由 refreshCourses 批量向 catalog-service 查询后补齐。
+ * catalog-service 的课程变更通知（/actuator/coursechanges）同样把课程记入待同步集合，只有摘要实际变化的行才会更新。
+ * reconcile 定期按选课记录对账（补齐缺失或不一致的行、删除多余的行），并重新同步全部课程的摘要，
+ * 兜底丢失的通知与 reactive profile 下不在同一事务中写入的投影。
+ * <p>
+ * 每个学生的投影连同 ETag 缓存在本地，事务提交后失效；多副本部署时其他实例的写入最多在 cache ttl 内不可见。
+ */
+@Service
+public class StudentEnrollmentProjection {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentEnrollmentProjection.class);
+
+    /** 单次同步的最大课程数 / 对账每批处理的记录数 */
+    private static final int BATCH_SIZE = 500;
+
+    private final StudentEnrollmentViewJpaRepository viewRepository;
+    private final RemoteLookupCache lookupCache;
+    private final CatalogServiceClient catalogServiceClient;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, StudentEnrollments> students;
+    private final Set<String> pendingCourses = ConcurrentHashMap.newKeySet();
+
+    public StudentEnrollmentProjection(StudentEnrollmentViewJpaRepository viewRepository,
+                                       RemoteLookupCache lookupCache,
+                                       CatalogServiceClient catalogServiceClient,
+                                       EntityManager entityManager,
+                                       PlatformTransactionManager transactionManager,
+                                       ObjectMapper objectMapper,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${enrollment.projection.cache.max-size:50000}") long maxSize,
+                                       @Value("${enrollment.projection.cache.ttl:60s}") Duration ttl) {
+        this.viewRepository = viewRepository;
+        this.lookupCache = lookupCache;
+        this.catalogServiceClient = catalogServiceClient;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.students = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, students, "enrollment.student-enrollments");
+        Gauge.builder("enrollment.projection.pending-courses", pendingCourses, Set::size)
+                .description("Courses whose summary in the student enrollment projection waits to be synced")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 学生的选课投影：命中缓存时不访问数据库，否则一次按 student_id 查询
+     */
+    public StudentEnrollments get(String studentId) {
+        return students.get(studentId, this::load);
+    }
+
+    /**
+     * 只读缓存（reactive profile 下命中时无需切换到阻塞线程）
+     */
+    public StudentEnrollments getIfCached(String studentId) {
+        return students.getIfPresent(studentId);
+    }
+
+    /**
+     * 新增选课记录的投影行（记录已分配 id）。在写入选课记录的事务中调用时随之提交，否则在独立事务中写入
+     */
+    public void enrolled(Collection<EnrollmentRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> unsynced = new HashSet<>();
+            Map<String, CourseSummary> summaries = summaries(records, unsynced);
+            Set<String> studentIds = new HashSet<>();
+            for (EnrollmentRecord record : records) {
+                entityManager.persist(new StudentEnrollmentView(record, summaries.get(record.getCourseId())));
+                studentIds.add(record.getStudentId());
+            }
+            afterCommit(() -> {
+                students.invalidateAll(studentIds);
+                pendingCourses.addAll(unsynced);
+            });
+        });
+    }
+
+    /**
+     * 删除退课记录的投影行
+     */
+    public void removed(EnrollmentRecord record) {
+        transactionTemplate.executeWithoutResult(status -> {
+            viewRepository.deleteAllByIdInBatch(Collections.singleton(record.getId()));
+            afterCommit(() -> students.invalidate(record.getStudentId()));
+        });
+    }
+
+    /**
+     * 候补递补：与选课记录的条件更新在同一事务中执行，now 与选课记录的递补时间一致
+     */
+    public void promoted(Collection<EnrollmentRecord> records, LocalDateTime now) {
+        if (records.isEmpty()) {
+            return;
+        }
+        Set<String> ids = new HashSet<>();
+        Set<String> studentIds = new HashSet<>();
+        for (EnrollmentRecord record : records) {
+            ids.add(record.getId());
+            studentIds.add(record.getStudentId());
+        }
+        viewRepository.promoteWaitlisted(ids, now);
+        afterCommit(() -> students.invalidateAll(studentIds));
+    }
+
+    /**
+     * catalog-service 通知课程已变更：丢弃课程查询缓存中的旧值，在下一次 refreshCourses 时重新同步摘要
+     */
+    public void courseChanged(Collection<String> courseIds) {
+        courseIds.forEach(lookupCache::invalidateCourse);
+        pendingCourses.addAll(courseIds);
+    }
+
+    /**
+     * 批量查询待同步课程并更新摘要有变化的投影行；catalog-service 不可用时留到下一轮
+     */
+    @Scheduled(fixedDelayString = "${enrollment.projection.refresh-interval-ms:500}")
+    public void refreshCourses() {
+        while (!pendingCourses.isEmpty()) {
+            Set<String> courseIds = new LinkedHashSet<>();
+            Iterator<String> it = pendingCourses.iterator();
+            while (it.hasNext() && courseIds.size() < BATCH_SIZE) {
+                courseIds.add(it.next());
+                it.remove();
+            }
+            Map<String, Optional<Map<String, Object>>> courses;
+            try {
+                courses = lookupCache.courses(courseIds, catalogServiceClient::lookupCourses);
+            } catch (RuntimeException e) {
+                pendingCourses.addAll(courseIds);
+                // 待同步课程数见 enrollment.projection.pending-courses
+                log.debug("Failed to sync course summaries of the enrollment projection: {}", e.getMessage());
+                return;
+            }
+            Set<String> studentIds = transactionTemplate.execute(status -> {
+                Set<String> changed = new HashSet<>();
+                courses.forEach((courseId, course) -> {
+                    // 已删除的课程保留最后一次的快照
+                    CourseSummary summary = CourseSummary.fromMap(course.orElse(null));
+                    if (summary == null) {
+                        return;
+                    }
+                    for (StudentEnrollmentView view : viewRepository.findStaleByCourseId(courseId, summary.getDigest())) {
+                        view.setCourse(summary);
+                        changed.add(view.getStudentId());
+                    }
+                });
+                return changed;
+            });
+            students.invalidateAll(studentIds);
+        }
+    }
+
+    /**
+     * 按选课记录对账并重新同步全部课程摘要（启动时执行一次）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${enrollment.projection.reconcile-interval-ms:600000}",
+            fixedDelayString = "${enrollment.projection.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        int upserted = 0;
+        String after = "";
+        while (true) {
+            List<EnrollmentRecord> records = viewRepository.findUnprojected(after, PageRequest.of(0, BATCH_SIZE));
+            if (records.isEmpty()) {
+                break;
+            }
+            Set<String> unsynced = new HashSet<>();
+            transactionTemplate.execute(status -> {
+                Map<String, CourseSummary> summaries = summaries(records, unsynced);
+                for (EnrollmentRecord record : records) {
+                    entityManager.merge(new StudentEnrollmentView(record, summaries.get(record.getCourseId())));
+                }
+                return null;
+            });
+            records.forEach(record -> students.invalidate(record.getStudentId()));
+            pendingCourses.addAll(unsynced);
+            upserted += records.size();
+            after = records.get(records.size() - 1).getId();
+        }
+        int removed = 0;
+        while (true) {
+            List<StudentEnrollmentView> orphaned = viewRepository.findOrphaned(PageRequest.of(0, BATCH_SIZE));
+            if (orphaned.isEmpty()) {
+                break;
+            }
+            viewRepository.deleteAllInBatch(orphaned);
+            orphaned.forEach(view -> students.invalidate(view.getStudentId()));
+            removed += orphaned.size();
+        }
+        pendingCourses.addAll(viewRepository.findCourseIds());
+        if (upserted > 0 || removed > 0) {
+            log.info("Student enrollment projection reconciled: {} upserted, {} removed", upserted, removed);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("cachedStudents", students.estimatedSize());
+        result.put("hitRate", students.stats().hitRate());
+        result.put("pendingCourses", pendingCourses.size());
+        return result;
+    }
+
+    private StudentEnrollments load(String studentId) {
+        List<StudentEnrollmentView> items = Collections.unmodifiableList(
+                viewRepository.findByStudentIdOrderByEnrolledAtAscIdAsc(studentId));
+        try {
+            return new StudentEnrollments(items, "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(items)) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize enrollments of student " + studentId, e);
+        }
+    }
+
+    /**
+     * 新投影行的课程摘要：取课程查询缓存中最近一次的快照，没有快照的课程记入 unsynced，
+     * 由调用方在投影行提交后交给 refreshCourses 补齐
+     */
+    private Map<String, CourseSummary> summaries(Collection<EnrollmentRecord> records, Set<String> unsynced) {
+        Set<String> courseIds = new LinkedHashSet<>();
+        records.forEach(record -> courseIds.add(record.getCourseId()));
+        Map<String, Map<String, Object>> snapshots = lookupCache.courseSnapshots(courseIds);
+        Map<String, CourseSummary> summaries = new LinkedHashMap<>();
+        for (String courseId : courseIds) {
+            CourseSummary summary = CourseSummary.fromMap(snapshots.get(courseId));
+            if (summary == null) {
+                unsynced.add(courseId);
+            } else {
+                summaries.put(courseId, summary);
+            }
+        }
+        return summaries;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,301 @@
+package com.zjsu.course.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.model.CourseSlot;
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.repository.EnrollmentJpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 课表冲突检测：选课时拒绝与该学生已选课程上课时间重叠的课程。
+ * <p>
+ * 课程时段由 catalog-service 批量导出（一周内分钟数），定期全量刷新，未命中的课程按需批量查询；
+ * 每个学生的课表是一组互不重叠、按开始时间排序的 [start, end) 区间（int 数组），冲突判断为一次二分查找。
+ * 课表在首次用到时从本地选课记录构建，之后随本实例的选课/退课更新，按 ttl 过期后重新构建，
+ * 多副本部署时其他实例的选课最多在 ttl 内不可见。
+ * 同一学生的检查与登记在该学生课表的锁内完成，并发选两门冲突的课程时只有一门通过；事务回滚时撤销登记。
+ */
+@Service
+public class TimetableService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimetableService.class);
+
+    private final EnrollmentJpaRepository enrollmentRepository;
+    private final CatalogServiceClient catalogServiceClient;
+    private final boolean enabled;
+
+    /** 课程 id / 代码 -> 上课时段，Optional.empty() 表示未排课或课程不存在 */
+    private final Cache<String, Optional<CourseSlot>> slots;
+    private final Cache<String, StudentTimetable> timetables;
+
+    public TimetableService(EnrollmentJpaRepository enrollmentRepository,
+                            CatalogServiceClient catalogServiceClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${enrollment.timetable.enabled:true}") boolean enabled,
+                            @Value("${enrollment.timetable.slot-ttl:10m}") Duration slotTtl,
+                            @Value("${enrollment.timetable.slot-max-size:20000}") long slotMaxSize,
+                            @Value("${enrollment.timetable.student-ttl:60s}") Duration studentTtl,
+                            @Value("${enrollment.timetable.student-max-size:50000}") long studentMaxSize) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.catalogServiceClient = catalogServiceClient;
+        this.enabled = enabled;
+        this.slots = Caffeine.newBuilder()
+                .maximumSize(slotMaxSize)
+                .expireAfterWrite(slotTtl)
+                .recordStats()
+                .build();
+        this.timetables = Caffeine.newBuilder()
+                .maximumSize(studentMaxSize)
+                .expireAfterWrite(studentTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, slots, "enrollment.course-slots");
+        CaffeineCacheMetrics.monitor(meterRegistry, timetables, "enrollment.timetables");
+    }
+
+    /**
+     * 全量刷新课程时段（按课程 id 与代码各存一份）；catalog-service 不可用时保留现有缓存
+     */
+    @Scheduled(fixedDelayString = "${enrollment.timetable.slot-refresh-interval-ms:60000}")
+    public void refreshSlots() {
+        if (!enabled) {
+            return;
+        }
+        List<Map<String, Object>> exported;
+        try {
+            exported = catalogServiceClient.getCourseSlots();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh course slots: {}", e.getMessage());
+            return;
+        }
+        Map<String, Optional<CourseSlot>> loaded = new HashMap<>();
+        for (Map<String, Object> item : exported) {
+            CourseSlot slot = CourseSlot.fromMap(item);
+            if (slot == null) {
+                continue;
+            }
+            loaded.put(slot.getCourseId(), Optional.of(slot));
+            Object code = item.get("code");
+            if (code instanceof String) {
+                loaded.put((String) code, Optional.of(slot));
+            }
+        }
+        slots.putAll(loaded);
+    }
+
+    /**
+     * 检查并登记学生选课：与已选课程时间重叠时抛出 BusinessException。
+     * 课程未排课（或不存在，由后续占座报告）时不登记，已在课表中的同一课程不重复登记。
+     * 在事务中调用时事务未提交即自动撤销；返回的 Reservation 用于提前撤销（批量选课中未成功的条目）
+     */
+    public Reservation reserve(String studentId, String courseId) {
+        if (!enabled) {
+            return Reservation.NONE;
+        }
+        Optional<CourseSlot> slot = slots(Collections.singleton(courseId)).get(courseId);
+        if (slot == null || !slot.isPresent()) {
+            return Reservation.NONE;
+        }
+        StudentTimetable timetable = timetables.get(studentId, key -> loadTimetables(Collections.singleton(key)).get(key));
+        String conflict = timetable.tryAdd(slot.get());
+        if (conflict == null) {
+            Reservation reservation = new Reservation(timetable, slot.get());
+            releaseOnRollback(reservation);
+            return reservation;
+        }
+        if (conflict.equals(slot.get().getCourseId())) {
+            return Reservation.NONE;
+        }
+        throw new BusinessException("Schedule conflicts with enrolled course: " + conflict);
+    }
+
+    /**
+     * 批量选课前一次性加载涉及的课程时段与学生课表（课程一次远程批量查询，学生一次数据库查询）
+     */
+    public void preload(Collection<String> studentIds, Collection<String> courseIds) {
+        if (!enabled || studentIds.isEmpty()) {
+            return;
+        }
+        slots(courseIds);
+        timetables.getAll(studentIds, this::loadTimetables);
+    }
+
+    /**
+     * 退课：事务提交后从课表中移除（课程时段未缓存时直接丢弃该学生的课表，下次重新构建）
+     */
+    public void removeAfterCommit(String studentId, String courseId) {
+        if (!enabled) {
+            return;
+        }
+        Runnable remove = () -> {
+            StudentTimetable timetable = timetables.getIfPresent(studentId);
+            if (timetable == null) {
+                return;
+            }
+            Optional<CourseSlot> slot = slots.getIfPresent(courseId);
+            if (slot == null) {
+                timetables.invalidate(studentId);
+            } else {
+                slot.ifPresent(timetable::remove);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove.run();
+            }
+        });
+    }
+
+    private Map<String, Optional<CourseSlot>> slots(Collection<String> courseIds) {
+        return slots.getAll(courseIds, keys -> {
+            Set<String> missing = new LinkedHashSet<>();
+            keys.forEach(missing::add);
+            Map<String, Map<String, Object>> loaded = catalogServiceClient.lookupCourseSlots(missing);
+            Map<String, Optional<CourseSlot>> result = new HashMap<>();
+            for (String key : missing) {
+                result.put(key, Optional.ofNullable(CourseSlot.fromMap(loaded.get(key))));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * 从选课记录构建课表；历史数据中已存在的冲突不再拒绝，只保留先加入的区间
+     */
+    private Map<String, StudentTimetable> loadTimetables(Iterable<? extends String> studentIds) {
+        Set<String> ids = new LinkedHashSet<>();
+        studentIds.forEach(ids::add);
+        List<EnrollmentRecord> records = enrollmentRepository.findByStudentIdIn(ids);
+        Set<String> courseIds = new LinkedHashSet<>();
+        records.forEach(record -> courseIds.add(record.getCourseId()));
+        Map<String, Optional<CourseSlot>> courseSlots = courseIds.isEmpty() ? Collections.emptyMap() : slots(courseIds);
+
+        Map<String, StudentTimetable> result = new HashMap<>();
+        ids.forEach(id -> result.put(id, new StudentTimetable()));
+        for (EnrollmentRecord record : records) {
+            courseSlots.getOrDefault(record.getCourseId(), Optional.empty())
+                    .ifPresent(slot -> result.get(record.getStudentId()).tryAdd(slot));
+        }
+        return result;
+    }
+
+    private static void releaseOnRollback(Reservation reservation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservation.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * 一次登记，release 幂等
+     */
+    public static final class Reservation {
+
+        static final Reservation NONE = new Reservation(null, null);
+
+        private final StudentTimetable timetable;
+        private final CourseSlot slot;
+        private volatile boolean released;
+
+        private Reservation(StudentTimetable timetable, CourseSlot slot) {
+            this.timetable = timetable;
+            this.slot = slot;
+        }
+
+        public void release() {
+            if (timetable != null && !released) {
+                released = true;
+                timetable.remove(slot);
+            }
+        }
+    }
+
+    /**
+     * 单个学生的周课表：互不重叠的区间按开始时间升序存放在并行数组中，
+     * 因此结束时间同样有序，新区间只需与插入位置前后各一个区间比较
+     */
+    static final class StudentTimetable {
+
+        private int[] starts = new int[4];
+        private int[] ends = new int[4];
+        private String[] courseIds = new String[4];
+        private int size;
+
+        /**
+         * 与 slot 重叠的已登记课程 id；没有重叠时登记 slot 并返回 null
+         */
+        synchronized String tryAdd(CourseSlot slot) {
+            int start = slot.getStart();
+            int index = Arrays.binarySearch(starts, 0, size, start);
+            if (index >= 0) {
+                return courseIds[index];
+            }
+            index = -index - 1;
+            if (index > 0 && ends[index - 1] > start) {
+                return courseIds[index - 1];
+            }
+            if (index < size && starts[index] < slot.getEnd()) {
+                return courseIds[index];
+            }
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                courseIds = Arrays.copyOf(courseIds, size * 2);
+            }
+            System.arraycopy(starts, index, starts, index + 1, size - index);
+            System.arraycopy(ends, index, ends, index + 1, size - index);
+            System.arraycopy(courseIds, index, courseIds, index + 1, size - index);
+            starts[index] = start;
+            ends[index] = slot.getEnd();
+            courseIds[index] = slot.getCourseId();
+            size++;
+            return null;
+        }
+
+        synchronized void remove(CourseSlot slot) {
+            int index = Arrays.binarySearch(starts, 0, size, slot.getStart());
+            if (index < 0 || !courseIds[index].equals(slot.getCourseId())) {
+                return;
+            }
+            System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+            System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+            System.arraycopy(courseIds, index + 1, courseIds, index, size - index - 1);
+            size--;
+            courseIds[size] = null;
+        }
+    }
+}
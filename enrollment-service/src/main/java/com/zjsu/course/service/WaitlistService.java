@@ -0,0 +1,282 @@
+package com.zjsu.course.service;
+
+import com.zjsu.course.client.CatalogServiceClient;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.exception.CourseFullException;
+import com.zjsu.course.exception.ResourceNotFoundException;
+import com.zjsu.course.model.EnrollmentRecord;
+import com.zjsu.course.repository.EnrollmentJpaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 候补队列：课程已满时选课请求可以排队（WAITLISTED 记录，按加入时间先后），有空位时后台递补。
+ * <p>
+ * 退课释放的座位经 outbox 投递给 catalog-service 后（SeatsReleasedEvent）该课程进入待递补集合，
+ * 递补任务取队首一批记录，向 catalog-service 一次计数占座（partial），再以条件 UPDATE 把占到座位的记录改为 ENROLLED；
+ * 其他实例的退课或扩容由定期全量扫描兜底。条件 UPDATE 未命中（已被其他实例递补或已退出候补）的座位经 outbox 归还。
+ * <p>
+ * 客户端通过 GET /api/enrollments/{id}/status?wait=... 长轮询等待递补结果，不占用请求线程；
+ * 本实例递补或移除记录时立即返回，其他实例递补的记录在等待超时后返回最新状态。
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    /** 退出候补后长轮询返回的状态 */
+    public static final String REMOVED = "REMOVED";
+
+    private final EnrollmentJpaRepository enrollmentRepository;
+    private final CatalogServiceClient catalogServiceClient;
+    private final SeatDeltaOutbox seatDeltaOutbox;
+    private final StudentEnrollmentProjection projection;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter promoted;
+    private final int batchSize;
+    private final long maxWaitMillis;
+
+    private final Set<String> pendingCourses = ConcurrentHashMap.newKeySet();
+    private final Map<String, List<Consumer<Map<String, Object>>>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public WaitlistService(EnrollmentJpaRepository enrollmentRepository,
+                           CatalogServiceClient catalogServiceClient,
+                           SeatDeltaOutbox seatDeltaOutbox,
+                           StudentEnrollmentProjection projection,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${enrollment.waitlist.batch-size:50}") int batchSize,
+                           @Value("${enrollment.waitlist.max-wait:30s}") Duration maxWait) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.catalogServiceClient = catalogServiceClient;
+        this.seatDeltaOutbox = seatDeltaOutbox;
+        this.projection = projection;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxWaitMillis = maxWait.toMillis();
+        this.promoted = meterRegistry.counter("enrollment.waitlist.promoted");
+        Gauge.builder("enrollment.waitlist.waiting", waiting, AtomicInteger::get)
+                .description("Long-poll requests waiting for a waitlist promotion")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onSeatsReleased(SeatsReleasedEvent event) {
+        pendingCourses.addAll(event.getCourseIds());
+    }
+
+    /**
+     * 兜底扫描：把所有有候补记录的课程加入待递补集合（其他实例退课、课程扩容等本实例感知不到的空位）
+     */
+    @Scheduled(fixedDelayString = "${enrollment.waitlist.rescan-interval-ms:10000}")
+    public void rescan() {
+        pendingCourses.addAll(enrollmentRepository.findWaitlistedCourseIds());
+    }
+
+    @Scheduled(fixedDelayString = "${enrollment.waitlist.promote-interval-ms:200}")
+    public void promotePending() {
+        Iterator<String> it = pendingCourses.iterator();
+        while (it.hasNext()) {
+            String courseId = it.next();
+            it.remove();
+            try {
+                promote(courseId);
+            } catch (RuntimeException e) {
+                // catalog-service 不可用等：留到下一轮
+                pendingCourses.add(courseId);
+                log.warn("Waitlist promotion of course {} stopped: {}", courseId, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按批递补一门课程的候补记录，直到队列为空或课程再次满员
+     */
+    void promote(String courseId) {
+        while (true) {
+            List<EnrollmentRecord> head = enrollmentRepository.findWaitlistHead(courseId, PageRequest.of(0, batchSize));
+            if (head.isEmpty()) {
+                return;
+            }
+            int granted;
+            try {
+                granted = catalogServiceClient.reserveSeats(courseId, head.size(), true);
+            } catch (CourseFullException | ResourceNotFoundException e) {
+                // 已满，或课程已删除（候补记录保留，由退课清理）
+                return;
+            } catch (BusinessException e) {
+                // 其他业务错误（课程 key 有歧义等）立即重试也不会成功，留给下一次兜底扫描
+                log.warn("Waitlist promotion of course {} rejected: {}", courseId, e.getMessage());
+                return;
+            }
+            List<EnrollmentRecord> promotable = head.subList(0, Math.min(granted, head.size()));
+            List<String> ids = new ArrayList<>();
+            promotable.forEach(record -> ids.add(record.getId()));
+            int count;
+            try {
+                count = transactionTemplate.execute(status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    int n = enrollmentRepository.promoteWaitlisted(ids, now);
+                    projection.promoted(promotable, now);
+                    if (n < granted) {
+                        seatDeltaOutbox.append(courseId, n - granted);
+                    }
+                    return n;
+                });
+            } catch (RuntimeException e) {
+                seatDeltaOutbox.appendAfterRollback(courseId, -granted);
+                throw e;
+            }
+            promoted.increment(count);
+            ids.forEach(this::notifyWaiters);
+            if (granted < head.size()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 记录当前状态；候补中的记录附带 position（排在第几位，从 1 开始）
+     */
+    public Map<String, Object> status(String enrollmentId) {
+        return enrollmentRepository.findById(enrollmentId)
+                .map(this::describe)
+                .orElseThrow(() -> new ResourceNotFoundException("Enrollment not found with id: " + enrollmentId));
+    }
+
+    /**
+     * 长轮询：记录仍在候补中时最多等待 waitMillis（不超过 enrollment.waitlist.max-wait），
+     * 期间本实例递补或移除该记录则立即返回，超时返回最新状态；mapper 把状态转换为响应体
+     */
+    public <T> DeferredResult<T> awaitStatus(String enrollmentId, long waitMillis, Function<Map<String, Object>, T> mapper) {
+        Map<String, Object> current = status(enrollmentId);
+        long timeout = waitTimeout(waitMillis);
+        DeferredResult<T> result = new DeferredResult<>(timeout);
+        if (timeout == 0 || !EnrollmentRecord.WAITLISTED.equals(current.get("status"))) {
+            result.setResult(mapper.apply(current));
+            return result;
+        }
+        CompletableFuture<Map<String, Object>> change = awaitChange(enrollmentId);
+        result.onTimeout(() -> change.complete(currentStatus(enrollmentId)));
+        result.onCompletion(() -> change.cancel(false));
+        change.thenAccept(latest -> result.setResult(mapper.apply(latest)));
+        return result;
+    }
+
+    /**
+     * 长轮询的实际等待毫秒数（不超过 enrollment.waitlist.max-wait）
+     */
+    public long waitTimeout(long waitMillis) {
+        return Math.min(Math.max(waitMillis, 0), maxWaitMillis);
+    }
+
+    /**
+     * 登记等待：本实例递补或移除该记录时以最新状态完成；调用方超时或放弃等待时 cancel 该 future 即注销
+     */
+    public CompletableFuture<Map<String, Object>> awaitChange(String enrollmentId) {
+        CompletableFuture<Map<String, Object>> change = new CompletableFuture<>();
+        Consumer<Map<String, Object>> waiter = change::complete;
+        waiters.compute(enrollmentId, (k, v) -> {
+            List<Consumer<Map<String, Object>>> list = v == null ? new CopyOnWriteArrayList<>() : v;
+            list.add(waiter);
+            return list;
+        });
+        waiting.incrementAndGet();
+        change.whenComplete((latest, e) -> {
+            waiting.decrementAndGet();
+            waiters.computeIfPresent(enrollmentId, (k, v) -> {
+                v.remove(waiter);
+                return v.isEmpty() ? null : v;
+            });
+        });
+        // 读取状态与登记等待之间可能已被递补
+        Map<String, Object> latest = currentStatus(enrollmentId);
+        if (!EnrollmentRecord.WAITLISTED.equals(latest.get("status"))) {
+            change.complete(latest);
+        }
+        return change;
+    }
+
+    /**
+     * 候补记录被删除（退出候补）：事务提交后通知等待者
+     */
+    public void removedAfterCommit(String enrollmentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notifyWaiters(enrollmentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notifyWaiters(enrollmentId);
+            }
+        });
+    }
+
+    private void notifyWaiters(String enrollmentId) {
+        List<Consumer<Map<String, Object>>> list = waiters.get(enrollmentId);
+        if (list == null || list.isEmpty()) {
+            return;
+        }
+        Map<String, Object> latest = currentStatus(enrollmentId);
+        list.forEach(waiter -> waiter.accept(latest));
+    }
+
+    /**
+     * 记录当前状态；记录已删除时返回 REMOVED（不抛出 404）
+     */
+    public Map<String, Object> currentStatus(String enrollmentId) {
+        Optional<EnrollmentRecord> record = enrollmentRepository.findById(enrollmentId);
+        if (record.isPresent()) {
+            return describe(record.get());
+        }
+        Map<String, Object> removed = new LinkedHashMap<>();
+        removed.put("id", enrollmentId);
+        removed.put("status", REMOVED);
+        return removed;
+    }
+
+    private Map<String, Object> describe(EnrollmentRecord record) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", record.getId());
+        result.put("courseId", record.getCourseId());
+        result.put("studentId", record.getStudentId());
+        result.put("status", record.getStatus() == null ? EnrollmentRecord.ENROLLED : record.getStatus());
+        if (record.isWaitlisted()) {
+            result.put("position", enrollmentRepository.countWaitlistAhead(
+                    record.getCourseId(), record.getEnrolledAt(), record.getId()) + 1);
+        }
+        return result;
+    }
+}
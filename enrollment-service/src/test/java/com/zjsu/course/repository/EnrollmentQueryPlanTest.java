@@ -0,0 +1,118 @@
+package com.zjsu.course.repository;
+
+import com.zjsu.course.config.RepositoryConfig;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 查询计划回归：在 MySQL 兼容模式的 H2 上按 db/schema.sql 建表，执行每个派生查询与候补查询，
+ * 对 Hibernate 实际发出的 SQL 执行 EXPLAIN，计划出现全表扫描（tableScan）即失败。
+ * 新增派生查询需在 queries() 中登记，否则 everyDerivedQueryIsCovered 失败
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:enrollment_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema.sql",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.zjsu.course.repository.QueryPlanInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RepositoryConfig.class)
+class EnrollmentQueryPlanTest {
+
+    private static final List<String> IDS = Arrays.asList("a", "b");
+
+    @Autowired
+    private EnrollmentJpaRepository enrollmentRepository;
+
+    @Autowired
+    private StudentJpaRepository studentRepository;
+
+    @Autowired
+    private StudentEnrollmentViewJpaRepository viewRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Map<String, Runnable> queries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("EnrollmentJpaRepository.findByCourseId", () -> enrollmentRepository.findByCourseId("c"));
+        queries.put("EnrollmentJpaRepository.findByStudentId", () -> enrollmentRepository.findByStudentId("s"));
+        queries.put("EnrollmentJpaRepository.findByStudentIdIn", () -> enrollmentRepository.findByStudentIdIn(IDS));
+        queries.put("EnrollmentJpaRepository.existsByCourseIdAndStudentId",
+                () -> enrollmentRepository.existsByCourseIdAndStudentId("c", "s"));
+        queries.put("EnrollmentJpaRepository.findByCourseIdAndStudentId",
+                () -> enrollmentRepository.findByCourseIdAndStudentId("c", "s"));
+        queries.put("EnrollmentJpaRepository.findByCourseIdAndStudentIdIn",
+                () -> enrollmentRepository.findByCourseIdAndStudentIdIn("c", IDS));
+        queries.put("EnrollmentJpaRepository.countByCourseId", () -> enrollmentRepository.countByCourseId("c"));
+        queries.put("EnrollmentJpaRepository.countByStudentId", () -> enrollmentRepository.countByStudentId("s"));
+        queries.put("EnrollmentJpaRepository.findAllByOrderByIdAsc",
+                () -> enrollmentRepository.findAllByOrderByIdAsc(PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> enrollmentRepository.findByIdGreaterThanOrderByIdAsc("a", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findByCourseIdOrderByIdAsc",
+                () -> enrollmentRepository.findByCourseIdOrderByIdAsc("c", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findByCourseIdAndIdGreaterThanOrderByIdAsc",
+                () -> enrollmentRepository.findByCourseIdAndIdGreaterThanOrderByIdAsc("c", "a", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findByStudentIdOrderByIdAsc",
+                () -> enrollmentRepository.findByStudentIdOrderByIdAsc("s", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findByStudentIdAndIdGreaterThanOrderByIdAsc",
+                () -> enrollmentRepository.findByStudentIdAndIdGreaterThanOrderByIdAsc("s", "a", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.findWaitlistHead",
+                () -> enrollmentRepository.findWaitlistHead("c", PageRequest.of(0, 10)));
+        queries.put("EnrollmentJpaRepository.countWaitlistAhead",
+                () -> enrollmentRepository.countWaitlistAhead("c", LocalDateTime.now(), "a"));
+        queries.put("EnrollmentJpaRepository.findWaitlistedCourseIds", () -> enrollmentRepository.findWaitlistedCourseIds());
+        queries.put("StudentJpaRepository.findByStudentId", () -> studentRepository.findByStudentId("s"));
+        queries.put("StudentJpaRepository.existsByStudentId", () -> studentRepository.existsByStudentId("s"));
+        queries.put("StudentJpaRepository.findByEmail", () -> studentRepository.findByEmail("s@example.com"));
+        queries.put("StudentJpaRepository.existsByEmail", () -> studentRepository.existsByEmail("s@example.com"));
+        queries.put("StudentJpaRepository.findByMajor", () -> studentRepository.findByMajor("cs"));
+        queries.put("StudentJpaRepository.findByGrade", () -> studentRepository.findByGrade(1));
+        queries.put("StudentEnrollmentViewJpaRepository.findByStudentIdOrderByEnrolledAtAscIdAsc",
+                () -> viewRepository.findByStudentIdOrderByEnrolledAtAscIdAsc("s"));
+        return queries;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queriesUseIndexes() {
+        return queries().entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            QueryPlanInspector.clear();
+            query.getValue().run();
+            List<String> statements = QueryPlanInspector.statements();
+            assertThat(statements).as("SQL issued by %s", query.getKey()).isNotEmpty();
+            for (String sql : statements) {
+                String plan = QueryPlanInspector.explain(dataSource, sql);
+                assertThat(plan).as("plan of %s: %s", query.getKey(), sql).doesNotContain("tableScan");
+            }
+        }));
+    }
+
+    @Test
+    void everyDerivedQueryIsCovered() {
+        Map<String, Runnable> queries = queries();
+        Stream.of(EnrollmentJpaRepository.class, StudentJpaRepository.class, StudentEnrollmentViewJpaRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(method -> !method.isAnnotationPresent(Query.class))
+                        .map(method -> repository.getSimpleName() + "." + method.getName()))
+                .forEach(name -> assertThat(queries).as("query plan check for %s", name).containsKey(name));
+    }
+}
@@ -0,0 +1,93 @@
+package com.zjsu.course.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 压测使用的 HTTP 客户端：连接池大小与最大并发一致，响应体按 ApiResponse JSON 解析
+ */
+final class ApiClient implements Closeable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CloseableHttpClient httpClient;
+
+    ApiClient(int maxConnections) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(2000)
+                .setSocketTimeout(30000)
+                .setConnectionRequestTimeout(30000)
+                .build();
+        this.httpClient = HttpClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
+
+    Response get(String url) throws IOException {
+        return execute(new HttpGet(url));
+    }
+
+    Response post(String url, Object body) throws IOException {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new ByteArrayEntity(objectMapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+        return execute(post);
+    }
+
+    Response delete(String url) throws IOException {
+        return execute(new HttpDelete(url));
+    }
+
+    private Response execute(HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            byte[] bytes = response.getEntity() == null ? new byte[0] : EntityUtils.toByteArray(response.getEntity());
+            JsonNode body = bytes.length == 0 ? objectMapper.nullNode() : readTree(bytes);
+            return new Response(response.getStatusLine().getStatusCode(), body);
+        }
+    }
+
+    private JsonNode readTree(byte[] bytes) {
+        try {
+            return objectMapper.readTree(bytes);
+        } catch (IOException e) {
+            return objectMapper.nullNode();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    static final class Response {
+        final int status;
+        final JsonNode body;
+
+        Response(int status, JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        JsonNode data() {
+            return body.path("data");
+        }
+
+        String message() {
+            return body.path("message").asText("");
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.zjsu.course.loadtest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 执行模式对比：对每种 execution.mode 重新启动三个服务，按递增的到达速率逐级压测 POST /api/enrollments，
+ * 直到延迟崩溃（p99 超过 collapse-p99-ms 或错误率超过 1%；延迟从计划发送时刻算起，服务跟不上时排队时间直接体现在 p99 上），
+ * 报告每一级的吞吐量、延迟与并发度（Little 定律：到达速率 × 平均延迟），以及崩溃前最后一级达到的并发度。
+ * <p>
+ * 运行：java -cp load-test/target/load-test.jar com.zjsu.course.loadtest.ExecutionModeBenchmark
+ * --modes=platform,async,virtual,reactive --rates=50,100,200,400,800 [--service-java=/path/to/jdk21/bin/java]
+ * [--tomcat-threads=50]；其余参数与 LoadTest 相同。
+ * virtual 模式需要 --service-java 指向 Java 21+，否则该模式的服务启动失败并在报告中标记为跳过。
+ * 模式 reactive 表示 WebFlux + R2DBC 版本的 enrollment-service（--enrollment-stack=reactive），用于与 Servlet 版本对比。
+ * 默认容量足够大、课程不超过 30 门（时段不重复），使每个请求都走完整的校验、占座与写库路径。
+ */
+public final class ExecutionModeBenchmark {
+
+    private static final String REACTIVE = "reactive";
+
+    private ExecutionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> defaults = new HashMap<>();
+        defaults.put("warmup", "5");
+        defaults.put("duration", "20");
+        defaults.put("courses", "30");
+        defaults.put("capacity", "1000000");
+        defaults.put("students", "5000");
+        defaults.put("drop-ratio", "0");
+        defaults.put("concurrency", "1024");
+        LoadTestConfig base = LoadTestConfig.parse(args, defaults);
+        String[] modes = base.option("modes", "platform,async,virtual").split(",");
+        String[] rates = base.option("rates", "50,100,200,400,800,1600").split(",");
+        double collapseMillis = Double.parseDouble(base.option("collapse-p99-ms", "1000"));
+
+        Map<String, List<Step>> results = new LinkedHashMap<>();
+        Map<String, String> skipped = new LinkedHashMap<>();
+        for (String mode : modes) {
+            String label = mode.trim();
+            LoadTestConfig config = REACTIVE.equals(label)
+                    ? base.with("enrollment-stack", REACTIVE)
+                    : base.with("execution-mode", label);
+            config = config.with("work-dir", new File(base.workDir, "mode-" + label).getPath());
+            if (!config.workDir.isDirectory() && !config.workDir.mkdirs()) {
+                throw new IOException("Cannot create work dir " + config.workDir);
+            }
+            System.out.println("== " + label + ": " + config);
+            List<Step> steps = new ArrayList<>();
+            List<ServiceProcess> processes = new ArrayList<>();
+            try (ApiClient client = new ApiClient(config.concurrency + 16)) {
+                try {
+                    LoadTest.launch(config, client, processes);
+                } catch (IllegalStateException e) {
+                    skipped.put(label, e.getMessage() + " (see " + config.workDir + ")");
+                    System.out.println("Skipping " + label + ": " + e.getMessage());
+                    continue;
+                }
+                String enrollmentUrl = processes.get(2).url();
+                List<String> courseIds = LoadTest.createCourses(client, processes.get(0).url(), config);
+                List<String> studentIds = LoadTest.createStudents(client, processes.get(1).url(), config);
+
+                for (String rate : rates) {
+                    LoadTestConfig stepConfig = config.with("rate", rate.trim());
+                    OpenModelDriver driver = new OpenModelDriver(stepConfig, client, enrollmentUrl, courseIds, studentIds);
+                    driver.run();
+                    Step step = new Step(stepConfig.rate, driver, collapseMillis);
+                    steps.add(step);
+                    System.out.println("  " + step);
+                    if (step.collapsed) {
+                        break;
+                    }
+                }
+            } finally {
+                for (int i = processes.size() - 1; i >= 0; i--) {
+                    processes.get(i).close();
+                }
+            }
+            results.put(label, steps);
+        }
+
+        String report = report(base, collapseMillis, results, skipped);
+        System.out.println(report);
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(base.workDir, "execution-modes.txt")),
+                true, "UTF-8")) {
+            out.print(report);
+        }
+        System.out.println("Report written to " + base.workDir);
+    }
+
+    private static String report(LoadTestConfig base, double collapseMillis, Map<String, List<Step>> results,
+                                 Map<String, String> skipped) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        out.println("==== Execution mode comparison ====");
+        out.println(base);
+        out.printf("Collapse: p99 > %.0fms or errors > 1%%%n", collapseMillis);
+        for (Map.Entry<String, List<Step>> entry : results.entrySet()) {
+            out.println();
+            out.println("mode=" + entry.getKey());
+            out.printf("  %8s %10s %9s %9s %9s %12s %9s %7s%n",
+                    "target/s", "thrpt/s", "p50 ms", "p99 ms", "mean ms", "concurrency", "backlog", "errors");
+            Step lastStable = null;
+            for (Step step : entry.getValue()) {
+                out.printf("  %8.0f %10.1f %9.1f %9.1f %9.1f %12.1f %9d %6.2f%%%s%n",
+                        step.rate, step.throughput, step.p50, step.p99, step.mean, step.concurrency,
+                        step.backlog, step.errorRatio * 100, step.collapsed ? "  <- collapsed" : "");
+                if (!step.collapsed) {
+                    lastStable = step;
+                }
+            }
+            if (lastStable == null) {
+                out.println("  collapsed at the first rate");
+            } else {
+                out.printf("  stable up to %.0f req/s, concurrency %.1f (p99 %.1fms)%n",
+                        lastStable.throughput, lastStable.concurrency, lastStable.p99);
+            }
+        }
+        for (Map.Entry<String, String> entry : skipped.entrySet()) {
+            out.println();
+            out.println("mode=" + entry.getKey() + " skipped: " + entry.getValue());
+        }
+        out.flush();
+        return buffer.toString();
+    }
+
+    /**
+     * 一级速率的结果：延迟单位毫秒，throughput 为计量窗口内的请求数 / 窗口时长（全部请求都会等到完成），
+     * concurrency 为系统中的平均请求数（throughput × 平均延迟）
+     */
+    private static final class Step {
+        final double rate;
+        final double throughput;
+        final double p50;
+        final double p99;
+        final double mean;
+        final double concurrency;
+        final long backlog;
+        final double errorRatio;
+        final boolean collapsed;
+
+        Step(double rate, OpenModelDriver driver, double collapseMillis) {
+            this.rate = rate;
+            this.throughput = driver.latency.getTotalCount() / (driver.measuredNanos / 1e9);
+            this.p50 = driver.latency.getValueAtPercentile(50) / 1000.0;
+            this.p99 = driver.latency.getValueAtPercentile(99) / 1000.0;
+            this.mean = driver.latency.getMean() / 1000.0;
+            this.concurrency = throughput * mean / 1000.0;
+            this.backlog = driver.maxBacklog.get();
+            long total = 0;
+            long errors = 0;
+            for (Map.Entry<OpenModelDriver.Outcome, LongAdder> entry : driver.outcomes.entrySet()) {
+                long count = entry.getValue().sum();
+                total += count;
+                if (entry.getKey() == OpenModelDriver.Outcome.ERROR || entry.getKey() == OpenModelDriver.Outcome.UNAVAILABLE
+                        || entry.getKey() == OpenModelDriver.Outcome.OTHER) {
+                    errors += count;
+                }
+            }
+            this.errorRatio = total == 0 ? 0 : (double) errors / total;
+            this.collapsed = p99 > collapseMillis || errorRatio > 0.01;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rate=%.0f/s throughput=%.1f/s p50=%.1fms p99=%.1fms concurrency=%.1f errors=%.2f%%%s",
+                    rate, throughput, p50, p99, concurrency, errorRatio * 100, collapsed ? " (collapsed)" : "");
+        }
+    }
+}
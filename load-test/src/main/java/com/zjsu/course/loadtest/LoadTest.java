@@ -0,0 +1,288 @@
+package com.zjsu.course.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 选课高峰压测入口：在本地子进程中启动三个服务（simple discovery 代替 Nacos，H2 MySQL 模式），
+ * 创建课程与学生后以开放模型压测 POST /api/enrollments，结束后等待 outbox 投递与内存计数器写回完毕，
+ * 校验超卖（enrolled &gt; capacity）与 courses 表中已写回的 enrolled 和选课记录数之间的偏差，输出报告。
+ * 存在超卖或偏差时以非零状态码退出。
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        if (!config.workDir.isDirectory() && !config.workDir.mkdirs()) {
+            throw new IOException("Cannot create work dir " + config.workDir);
+        }
+        System.out.println("Load test: " + config);
+
+        List<ServiceProcess> processes = new ArrayList<>();
+        try (ApiClient client = new ApiClient(config.concurrency + 16)) {
+            String catalogUrl = config.catalogUrl;
+            String userUrl = config.userUrl;
+            String enrollmentUrl = config.enrollmentUrl;
+            if (config.launch) {
+                launch(config, client, processes);
+                catalogUrl = processes.get(0).url();
+                userUrl = processes.get(1).url();
+                enrollmentUrl = processes.get(2).url();
+            }
+
+            List<String> courseIds = createCourses(client, catalogUrl, config);
+            List<String> studentIds = createStudents(client, userUrl, config);
+            System.out.printf("Seeded %d courses and %d students%n", courseIds.size(), studentIds.size());
+
+            OpenModelDriver driver = new OpenModelDriver(config, client, enrollmentUrl, courseIds, studentIds);
+            driver.run();
+            long pending = awaitOutboxDrained(client, enrollmentUrl, TimeUnit.SECONDS.toMillis(60));
+            // outbox 投递的增量进入内存计数器后，还要等 write-behind 写回数据库
+            long unflushed = awaitSeatsFlushed(client, catalogUrl, TimeUnit.SECONDS.toMillis(60));
+            Consistency consistency = checkConsistency(client, catalogUrl, enrollmentUrl, courseIds);
+
+            String report = report(config, driver, consistency, pending, unflushed);
+            System.out.println(report);
+            writeReport(config.workDir, report, driver);
+            if (consistency.oversold > 0 || consistency.drifted > 0 || pending != 0 || unflushed != 0) {
+                System.exit(1);
+            }
+        } finally {
+            for (int i = processes.size() - 1; i >= 0; i--) {
+                processes.get(i).close();
+            }
+        }
+    }
+
+    /**
+     * 依次启动 catalog、user、enrollment 三个服务并等待健康检查通过，启动的进程加入 processes（由调用方关闭）。
+     * enrollment-service 的端口预先分配，catalog-service 的内存计数器启动时向其对账
+     */
+    static void launch(LoadTestConfig config, ApiClient client, List<ServiceProcess> processes)
+            throws IOException, InterruptedException {
+        int enrollmentPort = ServiceProcess.freePort();
+        ServiceProcess catalog = ServiceProcess.start(config, "catalog-service", ServiceProcess.freePort(),
+                "--catalog.seat-engine.enabled=" + config.seatEngine,
+                "--spring.cloud.discovery.client.simple.instances.enrollment-service[0].uri=http://127.0.0.1:" + enrollmentPort);
+        processes.add(catalog);
+        ServiceProcess user = ServiceProcess.start(config, "user-service", ServiceProcess.freePort());
+        processes.add(user);
+        ServiceProcess enrollment = ServiceProcess.start(config, "enrollment-service", enrollmentPort,
+                "--spring.cloud.discovery.client.simple.instances.catalog-service[0].uri=" + catalog.url(),
+                "--spring.cloud.discovery.client.simple.instances.user-service[0].uri=" + user.url(),
+                "--services.catalog-service.url=catalog-service",
+                "--services.user-service.url=user-service");
+        processes.add(enrollment);
+        for (ServiceProcess process : processes) {
+            process.awaitHealthy(client, TimeUnit.MINUTES.toMillis(3));
+            System.out.println(process.name + " started at " + process.url());
+        }
+    }
+
+    static List<String> createCourses(ApiClient client, String catalogUrl, LoadTestConfig config) throws IOException {
+        long run = System.currentTimeMillis() % 100000;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < config.courses; i++) {
+            Map<String, Object> instructor = new HashMap<>();
+            instructor.put("id", "T" + (i % 20));
+            instructor.put("name", "Teacher " + (i % 20));
+            instructor.put("email", "t" + (i % 20) + "@zjsu.edu.cn");
+            // 周一至周五每天 6 节、每节 100 分钟，超过 30 门课程后时段重复（同一学生选到会被判为课表冲突）
+            int period = (i / 5) % 6;
+            int startMinute = 8 * 60 + period * 110;
+            Map<String, Object> schedule = new HashMap<>();
+            schedule.put("dayOfWeek", DayOfWeek.of(i % 5 + 1).name());
+            schedule.put("startTime", String.format("%02d:%02d", startMinute / 60, startMinute % 60));
+            schedule.put("endTime", String.format("%02d:%02d", (startMinute + 100) / 60, (startMinute + 100) % 60));
+            Map<String, Object> course = new HashMap<>();
+            course.put("code", "LT" + run + "-" + i);
+            course.put("title", "Load Test Course " + i);
+            course.put("capacity", config.capacity);
+            course.put("instructor", instructor);
+            course.put("schedule", schedule);
+            ids.add(createdId(client.post(catalogUrl + "/api/courses", course), "course"));
+        }
+        return ids;
+    }
+
+    static List<String> createStudents(ApiClient client, String userUrl, LoadTestConfig config) throws IOException {
+        long run = System.currentTimeMillis() % 100000;
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < config.students; i++) {
+            Map<String, Object> student = new HashMap<>();
+            student.put("studentId", "LT" + run + String.format("%06d", i));
+            student.put("name", "Student " + i);
+            student.put("major", "Computer Science");
+            student.put("grade", 2024);
+            student.put("email", "lt" + run + "." + i + "@zjsu.edu.cn");
+            ids.add(createdId(client.post(userUrl + "/api/students", student), "student"));
+        }
+        return ids;
+    }
+
+    private static String createdId(ApiClient.Response response, String kind) {
+        JsonNode id = response.data().path("id");
+        if (response.status >= 300 || id.isMissingNode()) {
+            throw new IllegalStateException("Failed to create " + kind + ": HTTP " + response.status + " " + response.body);
+        }
+        return id.asText();
+    }
+
+    /**
+     * 轮询 enrollment.outbox.pending 直到为 0，返回最后读到的值（读不到指标时返回 -1）
+     */
+    private static long awaitOutboxDrained(ApiClient client, String enrollmentUrl, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long pending = -1;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                ApiClient.Response response = client.get(enrollmentUrl + "/actuator/metrics/enrollment.outbox.pending");
+                pending = response.body.path("measurements").path(0).path("value").asLong(-1);
+                if (pending == 0) {
+                    return 0;
+                }
+            } catch (IOException e) {
+                pending = -1;
+            }
+            Thread.sleep(500);
+        }
+        return pending;
+    }
+
+    /**
+     * 轮询 catalog-service 的 /actuator/seatengine 直到没有尚未写回的计数器，返回最后读到的值（读不到时返回 -1）；
+     * 未开启内存计数器时立即返回 0
+     */
+    private static long awaitSeatsFlushed(ApiClient client, String catalogUrl, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long pending = -1;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                pending = client.get(catalogUrl + "/actuator/seatengine").body.path("pending").asLong(-1);
+                if (pending == 0) {
+                    return 0;
+                }
+            } catch (IOException e) {
+                pending = -1;
+            }
+            Thread.sleep(200);
+        }
+        return pending;
+    }
+
+    /**
+     * enrolled 读自 courses 表（/actuator/seatengine/{id}），不经过内存计数器与二级缓存，
+     * 写回滞后或丢失造成的偏差会被计入 drifted
+     */
+    private static Consistency checkConsistency(ApiClient client, String catalogUrl, String enrollmentUrl,
+                                                List<String> courseIds) throws IOException {
+        Consistency consistency = new Consistency();
+        for (String courseId : courseIds) {
+            JsonNode seats = client.get(catalogUrl + "/actuator/seatengine/" + courseId).body;
+            int capacity = seats.path("capacity").asInt();
+            int enrolled = seats.path("enrolled").asInt();
+            int records = client.get(enrollmentUrl + "/api/enrollments/course/" + courseId).data().size();
+            consistency.enrolled += enrolled;
+            consistency.records += records;
+            if (enrolled > capacity || records > capacity) {
+                consistency.oversold++;
+                consistency.oversoldSeats += Math.max(enrolled, records) - capacity;
+            }
+            if (enrolled != records) {
+                consistency.drifted++;
+                consistency.driftSeats += enrolled - records;
+                consistency.samples.putIfAbsent(courseId, "enrolled=" + enrolled + " records=" + records);
+            }
+        }
+        return consistency;
+    }
+
+    private static String report(LoadTestConfig config, OpenModelDriver driver, Consistency consistency, long pending,
+                                 long unflushed) {
+        StringWriter buffer = new StringWriter();
+        PrintWriter out = new PrintWriter(buffer);
+        double seconds = driver.measuredNanos / 1e9;
+        long measured = driver.latency.getTotalCount();
+        out.println("==== Enrollment load test report ====");
+        out.println(config);
+        out.printf("Hottest course share: %.1f%% (top 3: %.1f%%)%n", driver.courseShare(0) * 100,
+                (driver.courseShare(0) + driver.courseShare(Math.min(1, config.courses - 1))
+                        + driver.courseShare(Math.min(2, config.courses - 1))) * 100);
+        out.println();
+        out.printf("Measured requests: %d in %.1fs, throughput %.1f req/s (target %.1f)%n",
+                measured, seconds, measured / seconds, config.rate);
+        out.printf("Peak backlog: %d%n", driver.maxBacklog.get());
+        out.println("Outcomes (including warmup):");
+        for (Map.Entry<OpenModelDriver.Outcome, LongAdder> entry : driver.outcomes.entrySet()) {
+            out.printf("  %-17s %d%n", entry.getKey(), entry.getValue().sum());
+        }
+        out.printf("Drops: %d succeeded, %d failed%n", driver.drops.sum(), driver.dropFailures.sum());
+        out.println();
+        out.println("Latency (ms, from intended send time):");
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", 50.0);
+        percentiles.put("p90", 90.0);
+        percentiles.put("p99", 99.0);
+        percentiles.put("p99.9", 99.9);
+        for (Map.Entry<String, Double> entry : percentiles.entrySet()) {
+            out.printf("  %-6s %10.2f%n", entry.getKey(), driver.latency.getValueAtPercentile(entry.getValue()) / 1000.0);
+        }
+        out.printf("  %-6s %10.2f%n", "max", driver.latency.getMaxValue() / 1000.0);
+        out.printf("  %-6s %10.2f%n", "mean", driver.latency.getMean() / 1000.0);
+        out.println();
+        out.printf("Outbox pending after drain: %d%n", pending);
+        out.printf("Seat counters pending flush: %d%n", unflushed);
+        out.printf("Seats: courses.enrolled total %d, enrollment records total %d%n",
+                consistency.enrolled, consistency.records);
+        out.printf("Oversold courses: %d (%d seat(s) over capacity)%n", consistency.oversold, consistency.oversoldSeats);
+        out.printf("Drifted courses: %d (net drift %+d)%n", consistency.drifted, consistency.driftSeats);
+        for (Map.Entry<String, String> sample : consistency.samples.entrySet()) {
+            out.printf("  %s %s%n", sample.getKey(), sample.getValue());
+        }
+        out.println(consistency.oversold == 0 && consistency.drifted == 0 && pending == 0 ? "RESULT: PASS" : "RESULT: FAIL");
+        out.flush();
+        return buffer.toString();
+    }
+
+    private static void writeReport(File workDir, String report, OpenModelDriver driver) throws IOException {
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(workDir, "report.txt")), true, "UTF-8")) {
+            out.print(report);
+        }
+        // 完整百分位分布，可用 HdrHistogram 的 plotter 绘图
+        try (PrintStream out = new PrintStream(new FileOutputStream(new File(workDir, "latency.hgrm")), true,
+                StandardCharsets.UTF_8.name())) {
+            driver.latency.outputPercentileDistribution(out, 1000.0);
+        }
+        System.out.println("Report written to " + workDir);
+    }
+
+    private static final class Consistency {
+        long enrolled;
+        long records;
+        int oversold;
+        long oversoldSeats;
+        int drifted;
+        long driftSeats;
+        final Map<String, String> samples = new LinkedHashMap<>();
+    }
+}
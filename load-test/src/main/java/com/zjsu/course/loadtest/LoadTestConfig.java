@@ -0,0 +1,111 @@
+package com.zjsu.course.loadtest;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 压测参数，命令行以 --key=value 传入（未传入的使用默认值）
+ */
+final class LoadTestConfig {
+
+    /** 目标到达速率（次/秒），开放模型：发送节奏不受响应快慢影响 */
+    final double rate;
+    final int warmupSeconds;
+    final int durationSeconds;
+    final int courses;
+    final int capacity;
+    final int students;
+    /** Zipf 分布指数，越大越集中在少数热门课程上 */
+    final double skew;
+    /** 选课成功后立即退课的比例，用于覆盖 outbox 退座路径 */
+    final double dropRatio;
+    /** 最大并发请求数（超出的请求在队列中等待，排队时间计入延迟） */
+    final int concurrency;
+    final boolean seatEngine;
+    /** false 时不启动本地进程，直接压测 *-url 指定的服务 */
+    final boolean launch;
+    final String catalogUrl;
+    final String userUrl;
+    final String enrollmentUrl;
+    final File projectDir;
+    final File workDir;
+    final long seed;
+    /** 三个服务的 execution.mode（platform / virtual / async），为空时使用服务默认值 */
+    final String executionMode;
+    /** 启动服务所用的 java 可执行文件（virtual 模式需要 Java 21+），默认与压测进程相同 */
+    final String serviceJava;
+    /** 服务的 server.tomcat.threads.max，0 表示使用默认值 */
+    final int tomcatThreads;
+    /** enrollment-service 的版本：servlet（默认）或 reactive（WebFlux + R2DBC，激活 reactive profile） */
+    final String enrollmentStack;
+
+    private final Map<String, String> options;
+
+    private LoadTestConfig(Map<String, String> options) {
+        this.options = options;
+        rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        courses = Integer.parseInt(options.getOrDefault("courses", "50"));
+        capacity = Integer.parseInt(options.getOrDefault("capacity", "100"));
+        students = Integer.parseInt(options.getOrDefault("students", "2000"));
+        skew = Double.parseDouble(options.getOrDefault("skew", "1.2"));
+        dropRatio = Double.parseDouble(options.getOrDefault("drop-ratio", "0.1"));
+        concurrency = Integer.parseInt(options.getOrDefault("concurrency", "256"));
+        seatEngine = Boolean.parseBoolean(options.getOrDefault("seat-engine", "false"));
+        launch = Boolean.parseBoolean(options.getOrDefault("launch", "true"));
+        catalogUrl = options.getOrDefault("catalog-url", "http://localhost:8081");
+        userUrl = options.getOrDefault("user-url", "http://localhost:8080");
+        enrollmentUrl = options.getOrDefault("enrollment-url", "http://localhost:8082");
+        projectDir = new File(options.getOrDefault("project-dir", ".")).getAbsoluteFile();
+        workDir = new File(options.getOrDefault("work-dir", new File(projectDir, "load-test/target/run").getPath()));
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        executionMode = options.getOrDefault("execution-mode", "");
+        serviceJava = options.getOrDefault("service-java",
+                new File(System.getProperty("java.home"), "bin/java").getPath());
+        tomcatThreads = Integer.parseInt(options.getOrDefault("tomcat-threads", "0"));
+        enrollmentStack = options.getOrDefault("enrollment-stack", "servlet");
+    }
+
+    /**
+     * 覆盖单个参数后的新配置
+     */
+    LoadTestConfig with(String key, String value) {
+        Map<String, String> copy = new HashMap<>(options);
+        copy.put(key, value);
+        return new LoadTestConfig(copy);
+    }
+
+    String option(String key, String defaultValue) {
+        return options.getOrDefault(key, defaultValue);
+    }
+
+    static LoadTestConfig parse(String[] args) {
+        return parse(args, new HashMap<>());
+    }
+
+    /**
+     * defaults 为调用方（如 ExecutionModeBenchmark）的默认参数，命令行参数优先
+     */
+    static LoadTestConfig parse(String[] args, Map<String, String> defaults) {
+        Map<String, String> options = new HashMap<>(defaults);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value but got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return new LoadTestConfig(options);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rate=%.0f/s warmup=%ds duration=%ds courses=%d capacity=%d students=%d skew=%.2f "
+                        + "drop-ratio=%.2f concurrency=%d seat-engine=%s execution-mode=%s tomcat-threads=%s enrollment-stack=%s",
+                rate, warmupSeconds, durationSeconds, courses, capacity, students, skew,
+                dropRatio, concurrency, seatEngine, executionMode.isEmpty() ? "default" : executionMode,
+                tomcatThreads == 0 ? "default" : String.valueOf(tomcatThreads), enrollmentStack);
+    }
+}
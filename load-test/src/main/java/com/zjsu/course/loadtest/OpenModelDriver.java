@@ -0,0 +1,162 @@
+package com.zjsu.course.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 开放模型压测驱动：按泊松过程生成到达时刻，到点即发出选课请求，不等待前一个请求返回。
+ * 延迟从计划发送时刻算起（排队等待也计入），避免协同遗漏（coordinated omission）低估尾延迟。
+ */
+final class OpenModelDriver {
+
+    enum Outcome {
+        CREATED, FULL, ALREADY_ENROLLED, SCHEDULE_CONFLICT, NOT_FOUND, UNAVAILABLE, OTHER, ERROR
+    }
+
+    private final LoadTestConfig config;
+    private final ApiClient client;
+    private final String enrollmentUrl;
+    private final List<String> courseIds;
+    private final List<String> studentIds;
+    private final ZipfSampler courseSampler;
+
+    /** 延迟直方图（微秒），仅记录预热结束后的请求 */
+    final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+    final LongAdder drops = new LongAdder();
+    final LongAdder dropFailures = new LongAdder();
+    /** 每门课程收到的选课请求数（含预热） */
+    final Map<String, LongAdder> requestsByCourse = new HashMap<>();
+    /** 已到达但尚未完成的请求数峰值（超过 concurrency 的部分在线程池队列中排队） */
+    final AtomicLong maxBacklog = new AtomicLong();
+    long measuredNanos;
+
+    OpenModelDriver(LoadTestConfig config, ApiClient client, String enrollmentUrl,
+                    List<String> courseIds, List<String> studentIds) {
+        this.config = config;
+        this.client = client;
+        this.enrollmentUrl = enrollmentUrl;
+        this.courseIds = courseIds;
+        this.studentIds = studentIds;
+        this.courseSampler = new ZipfSampler(courseIds.size(), config.skew);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+        for (String courseId : courseIds) {
+            requestsByCourse.put(courseId, new LongAdder());
+        }
+    }
+
+    double courseShare(int rank) {
+        return courseSampler.probability(rank);
+    }
+
+    void run() throws InterruptedException {
+        Random random = new Random(config.seed);
+        ExecutorService workers = Executors.newFixedThreadPool(config.concurrency);
+        AtomicLong backlog = new AtomicLong();
+        double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        long intended = start;
+        while (true) {
+            intended += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String courseId = courseIds.get(courseSampler.sample(random));
+            String studentId = studentIds.get(random.nextInt(studentIds.size()));
+            boolean drop = random.nextDouble() < config.dropRatio;
+            boolean measured = intended >= measureFrom;
+            long intendedAt = intended;
+            maxBacklog.accumulateAndGet(backlog.incrementAndGet(), Math::max);
+            workers.execute(() -> {
+                try {
+                    enroll(courseId, studentId, drop, measured, intendedAt);
+                } finally {
+                    backlog.decrementAndGet();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+        measuredNanos = end - measureFrom;
+    }
+
+    private void enroll(String courseId, String studentId, boolean drop, boolean measured, long intendedAt) {
+        requestsByCourse.get(courseId).increment();
+        Map<String, String> body = new HashMap<>();
+        body.put("courseId", courseId);
+        body.put("studentId", studentId);
+        Outcome outcome;
+        JsonNode data = null;
+        try {
+            ApiClient.Response response = client.post(enrollmentUrl + "/api/enrollments", body);
+            outcome = classify(response);
+            data = response.data();
+        } catch (Exception e) {
+            outcome = Outcome.ERROR;
+        }
+        if (measured) {
+            latency.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedAt)));
+        }
+        outcomes.get(outcome).increment();
+        if (outcome == Outcome.CREATED && drop && data != null && data.hasNonNull("id")) {
+            drop(data.get("id").asText());
+        }
+    }
+
+    private void drop(String enrollmentId) {
+        try {
+            if (client.delete(enrollmentUrl + "/api/enrollments/" + enrollmentId).status == 200) {
+                drops.increment();
+                return;
+            }
+        } catch (Exception e) {
+            // 计入失败数
+        }
+        dropFailures.increment();
+    }
+
+    private static Outcome classify(ApiClient.Response response) {
+        if (response.status == 200 || response.status == 201) {
+            return Outcome.CREATED;
+        }
+        if (response.status == 404) {
+            return Outcome.NOT_FOUND;
+        }
+        if (response.status == 503) {
+            return Outcome.UNAVAILABLE;
+        }
+        String message = response.message();
+        if (message.contains("full")) {
+            return Outcome.FULL;
+        }
+        if (message.startsWith("Already enrolled")) {
+            return Outcome.ALREADY_ENROLLED;
+        }
+        if (message.startsWith("Schedule conflicts")) {
+            return Outcome.SCHEDULE_CONFLICT;
+        }
+        return Outcome.OTHER;
+    }
+}
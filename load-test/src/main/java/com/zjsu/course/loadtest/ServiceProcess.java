@@ -0,0 +1,112 @@
+package com.zjsu.course.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以本地子进程启动一个服务（dev profile、H2 MySQL 兼容模式内存库、不连接 Nacos），日志写入工作目录
+ */
+final class ServiceProcess implements AutoCloseable {
+
+    private static final String[] COMMON_ARGS = {
+            "--spring.cloud.nacos.discovery.enabled=false",
+            "--spring.cloud.service-registry.auto-registration.enabled=false",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.com.zjsu=INFO",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.springframework.web=WARN"
+    };
+
+    final String name;
+    final int port;
+    private final Process process;
+
+    private ServiceProcess(String name, int port, Process process) {
+        this.name = name;
+        this.port = port;
+        this.process = process;
+    }
+
+    /**
+     * 启动 target 下的可执行 jar（需先构建：mvn package -DskipTests）
+     */
+    static ServiceProcess start(LoadTestConfig config, String name, int port, String... extraArgs) throws IOException {
+        File jar = new File(config.projectDir, name + "/target/" + name + "-1.0.0-exec.jar");
+        if (!jar.isFile()) {
+            throw new IllegalStateException("Missing " + jar + ", run `mvn package -DskipTests` first");
+        }
+        List<String> command = new ArrayList<>();
+        command.add(config.serviceJava);
+        command.add("-jar");
+        command.add(jar.getPath());
+        command.add("--server.port=" + port);
+        String database = name.replace('-', '_');
+        String h2Options = "MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        command.add("--spring.datasource.url=jdbc:h2:mem:" + database + ";" + h2Options);
+        if ("enrollment-service".equals(name) && "reactive".equals(config.enrollmentStack)) {
+            command.add("--spring.profiles.active=dev,reactive");
+            command.add("--spring.r2dbc.url=r2dbc:h2:mem:///" + database + "?options=" + h2Options);
+        } else {
+            command.add("--spring.profiles.active=dev");
+        }
+        command.addAll(Arrays.asList(COMMON_ARGS));
+        if (!config.executionMode.isEmpty()) {
+            command.add("--execution.mode=" + config.executionMode);
+        }
+        if (config.tomcatThreads > 0) {
+            command.add("--server.tomcat.threads.max=" + config.tomcatThreads);
+        }
+        command.addAll(Arrays.asList(extraArgs));
+
+        File log = new File(config.workDir, name + ".log");
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log)
+                .start();
+        return new ServiceProcess(name, port, process);
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + port;
+    }
+
+    /**
+     * 轮询 /actuator/health 直到 UP
+     */
+    void awaitHealthy(ApiClient client, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue());
+            }
+            try {
+                if ("UP".equals(client.get(url() + "/actuator/health").body.path("status").asText())) {
+                    return;
+                }
+            } catch (IOException e) {
+                // 尚未监听端口
+            }
+            Thread.sleep(500);
+        }
+        throw new IllegalStateException(name + " did not become healthy within " + timeoutMillis + "ms");
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(15, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.zjsu.course.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf 分布采样：第 k 个元素的概率与 1 / k^skew 成正比（k 从 1 开始），
+ * 预先计算累积分布，采样时二分查找
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double skew) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, skew);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cdf.length - 1);
+    }
+
+    double probability(int index) {
+        return index == 0 ? cdf[0] : cdf[index] - cdf[index - 1];
+    }
+}
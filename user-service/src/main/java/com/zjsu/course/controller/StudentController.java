@@ -1,14 +1,20 @@
 package com.zjsu.course.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zjsu.course.common.ApiResponse;
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.common.NdjsonWriter;
 import com.zjsu.course.model.Student;
 import com.zjsu.course.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 学生管理API控制器
@@ -21,6 +27,9 @@ public class StudentController {
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 创建学生
      */
@@ -32,12 +41,42 @@ public class StudentController {
     }
 
     /**
-     * 查询所有学生
+     * 查询所有学生；传入 limit 或 after 时按游标分页返回 {items, nextCursor, limit}
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Student>>> getAllStudents() {
-        List<Student> students = studentService.getAllStudents();
-        return ResponseEntity.ok(ApiResponse.success(students));
+    public ResponseEntity<ApiResponse<?>> getAllStudents(@RequestParam(required = false) Integer limit,
+                                                         @RequestParam(required = false) String after) {
+        if (limit == null && after == null) {
+            List<Student> students = studentService.getAllStudents();
+            return ResponseEntity.ok(ApiResponse.success(students));
+        }
+        CursorPage<Student> page = studentService.getStudentPage(after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 以 NDJSON 流式返回所有学生（Accept: application/x-ndjson）
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStudents() {
+        StreamingResponseBody body = out -> studentService.streamStudents(new NdjsonWriter<>(objectMapper, out));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 搜索学生：q 为多字段关键词（姓名 / 学号 / 专业前缀，空格分隔的各词须同时匹配），
+     * name、studentId 为前缀匹配，major、grade 为精确匹配；按学号排序，返回 {total, offset, limit, items}
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> searchStudents(@RequestParam(required = false) String q,
+                                                                           @RequestParam(required = false) String name,
+                                                                           @RequestParam(required = false) String studentId,
+                                                                           @RequestParam(required = false) String major,
+                                                                           @RequestParam(required = false) Integer grade,
+                                                                           @RequestParam(required = false) Integer offset,
+                                                                           @RequestParam(required = false) Integer limit) {
+        Map<String, Object> result = studentService.searchStudents(q, name, studentId, major, grade, offset, limit);
+        return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     /**
@@ -49,6 +88,15 @@ public class StudentController {
         return ResponseEntity.ok(ApiResponse.success(student));
     }
 
+    /**
+     * 批量查询学生（请求体为学生 id 或学号列表，返回以请求 key 为键的 map，不存在的 key 省略）
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<Map<String, Student>>> lookupStudents(@RequestBody List<String> keys) {
+        Map<String, Student> students = studentService.lookupStudents(keys);
+        return ResponseEntity.ok(ApiResponse.success(students));
+    }
+
     /**
      * 更新学生信息
      */
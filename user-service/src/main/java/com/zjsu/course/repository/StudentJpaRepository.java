@@ -1,20 +1,36 @@
 package com.zjsu.course.repository;
 
 import com.zjsu.course.model.Student;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StudentJpaRepository extends JpaRepository<Student, String> {
     Optional<Student> findByStudentId(String studentId);
     boolean existsByStudentId(String studentId);
+    List<Student> findByStudentIdIn(Collection<String> studentIds);
 
     Optional<Student> findByEmail(String email);
     boolean existsByEmail(String email);
 
     List<Student> findByMajor(String major);
     List<Student> findByGrade(Integer grade);
+
+    // Keyset pagination ordered by primary key; `after` is the last id of the previous page
+    List<Student> findAllByOrderByIdAsc(Pageable pageable);
+    List<Student> findByIdGreaterThanOrderByIdAsc(String after, Pageable pageable);
+
+    // Streams every student; must be consumed (and closed) inside a read-only transaction
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select s from Student s order by s.id")
+    Stream<Student> streamAll();
 }
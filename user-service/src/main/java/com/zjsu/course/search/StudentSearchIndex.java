@@ -0,0 +1,454 @@
+package com.zjsu.course.search;
+
+import com.zjsu.course.common.CursorPage;
+import com.zjsu.course.exception.BusinessException;
+import com.zjsu.course.model.Student;
+import com.zjsu.course.repository.StudentJpaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory inverted index over students: name tokens and student number (prefix match), major and grade
+ * (exact match). Every student gets a dense doc number and each term maps to a BitSet posting list, so a
+ * multi-field query is an AND of bitmaps; prefix terms OR together the postings of a sorted-term range.
+ * <p>
+ * Loaded at startup (rows read in keyset pages, postings built in parallel chunks and merged), kept in step
+ * with this instance's writes by StudentService, and rebuilt periodically to pick up writes made through
+ * other instances.
+ */
+@Component
+public class StudentSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentSearchIndex.class);
+
+    private static final int LOAD_PAGE_SIZE = 5000;
+    private static final int BUILD_CHUNK_SIZE = 20000;
+    private static final int MAX_QUERY_TERMS = 10;
+
+    private final StudentJpaRepository studentRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Postings postings = new Postings(new ArrayList<>());
+    // Ids written while a rebuild is loading; re-read after the swap so the rebuild cannot lose them
+    private Set<String> writtenDuringRebuild;
+
+    public StudentSearchIndex(StudentJpaRepository studentRepository) {
+        this.studentRepository = studentRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        rebuild();
+        log.info("Student search index loaded {} students in {} ms", size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(initialDelayString = "${user.search.rebuild-interval-ms:300000}",
+            fixedDelayString = "${user.search.rebuild-interval-ms:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Reloads every student and swaps the new postings in; writes that land while loading are replayed from the database.
+     */
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Postings rebuilt;
+        try {
+            rebuilt = Postings.build(loadAll());
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                writtenDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        Set<String> written;
+        lock.writeLock().lock();
+        try {
+            postings = rebuilt;
+            written = writtenDuringRebuild;
+            writtenDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refresh(written);
+    }
+
+    public void put(Student student) {
+        IndexedStudent doc = IndexedStudent.of(student);
+        lock.writeLock().lock();
+        try {
+            postings.put(doc);
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(doc.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            postings.remove(id);
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the given ids from the database; ids that no longer exist are dropped from the index.
+     */
+    public void refresh(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(ids);
+        for (Student student : studentRepository.findAllById(ids)) {
+            missing.remove(student.getId());
+            put(student);
+        }
+        missing.forEach(this::remove);
+    }
+
+    /**
+     * Runs a query; blank criteria are ignored and no criteria at all matches every student.
+     * {@code q} is split on whitespace and every token must prefix-match the name, student number or major.
+     * Matches are ordered by student number and returned as {total, offset, limit, items}.
+     */
+    public Map<String, Object> search(String q, String name, String studentId, String major, Integer grade,
+                                      Integer offset, Integer limit) {
+        int from = offset == null ? 0 : offset;
+        if (from < 0) {
+            throw new BusinessException("offset must not be negative");
+        }
+        int size = CursorPage.normalizeLimit(limit);
+        List<String> tokens = tokens(q);
+        if (tokens.size() > MAX_QUERY_TERMS) {
+            throw new BusinessException("Too many search terms: " + tokens.size() + " (max " + MAX_QUERY_TERMS + ")");
+        }
+        List<IndexedStudent> matches;
+        lock.readLock().lock();
+        try {
+            BitSet hits = postings.live();
+            for (String token : tokens) {
+                BitSet any = postings.prefix(postings.names, token);
+                any.or(postings.prefix(postings.studentIds, token));
+                any.or(postings.prefix(postings.majors, token));
+                hits.and(any);
+            }
+            for (String token : tokens(name)) {
+                hits.and(postings.prefix(postings.names, token));
+            }
+            if (!isBlank(studentId)) {
+                hits.and(postings.prefix(postings.studentIds, normalize(studentId)));
+            }
+            if (!isBlank(major)) {
+                hits.and(postings.exact(postings.majors, normalize(major)));
+            }
+            if (grade != null) {
+                hits.and(postings.exact(postings.grades, grade));
+            }
+            matches = new ArrayList<>(hits.cardinality());
+            for (int doc = hits.nextSetBit(0); doc >= 0; doc = hits.nextSetBit(doc + 1)) {
+                matches.add(postings.docs.get(doc));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(IndexedStudent.ORDER);
+        List<Student> items = matches.stream().skip(from).limit(size)
+                .map(IndexedStudent::toStudent).collect(Collectors.toList());
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", matches.size());
+        result.put("offset", from);
+        result.put("limit", size);
+        result.put("items", items);
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<IndexedStudent> loadAll() {
+        List<IndexedStudent> all = new ArrayList<>();
+        PageRequest page = PageRequest.of(0, LOAD_PAGE_SIZE);
+        List<Student> rows = studentRepository.findAllByOrderByIdAsc(page);
+        while (!rows.isEmpty()) {
+            for (Student student : rows) {
+                all.add(IndexedStudent.of(student));
+            }
+            if (rows.size() < LOAD_PAGE_SIZE) {
+                break;
+            }
+            rows = studentRepository.findByIdGreaterThanOrderByIdAsc(rows.get(rows.size() - 1).getId(), page);
+        }
+        return all;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalize(text).split("[\\s\\p{Punct}·]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Name terms: each token plus the whole name without separators; names written in Han characters also get
+     * every suffix, so a given name alone ("三") finds "张三".
+     */
+    private static Set<String> nameTerms(String name) {
+        Set<String> terms = new LinkedHashSet<>(tokens(name));
+        String compact = String.join("", terms);
+        if (!compact.isEmpty()) {
+            terms.add(compact);
+            if (compact.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN)) {
+                for (int i = compact.offsetByCodePoints(0, 1); i < compact.length(); i = compact.offsetByCodePoints(i, 1)) {
+                    terms.add(compact.substring(i));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Postings over a dense doc space; slots of removed students are reused. Not thread-safe, guarded by the outer lock.
+     */
+    private static final class Postings {
+
+        final List<IndexedStudent> docs;
+        final Map<String, Integer> docById = new HashMap<>();
+        final BitSet live = new BitSet();
+        final Deque<Integer> freeDocs = new ArrayDeque<>();
+        final TreeMap<String, BitSet> names = new TreeMap<>();
+        final TreeMap<String, BitSet> studentIds = new TreeMap<>();
+        final TreeMap<String, BitSet> majors = new TreeMap<>();
+        final Map<Integer, BitSet> grades = new HashMap<>();
+
+        Postings(List<IndexedStudent> docs) {
+            this.docs = docs;
+        }
+
+        /**
+         * Doc numbers are list positions, so disjoint ranges build their postings independently and merge by OR
+         */
+        static Postings build(List<IndexedStudent> students) {
+            Postings merged = new Postings(students);
+            int chunks = (students.size() + BUILD_CHUNK_SIZE - 1) / BUILD_CHUNK_SIZE;
+            List<Postings> partials = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> {
+                        Postings partial = new Postings(students);
+                        int end = Math.min(students.size(), (chunk + 1) * BUILD_CHUNK_SIZE);
+                        for (int doc = chunk * BUILD_CHUNK_SIZE; doc < end; doc++) {
+                            partial.index(doc, students.get(doc));
+                        }
+                        return partial;
+                    })
+                    .collect(Collectors.toList());
+            for (Postings partial : partials) {
+                merged.docById.putAll(partial.docById);
+                merged.live.or(partial.live);
+                mergeInto(merged.names, partial.names);
+                mergeInto(merged.studentIds, partial.studentIds);
+                mergeInto(merged.majors, partial.majors);
+                mergeInto(merged.grades, partial.grades);
+            }
+            return merged;
+        }
+
+        private static <K> void mergeInto(Map<K, BitSet> target, Map<K, BitSet> source) {
+            source.forEach((term, bits) -> target.merge(term, bits, (a, b) -> {
+                a.or(b);
+                return a;
+            }));
+        }
+
+        void put(IndexedStudent student) {
+            Integer existing = docById.get(student.id);
+            if (existing != null) {
+                unindex(existing, docs.get(existing));
+                index(existing, student);
+                docs.set(existing, student);
+                return;
+            }
+            Integer free = freeDocs.poll();
+            int doc = free != null ? free : docs.size();
+            if (free != null) {
+                docs.set(doc, student);
+            } else {
+                docs.add(student);
+            }
+            index(doc, student);
+        }
+
+        void remove(String id) {
+            Integer doc = docById.get(id);
+            if (doc == null) {
+                return;
+            }
+            unindex(doc, docs.get(doc));
+            docs.set(doc, null);
+            freeDocs.push(doc);
+        }
+
+        int size() {
+            return docById.size();
+        }
+
+        BitSet live() {
+            return (BitSet) live.clone();
+        }
+
+        BitSet prefix(NavigableMap<String, BitSet> terms, String prefix) {
+            BitSet result = new BitSet();
+            for (BitSet bits : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                result.or(bits);
+            }
+            return result;
+        }
+
+        <K> BitSet exact(Map<K, BitSet> terms, K term) {
+            BitSet bits = terms.get(term);
+            return bits == null ? new BitSet() : bits;
+        }
+
+        private void index(int doc, IndexedStudent student) {
+            docById.put(student.id, doc);
+            live.set(doc);
+            for (String term : nameTerms(student.name)) {
+                add(names, term, doc);
+            }
+            add(studentIds, normalize(student.studentId), doc);
+            add(majors, normalize(student.major), doc);
+            if (student.grade != null) {
+                add(grades, student.grade, doc);
+            }
+        }
+
+        private void unindex(int doc, IndexedStudent student) {
+            docById.remove(student.id);
+            live.clear(doc);
+            for (String term : nameTerms(student.name)) {
+                clear(names, term, doc);
+            }
+            clear(studentIds, normalize(student.studentId), doc);
+            clear(majors, normalize(student.major), doc);
+            if (student.grade != null) {
+                clear(grades, student.grade, doc);
+            }
+        }
+
+        private static <K> void add(Map<K, BitSet> terms, K term, int doc) {
+            terms.computeIfAbsent(term, t -> new BitSet()).set(doc);
+        }
+
+        private static <K> void clear(Map<K, BitSet> terms, K term, int doc) {
+            BitSet bits = terms.get(term);
+            if (bits != null) {
+                bits.clear(doc);
+                if (bits.isEmpty()) {
+                    terms.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable copy of the indexed fields, so later changes to a managed entity cannot bypass the postings.
+     */
+    private static final class IndexedStudent {
+
+        static final Comparator<IndexedStudent> ORDER = Comparator
+                .comparing((IndexedStudent s) -> s.studentId, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(s -> s.id);
+
+        final String id;
+        final String username;
+        final String email;
+        final String studentId;
+        final String name;
+        final String major;
+        final Integer grade;
+
+        private IndexedStudent(Student student) {
+            this.id = student.getId();
+            this.username = student.getUsername();
+            this.email = student.getEmail();
+            this.studentId = student.getStudentId();
+            this.name = student.getName();
+            this.major = student.getMajor();
+            this.grade = student.getGrade();
+        }
+
+        static IndexedStudent of(Student student) {
+            return new IndexedStudent(student);
+        }
+
+        Student toStudent() {
+            Student student = new Student();
+            student.setId(id);
+            student.setUsername(username);
+            student.setEmail(email);
+            student.setStudentId(studentId);
+            student.setName(name);
+            student.setMajor(major);
+            student.setGrade(grade);
+            return student;
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package com.zjsu.course.service;
 
+import com.zjsu.course.common.CursorPage;
 import com.zjsu.course.exception.BusinessException;
 import com.zjsu.course.exception.ResourceNotFoundException;
 import com.zjsu.course.model.Student;
 import com.zjsu.course.repository.StudentJpaRepository;
+import com.zjsu.course.search.StudentSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Student domain logic.
@@ -15,18 +28,93 @@ import java.util.List;
 @Service
 public class StudentService {
 
+    private static final int MAX_LOOKUP_KEYS = 1000;
+
     @Autowired
     private StudentJpaRepository studentRepository;
 
+    @Autowired
+    private StudentSearchIndex searchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     public List<Student> getAllStudents() {
         return studentRepository.findAll();
     }
 
+    /**
+     * Keyset page ordered by id; {@code after} is the opaque cursor returned with the previous page.
+     */
+    public CursorPage<Student> getStudentPage(String after, Integer limit) {
+        int size = CursorPage.normalizeLimit(limit);
+        String afterId = CursorPage.decodeCursor(after);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Student> rows = afterId == null
+                ? studentRepository.findAllByOrderByIdAsc(page)
+                : studentRepository.findByIdGreaterThanOrderByIdAsc(afterId, page);
+        return CursorPage.of(rows, size, Student::getId);
+    }
+
+    /**
+     * Hands every student to {@code action} one row at a time, detaching each so the
+     * persistence context does not grow with the table.
+     */
+    @Transactional(readOnly = true)
+    public void streamStudents(Consumer<Student> action) {
+        try (Stream<Student> students = studentRepository.streamAll()) {
+            students.forEach(student -> {
+                action.accept(student);
+                entityManager.detach(student);
+            });
+        }
+    }
+
     public Student getStudentById(String id) {
         return studentRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Student not found with id: " + id));
     }
 
+    /**
+     * Resolves a list of keys (internal ids or student numbers) with one query per key kind.
+     * The result is keyed by the requested key in request order; unknown keys are omitted.
+     */
+    public Map<String, Student> lookupStudents(List<String> keys) {
+        Set<String> requested = new LinkedHashSet<>();
+        if (keys != null) {
+            for (String key : keys) {
+                if (key != null && !key.trim().isEmpty()) {
+                    requested.add(key.trim());
+                }
+            }
+        }
+        if (requested.size() > MAX_LOOKUP_KEYS) {
+            throw new BusinessException("Too many keys in lookup: " + requested.size() + " (max " + MAX_LOOKUP_KEYS + ")");
+        }
+        if (requested.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Map<String, Student> found = new HashMap<>();
+        for (Student student : studentRepository.findAllById(requested)) {
+            found.put(student.getId(), student);
+        }
+        Set<String> studentIds = new LinkedHashSet<>(requested);
+        studentIds.removeAll(found.keySet());
+        if (!studentIds.isEmpty()) {
+            for (Student student : studentRepository.findByStudentIdIn(studentIds)) {
+                found.putIfAbsent(student.getStudentId(), student);
+            }
+        }
+        Map<String, Student> result = new LinkedHashMap<>();
+        for (String key : requested) {
+            Student student = found.get(key);
+            if (student != null) {
+                result.put(key, student);
+            }
+        }
+        return result;
+    }
+
     public Student createStudent(Student student) {
         if (student.getStudentId() == null || student.getStudentId().trim().isEmpty()) {
             throw new BusinessException("Student number is required");
@@ -52,7 +140,9 @@ public class StudentService {
             throw new BusinessException("Student ID already exists: " + student.getStudentId());
         }
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        searchIndex.put(saved);
+        return saved;
     }
 
     public Student updateStudent(String id, Student studentDetails) {
@@ -70,13 +160,24 @@ public class StudentService {
         student.setGrade(studentDetails.getGrade());
         student.setEmail(studentDetails.getEmail());
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        searchIndex.put(saved);
+        return saved;
     }
 
     public void deleteStudent(String id) {
         // Ensure the student exists before deletion
         getStudentById(id);
         studentRepository.deleteById(id);
+        searchIndex.remove(id);
+    }
+
+    /**
+     * Searches the in-memory index (see StudentSearchIndex); returns {total, offset, limit, items}.
+     */
+    public Map<String, Object> searchStudents(String q, String name, String studentId, String major, Integer grade,
+                                              Integer offset, Integer limit) {
+        return searchIndex.search(q, name, studentId, major, grade, offset, limit);
     }
 
     public boolean existsById(String id) {
@@ -7,7 +7,28 @@ CREATE TABLE IF NOT EXISTS students (
   major VARCHAR(255),
   grade INT,
   email VARCHAR(255) NOT NULL UNIQUE,
-  created_at DATETIME
+  created_at DATETIME,
+  updated_at DATETIME,
+  KEY idx_students_major (major),
+  KEY idx_students_grade (grade)
+);
+
+-- user-service users: single-table inheritance (Student / Teacher), discriminated by user_type
+CREATE TABLE IF NOT EXISTS users (
+  id VARCHAR(64) PRIMARY KEY,
+  user_type VARCHAR(31) NOT NULL,
+  username VARCHAR(255),
+  email VARCHAR(255),
+  name VARCHAR(255),
+  student_id VARCHAR(64),
+  major VARCHAR(255),
+  grade INT,
+  teacher_id VARCHAR(64),
+  department VARCHAR(255),
+  KEY idx_users_student_id (student_id),
+  KEY idx_users_email (email),
+  KEY idx_users_major (major),
+  KEY idx_users_grade (grade)
 );
 
 CREATE TABLE IF NOT EXISTS courses (
@@ -24,7 +45,8 @@ CREATE TABLE IF NOT EXISTS courses (
   schedule_day_of_week VARCHAR(32),
   schedule_start_time VARCHAR(16),
   schedule_end_time VARCHAR(16),
-  schedule_expected_attendance INT
+  schedule_expected_attendance INT,
+  KEY idx_courses_instructor (instructor_id)
 );
 
 CREATE TABLE IF NOT EXISTS enrollments (
@@ -35,5 +57,32 @@ CREATE TABLE IF NOT EXISTS enrollments (
   status VARCHAR(32),
   CONSTRAINT fk_enroll_course FOREIGN KEY (course_id) REFERENCES courses(id) ON DELETE CASCADE,
   CONSTRAINT fk_enroll_student FOREIGN KEY (student_id) REFERENCES students(id) ON DELETE CASCADE,
-  UNIQUE KEY uq_course_student (course_id, student_id)
+  UNIQUE KEY uq_course_student (course_id, student_id),
+  -- a student's enrollments in enrollment order (findByStudentId / countByStudentId / timetable loading)
+  KEY idx_enrollments_student (student_id, enrolled_at),
+  -- waitlist head per course (status = 'WAITLISTED' ordered by enrolled_at)
+  KEY idx_enrollments_waitlist (course_id, status, enrolled_at),
+  -- courses that have waitlisted enrollments (waitlist rescan)
+  KEY idx_enrollments_status (status, course_id)
+);
+
+-- enrollment-service outbox: enrolled-count deltas written in the same transaction as enrollments,
+-- relayed to catalog-service in coalesced batches (delivery_key is stamped before the first send)
+CREATE TABLE IF NOT EXISTS enrollment_outbox (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  course_id VARCHAR(64) NOT NULL,
+  delta INT NOT NULL,
+  delivery_key VARCHAR(64),
+  attempts INT NOT NULL DEFAULT 0,
+  created_at DATETIME,
+  KEY idx_outbox_delivery_key (delivery_key)
+);
+
+-- catalog-service idempotency keys of applied enrolled-count deltas
+CREATE TABLE IF NOT EXISTS applied_seat_deltas (
+  delivery_key VARCHAR(64) PRIMARY KEY,
+  course_id VARCHAR(64),
+  delta INT,
+  applied_at DATETIME,
+  KEY idx_applied_seat_deltas_applied_at (applied_at)
 );
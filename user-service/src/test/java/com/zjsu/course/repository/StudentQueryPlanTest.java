@@ -0,0 +1,81 @@
+package com.zjsu.course.repository;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query plan regression: builds db/schema.sql on H2 in MySQL mode, runs every StudentJpaRepository derived query
+ * and EXPLAINs the SQL Hibernate actually issued, failing when a plan falls back to a full table scan (tableScan).
+ * Students live in the single-table `users` table, so every query also filters on user_type.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:user_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/schema.sql",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.zjsu.course.repository.QueryPlanInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class StudentQueryPlanTest {
+
+    @Autowired
+    private StudentJpaRepository studentRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Map<String, Runnable> queries() {
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("StudentJpaRepository.findByStudentId", () -> studentRepository.findByStudentId("S001"));
+        queries.put("StudentJpaRepository.existsByStudentId", () -> studentRepository.existsByStudentId("S001"));
+        queries.put("StudentJpaRepository.findByStudentIdIn",
+                () -> studentRepository.findByStudentIdIn(Arrays.asList("S001", "S002")));
+        queries.put("StudentJpaRepository.findByEmail", () -> studentRepository.findByEmail("s@example.com"));
+        queries.put("StudentJpaRepository.existsByEmail", () -> studentRepository.existsByEmail("s@example.com"));
+        queries.put("StudentJpaRepository.findByMajor", () -> studentRepository.findByMajor("cs"));
+        queries.put("StudentJpaRepository.findByGrade", () -> studentRepository.findByGrade(2024));
+        queries.put("StudentJpaRepository.findAllByOrderByIdAsc",
+                () -> studentRepository.findAllByOrderByIdAsc(PageRequest.of(0, 10)));
+        queries.put("StudentJpaRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> studentRepository.findByIdGreaterThanOrderByIdAsc("a", PageRequest.of(0, 10)));
+        return queries;
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queriesUseIndexes() {
+        return queries().entrySet().stream().map(query -> DynamicTest.dynamicTest(query.getKey(), () -> {
+            QueryPlanInspector.clear();
+            query.getValue().run();
+            List<String> statements = QueryPlanInspector.statements();
+            assertThat(statements).as("SQL issued by %s", query.getKey()).isNotEmpty();
+            for (String sql : statements) {
+                String plan = QueryPlanInspector.explain(dataSource, sql);
+                assertThat(plan).as("plan of %s: %s", query.getKey(), sql).doesNotContain("tableScan");
+            }
+        }));
+    }
+
+    @Test
+    void everyDerivedQueryIsCovered() {
+        Map<String, Runnable> queries = queries();
+        Arrays.stream(StudentJpaRepository.class.getDeclaredMethods())
+                .filter(method -> !method.isAnnotationPresent(Query.class))
+                .map(method -> "StudentJpaRepository." + method.getName())
+                .forEach(name -> assertThat(queries).as("query plan check for %s", name).containsKey(name));
+    }
+}